@@ -4,20 +4,47 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
+@Slf4j
 @Component
 public class JwtUtil {
 
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final Key key;
     private static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60; // 5 hours
+    // Carries the user's id so consumers like the STOMP CONNECT handler can
+    // authenticate without looking the user up by email
+    public static final String USER_ID_CLAIM = "uid";
+
+    // Every instance must sign with the same key or a token issued by one node is
+    // rejected by the next, so the key comes from jwt.secret. Without it a random
+    // per-JVM key is used, which is only acceptable for a single local instance.
+    public JwtUtil(@Value("${jwt.secret:}") String secret,
+            @Value("${websocket.broker.mode:simple}") String brokerMode) {
+        if (secret == null || secret.isBlank()) {
+            if ("relay".equalsIgnoreCase(brokerMode)) {
+                throw new IllegalStateException("jwt.secret must be set when running multiple instances (websocket.broker.mode=relay)");
+            }
+            log.warn("[JWT] jwt.secret is not set; using a random key, tokens are valid on this instance only and not across restarts");
+            this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        } else {
+            byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < 32) {
+                throw new IllegalStateException("jwt.secret must be at least 32 bytes for HS256");
+            }
+            this.key = Keys.hmacShaKeyFor(bytes);
+        }
+    }
 
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
@@ -32,7 +59,7 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims getAllClaimsFromToken(String token) {
+    public Claims getAllClaimsFromToken(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(key)
                 .build()
@@ -56,6 +83,13 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
+    public String generateToken(String username, String role, String userId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", role);
+        claims.put(USER_ID_CLAIM, userId);
+        return createToken(claims, username);
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -0,0 +1,90 @@
+package com.studencollabfin.server.config;
+
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the user id for a STOMP CONNECT bearer token.
+ *
+ * A token is verified once; the resulting user id is then cached under the
+ * token's SHA-256 hash (the raw token is never kept) until the token's own
+ * expiry, so SockJS reconnect storms cost a hash and a map lookup. Tokens
+ * carry the user id in the {@link JwtUtil#USER_ID_CLAIM} claim; only tokens
+ * issued before that claim existed fall back to a lookup by email.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompPrincipalCache {
+
+    static final int MAX_ENTRIES = 10_000;
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+
+    private record Entry(String userId, long expiresAt) {
+    }
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The user id the token authenticates, or empty if the token names no
+     * known user. Invalid or expired tokens throw the JWT parser's exception.
+     */
+    public Optional<String> resolveUserId(String token) {
+        String key = sha256(token);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    return Optional.of(entry.userId());
+                }
+                entries.remove(key);
+            }
+        }
+
+        // Verifies signature and expiry
+        Claims claims = jwtUtil.getAllClaimsFromToken(token);
+        Object claimedId = claims.get(JwtUtil.USER_ID_CLAIM);
+        String userId = claimedId != null
+                ? claimedId.toString()
+                : userRepository.findByEmail(claims.getSubject()).map(User::getId).orElse(null);
+        if (userId == null || userId.isBlank()) {
+            return Optional.empty();
+        }
+
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : now;
+        if (expiresAt > now) {
+            synchronized (entries) {
+                entries.put(key, new Entry(userId, expiresAt));
+            }
+        }
+        return Optional.of(userId);
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
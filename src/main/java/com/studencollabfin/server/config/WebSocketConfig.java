@@ -1,9 +1,8 @@
 package com.studencollabfin.server.config;
 
-import com.studencollabfin.server.model.User;
-import com.studencollabfin.server.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -11,7 +10,13 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -27,8 +32,59 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
-        private final JwtUtil jwtUtil;
-        private final UserRepository userRepository;
+        private final StompPrincipalCache stompPrincipalCache;
+        private final WebSocketMetrics webSocketMetrics;
+
+        // "simple" keeps subscriptions in this JVM (single node, local dev).
+        // "relay" forwards /topic and /queue to an external STOMP broker
+        // (RabbitMQ with the STOMP plugin, ActiveMQ, ...) so several instances
+        // can run behind the load balancer.
+        @Value("${websocket.broker.mode:simple}")
+        private String brokerMode;
+
+        @Value("${websocket.broker.relay.host:localhost}")
+        private String relayHost;
+
+        @Value("${websocket.broker.relay.port:61613}")
+        private int relayPort;
+
+        @Value("${websocket.broker.relay.login:guest}")
+        private String relayLogin;
+
+        @Value("${websocket.broker.relay.passcode:guest}")
+        private String relayPasscode;
+
+        @Value("${websocket.broker.relay.virtual-host:}")
+        private String relayVirtualHost;
+
+        // Channel executors: bounded so a flood (e.g. typing events) or a burst of
+        // broadcasts cannot queue without limit. On overflow typing frames are
+        // dropped and everything else runs on the caller (see WebSocketMetrics)
+        @Value("${websocket.inbound.pool-size:8}")
+        private int inboundPoolSize;
+
+        @Value("${websocket.inbound.queue-capacity:1000}")
+        private int inboundQueueCapacity;
+
+        @Value("${websocket.outbound.pool-size:16}")
+        private int outboundPoolSize;
+
+        @Value("${websocket.outbound.queue-capacity:10000}")
+        private int outboundQueueCapacity;
+
+        // Per-session limits: a client that cannot keep up is disconnected instead
+        // of buffering unboundedly on the server
+        @Value("${websocket.session.send-time-limit-ms:15000}")
+        private int sendTimeLimitMs;
+
+        @Value("${websocket.session.send-buffer-size-limit:524288}")
+        private int sendBufferSizeLimit;
+
+        @Value("${websocket.session.message-size-limit:65536}")
+        private int messageSizeLimit;
+
+        private ThreadPoolTaskExecutor inboundExecutor;
+        private ThreadPoolTaskExecutor outboundExecutor;
 
         private static final String[] ALLOWED_ORIGINS = List.of(
                         "http://localhost:5173",
@@ -39,17 +95,88 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
         @Override
         public void configureMessageBroker(@org.springframework.lang.NonNull MessageBrokerRegistry config) {
-                // Enable simple broker for /topic and /queue destinations
                 // User-specific messages will be sent to /user/{userId}/queue/* or
                 // /user/{userId}/topic/*
-                config.enableSimpleBroker("/topic", "/queue");
+                if ("relay".equalsIgnoreCase(brokerMode)) {
+                        StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                                        .setRelayHost(relayHost)
+                                        .setRelayPort(relayPort)
+                                        .setClientLogin(relayLogin)
+                                        .setClientPasscode(relayPasscode)
+                                        .setSystemLogin(relayLogin)
+                                        .setSystemPasscode(relayPasscode);
+                        if (!relayVirtualHost.isBlank()) {
+                                relay.setVirtualHost(relayVirtualHost);
+                        }
+                        // Cross-node user registry: each node broadcasts its local sessions
+                        // on this topic, and messages for a user whose session lives on
+                        // another node are re-published there instead of being dropped
+                        relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+                        relay.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+                        // Still per node: the STOMP principal cache, typing aggregation
+                        // (frames carry a node id) and the pod chat write-behind queue.
+                        // All nodes must share jwt.secret (JwtUtil refuses to start without it)
+                        log.info("[WS] Using STOMP broker relay at {}:{}", relayHost, relayPort);
+                } else {
+                        // Enable simple broker for /topic and /queue destinations
+                        config.enableSimpleBroker("/topic", "/queue");
+                }
                 config.setApplicationDestinationPrefixes("/app");
                 // Set the prefix for user-specific destinations
                 config.setUserDestinationPrefix("/user");
         }
 
+        @Override
+        public void configureWebSocketTransport(@org.springframework.lang.NonNull WebSocketTransportRegistration registry) {
+                registry.setSendTimeLimit(sendTimeLimitMs)
+                                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                                .setMessageSizeLimit(messageSizeLimit)
+                                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                                        @Override
+                                        public void afterConnectionEstablished(
+                                                        @org.springframework.lang.NonNull WebSocketSession session)
+                                                        throws Exception {
+                                                webSocketMetrics.sessionOpened();
+                                                super.afterConnectionEstablished(session);
+                                        }
+
+                                        @Override
+                                        public void afterConnectionClosed(
+                                                        @org.springframework.lang.NonNull WebSocketSession session,
+                                                        @org.springframework.lang.NonNull CloseStatus closeStatus)
+                                                        throws Exception {
+                                                // SESSION_NOT_RELIABLE: closed for exceeding the send limits
+                                                webSocketMetrics.sessionClosed(
+                                                                CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus));
+                                                super.afterConnectionClosed(session, closeStatus);
+                                        }
+                                });
+        }
+
+        @Override
+        public void configureClientOutboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
+                outboundExecutor = channelExecutor("ws-outbound-", outboundPoolSize, outboundQueueCapacity, false);
+                registration.taskExecutor(outboundExecutor);
+                webSocketMetrics.bindExecutors(inboundExecutor, outboundExecutor);
+        }
+
+        private ThreadPoolTaskExecutor channelExecutor(String prefix, int poolSize, int queueCapacity,
+                        boolean inbound) {
+                ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+                executor.setThreadNamePrefix(prefix);
+                executor.setCorePoolSize(poolSize);
+                executor.setMaxPoolSize(poolSize);
+                executor.setQueueCapacity(queueCapacity);
+                executor.setAllowCoreThreadTimeOut(true);
+                executor.setRejectedExecutionHandler(webSocketMetrics.overflowPolicy(inbound));
+                return executor;
+        }
+
         @Override
         public void configureClientInboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
+                inboundExecutor = channelExecutor("ws-inbound-", inboundPoolSize, inboundQueueCapacity, true);
+                registration.taskExecutor(inboundExecutor);
+                webSocketMetrics.bindExecutors(inboundExecutor, outboundExecutor);
                 registration.interceptors(new ChannelInterceptor() {
                         @Override
                         public Message<?> preSend(@org.springframework.lang.NonNull Message<?> message,
@@ -74,25 +201,21 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                 }
 
                                 try {
-                                        String email = jwtUtil.getUsernameFromToken(token);
-                                        User user = userRepository.findByEmail(email).orElse(null);
-                                        if (user == null || user.getId() == null || user.getId().isBlank()) {
+                                        String userId = stompPrincipalCache.resolveUserId(token).orElse(null);
+                                        if (userId == null) {
                                                 return message;
                                         }
 
                                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                                        user.getId(),
+                                                        userId,
                                                         null,
                                                         List.of(new SimpleGrantedAuthority("ROLE_USER")));
                                         accessor.setUser(authentication);
-                                        String userId = user.getId();
                                         if (accessor.getSessionAttributes() == null) {
                                                 accessor.setSessionAttributes(new HashMap<>());
                                         }
                                         accessor.getSessionAttributes().put("userId", userId);
-                                        log.info("[WS-AUTH] Stored userId {} in STOMP session attributes.", userId);
-                                        log.info("BREADCRUMB WS: WebSocket Connected & Authenticated for UserID: {}",
-                                                        userId);
+                                        log.debug("[WS-AUTH] Stored userId {} in STOMP session attributes.", userId);
                                 } catch (Exception e) {
                                         log.error("WebSocket CONNECT authentication failed", e);
                                 }
@@ -0,0 +1,137 @@
+package com.studencollabfin.server.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and gauges for the STOMP channels configured in WebSocketConfig:
+ * executor queue depth, typing frames dropped and other frames run on the
+ * caller because a channel queue was full, and sessions closed for exceeding
+ * their send time/buffer limits.
+ *
+ * Exposed at /api/admin/websocket-stats and logged once a minute while
+ * anything is queued, dropped or slow.
+ */
+@Slf4j
+@Component
+public class WebSocketMetrics {
+
+    private final AtomicLong openSessions = new AtomicLong();
+    private final AtomicLong slowSessionsClosed = new AtomicLong();
+    private final AtomicLong inboundDropped = new AtomicLong();
+    private final AtomicLong outboundDropped = new AtomicLong();
+    private final AtomicLong inboundCallerRuns = new AtomicLong();
+    private final AtomicLong outboundCallerRuns = new AtomicLong();
+
+    private volatile ThreadPoolTaskExecutor inboundExecutor;
+    private volatile ThreadPoolTaskExecutor outboundExecutor;
+    private long lastLoggedDrops;
+
+    void bindExecutors(ThreadPoolTaskExecutor inbound, ThreadPoolTaskExecutor outbound) {
+        this.inboundExecutor = inbound;
+        this.outboundExecutor = outbound;
+    }
+
+    /**
+     * Rejection policy for a channel executor whose queue is full. Typing
+     * indicators are ephemeral (the next one supersedes them), so they are
+     * dropped and counted. Everything else (CONNECT, SUBSCRIBE, DISCONNECT,
+     * chat SENDs, CONNECTED and MESSAGE frames) runs on the submitting thread:
+     * inbound that slows the reading connection, outbound the broadcaster,
+     * which is the backpressure we want instead of losing a control frame or
+     * a chat message.
+     */
+    RejectedExecutionHandler overflowPolicy(boolean inbound) {
+        AtomicLong dropped = inbound ? inboundDropped : outboundDropped;
+        AtomicLong callerRuns = inbound ? inboundCallerRuns : outboundCallerRuns;
+        return (task, executor) -> {
+            if (executor.isShutdown() || isDroppable(task)) {
+                dropped.incrementAndGet();
+                return;
+            }
+            callerRuns.incrementAndGet();
+            task.run();
+        };
+    }
+
+    // Only client/broker MESSAGE frames on a typing destination, e.g.
+    // /app/pod.{id}.typing in or /topic/conversation.{id}.typing out
+    static boolean isDroppable(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable runnable)) {
+            return false;
+        }
+        MessageHeaders headers = runnable.getMessage().getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return false;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        return destination != null && destination.endsWith(".typing");
+    }
+
+    void sessionOpened() {
+        openSessions.incrementAndGet();
+    }
+
+    void sessionClosed(boolean slow) {
+        openSessions.decrementAndGet();
+        if (slow) {
+            slowSessionsClosed.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openSessions", openSessions.get());
+        stats.put("slowSessionsClosed", slowSessionsClosed.get());
+        stats.put("inboundQueueDepth", queueDepth(inboundExecutor));
+        stats.put("inboundActiveThreads", activeThreads(inboundExecutor));
+        stats.put("inboundDropped", inboundDropped.get());
+        stats.put("inboundCallerRuns", inboundCallerRuns.get());
+        stats.put("outboundQueueDepth", queueDepth(outboundExecutor));
+        stats.put("outboundActiveThreads", activeThreads(outboundExecutor));
+        stats.put("outboundDropped", outboundDropped.get());
+        stats.put("outboundCallerRuns", outboundCallerRuns.get());
+        return stats;
+    }
+
+    @Scheduled(fixedRate = 60_000)
+    public void logIfBusy() {
+        long overflows = inboundDropped.get() + outboundDropped.get() + inboundCallerRuns.get()
+                + outboundCallerRuns.get() + slowSessionsClosed.get();
+        boolean backlog = queueDepth(inboundExecutor) > 0 || queueDepth(outboundExecutor) > 0;
+        if (backlog || overflows != lastLoggedDrops) {
+            log.warn("[WS-METRICS] {}", snapshot());
+            lastLoggedDrops = overflows;
+        }
+    }
+
+    private static int queueDepth(ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = pool(executor);
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    private static int activeThreads(ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = pool(executor);
+        return pool != null ? pool.getActiveCount() : 0;
+    }
+
+    private static ThreadPoolExecutor pool(ThreadPoolTaskExecutor executor) {
+        try {
+            return executor != null ? executor.getThreadPoolExecutor() : null;
+        } catch (IllegalStateException e) {
+            return null; // not initialized yet
+        }
+    }
+}
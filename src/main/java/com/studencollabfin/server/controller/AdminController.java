@@ -1,11 +1,17 @@
 package com.studencollabfin.server.controller;
 
+import com.studencollabfin.server.config.WebSocketMetrics;
 import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.model.Post;
 import com.studencollabfin.server.model.Comment;
 import com.studencollabfin.server.model.SystemSettings;
 import com.studencollabfin.server.repository.*;
 import com.studencollabfin.server.service.AchievementService;
+import com.studencollabfin.server.service.FcmDispatcher;
+import com.studencollabfin.server.service.InboxService;
+import com.studencollabfin.server.service.SkillIndexService;
+import com.studencollabfin.server.service.UserService;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -35,6 +41,11 @@ public class AdminController {
     private final BuddyBeaconRepository buddyBeaconRepository;
     private final EventReminderRepository eventReminderRepository;
     private final SystemSettingsRepository systemSettingsRepository;
+    private final SkillIndexService skillIndexService;
+    private final WebSocketMetrics webSocketMetrics;
+    private final FcmDispatcher fcmDispatcher;
+    private final InboxService inboxService;
+    private final UserService userService;
 
     public AdminController(UserRepository userRepository, PostRepository postRepository,
             CommentRepository commentRepository, AchievementService achievementService,
@@ -43,7 +54,9 @@ public class AdminController {
             ConversationRepository conversationRepository, MessageRepository messageRepository,
             EventRepository eventRepository, ApplicationRepository applicationRepository,
             ReportRepository reportRepository, BuddyBeaconRepository buddyBeaconRepository,
-            EventReminderRepository eventReminderRepository, SystemSettingsRepository systemSettingsRepository) {
+            EventReminderRepository eventReminderRepository, SystemSettingsRepository systemSettingsRepository,
+            SkillIndexService skillIndexService, WebSocketMetrics webSocketMetrics,
+            FcmDispatcher fcmDispatcher, InboxService inboxService, UserService userService) {
         this.userRepository = userRepository;
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
@@ -60,6 +73,29 @@ public class AdminController {
         this.buddyBeaconRepository = buddyBeaconRepository;
         this.eventReminderRepository = eventReminderRepository;
         this.systemSettingsRepository = systemSettingsRepository;
+        this.skillIndexService = skillIndexService;
+        this.webSocketMetrics = webSocketMetrics;
+        this.fcmDispatcher = fcmDispatcher;
+        this.inboxService = inboxService;
+        this.userService = userService;
+    }
+
+    /**
+     * STOMP channel health for this node: open sessions, channel queue depth,
+     * dropped messages and sessions closed for being too slow
+     */
+    @GetMapping("/websocket-stats")
+    public ResponseEntity<Map<String, Object>> getWebSocketStats() {
+        return ResponseEntity.ok(webSocketMetrics.snapshot());
+    }
+
+    /**
+     * Push notification pipeline for this node: queue depth, sent, retried,
+     * failed, dropped and invalid tokens removed
+     */
+    @GetMapping("/fcm-stats")
+    public ResponseEntity<Map<String, Object>> getFcmStats() {
+        return ResponseEntity.ok(fcmDispatcher.snapshot());
     }
 
     /**
@@ -134,24 +170,13 @@ public class AdminController {
     @PatchMapping("/users/{id}/ban")
     public ResponseEntity<?> banUser(@PathVariable String id, @RequestBody Map<String, String> request) {
         try {
-            User user = userRepository.findById(id).orElse(null);
+            // Ban the user and add the Spam Alert badge if not present
+            User user = userService.updateUser(id,
+                    Update.update("isBanned", true).addToSet("badges", "Spam Alert"));
             if (user == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            // Ban the user
-            user.setBanned(true);
-
-            // Add Spam Alert badge if not present
-            if (user.getBadges() == null) {
-                user.setBadges(new ArrayList<>());
-            }
-            if (!user.getBadges().contains("Spam Alert")) {
-                user.getBadges().add("Spam Alert");
-            }
-
-            userRepository.save(user);
-
             System.out.println("[AdminController] ✅ User banned: " + user.getEmail());
 
             return ResponseEntity.ok(Map.of(
@@ -217,6 +242,7 @@ public class AdminController {
             // ============================================================
             var inboxItems = inboxRepository.findByUserId(id);
             inboxRepository.deleteAll(inboxItems);
+            inboxService.forget(id);
             deletedInboxItems = inboxItems.size();
             System.out.println("  ✓ Deleted " + deletedInboxItems + " inbox items");
 
@@ -332,6 +358,7 @@ public class AdminController {
             // STEP 13: DELETE USER
             // ============================================================
             userRepository.deleteById(id);
+            skillIndexService.removeUser(id);
             System.out.println("[AdminController] ✅ USER COMPLETELY DELETED: " + userEmail);
 
             // Build response with deletion stats
@@ -408,15 +435,17 @@ public class AdminController {
                         "[AdminController] ⚠️ WARNING: User had Founding Dev badge pre-promotion. Keeping it as is (not our logic to remove)");
             }
 
-            // Add Campus Catalyst if not present
+            // Add Campus Catalyst if not present; targeted so concurrent writers aren't clobbered
             if (!user.getBadges().contains("Campus Catalyst")) {
-                user.getBadges().add("Campus Catalyst");
                 System.out.println("[AdminController]    ✅ ADDED: Campus Catalyst badge");
             } else {
                 System.out.println("[AdminController]    ℹ️ Already has Campus Catalyst badge");
             }
-
-            userRepository.save(user);
+            user = userService.updateUser(id,
+                    Update.update("role", "COLLEGE_HEAD").addToSet("badges", "Campus Catalyst"));
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
 
             System.out.println("[AdminController] ✅ Promotion complete:");
             System.out.println("[AdminController]    After: role=" + user.getRole() + ", isDev=" + user.isDev());
@@ -548,18 +577,16 @@ public class AdminController {
                     System.out.println("[AdminController] ⚠️ FOUND ISSUE: " + userEmail);
                     System.out.println("         Role: COLLEGE_HEAD, isDev: false, but has Founding Dev badge");
 
-                    // Remove only Founding Dev badge
-                    user.getBadges().remove("Founding Dev");
-
-                    // Ensure they have Campus Catalyst
+                    // Remove only Founding Dev badge and ensure they have Campus Catalyst
+                    // (two targeted updates: one update can't $pull and $addToSet the same array)
+                    userService.updateUser(user.getId(), new Update().pull("badges", "Founding Dev"));
+                    userService.updateUser(user.getId(), new Update().addToSet("badges", "Campus Catalyst"));
                     if (!hasCampusCatalyst) {
-                        user.getBadges().add("Campus Catalyst");
                         System.out.println("         ACTION: Removed 'Founding Dev', added 'Campus Catalyst'");
                     } else {
                         System.out.println("         ACTION: Removed 'Founding Dev' (already has Campus Catalyst)");
                     }
 
-                    userRepository.save(user);
                     fixed++;
                     fixedEmails.add(userEmail);
                 }
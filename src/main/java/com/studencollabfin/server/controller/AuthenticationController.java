@@ -86,7 +86,7 @@ public class AuthenticationController {
                                 "message", "The platform is currently under maintenance. Please try again later."));
             }
 
-            final String jwt = jwtUtil.generateToken(user.getEmail(), user.getRole());
+            final String jwt = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.getId());
 
             // Set token as httpOnly cookie for session persistence
             Cookie cookie = new Cookie("token", jwt);
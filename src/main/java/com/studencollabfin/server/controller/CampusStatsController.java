@@ -7,29 +7,19 @@ import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.model.CollabPod;
 import com.studencollabfin.server.model.CollabPod.PodType;
 import com.studencollabfin.server.model.PodScope;
-import com.studencollabfin.server.model.Post;
-import com.studencollabfin.server.model.SocialPost;
-import com.studencollabfin.server.model.TeamFindingPost;
-import com.studencollabfin.server.model.BuddyBeacon;
 import com.studencollabfin.server.repository.UserRepository;
 import com.studencollabfin.server.repository.CollabPodRepository;
-import com.studencollabfin.server.repository.PostRepository;
-import com.studencollabfin.server.repository.BuddyBeaconRepository;
 import com.studencollabfin.server.service.UserService;
 import com.studencollabfin.server.service.ActivityService;
+import com.studencollabfin.server.service.CampusActivityService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 
 /**
  * CampusStatsController: Provides real-time institutional statistics for Campus
@@ -47,10 +37,9 @@ public class CampusStatsController {
 
     private final UserRepository userRepository;
     private final CollabPodRepository collabPodRepository;
-    private final PostRepository postRepository;
-    private final BuddyBeaconRepository buddyBeaconRepository;
     private final UserService userService;
     private final ActivityService activityService;
+    private final CampusActivityService campusActivityService;
 
     /**
      * Get campus statistics for the authenticated user
@@ -104,7 +93,7 @@ public class CampusStatsController {
             System.out.println("   My Teams: " + myTeams);
 
             // 4. Build Activity Feed (latest 20 items)
-            List<CampusActivityDTO> activityFeed = buildActivityFeed(college, institutionDomain);
+            List<CampusActivityDTO> activityFeed = buildActivityFeed(college);
             System.out.println("   Activity Feed Items: " + activityFeed.size());
 
             CampusStatsDTO stats = new CampusStatsDTO(totalStudents, openCollaborations, myTeams, activityFeed);
@@ -118,71 +107,13 @@ public class CampusStatsController {
     }
 
     /**
-     * Build activity feed from various sources (pods, beacons, polls)
-     * Returns latest 20 items sorted by createdAt DESC
+     * Latest 20 campus activity items (pods, beacons, polls), newest first.
+     * Served by CampusActivityService from one indexed query; entries already
+     * carry the creator's name.
      */
-    private List<CampusActivityDTO> buildActivityFeed(String college, String institutionDomain) {
-        List<CampusActivityDTO> activities = new ArrayList<>();
-
+    private List<CampusActivityDTO> buildActivityFeed(String college) {
         try {
-            // Get campus pods
-            List<CollabPod> pods = collabPodRepository.findByCollege(college);
-            for (CollabPod pod : pods) {
-                User creator = userRepository.findById(pod.getOwnerId()).orElse(null);
-                if (creator != null && pod.getCreatedAt() != null) {
-                    CampusActivityDTO activity = new CampusActivityDTO();
-                    activity.setType(pod.getType() == PodType.LOOKING_FOR ? "COLLAB_POD" : "TEAM_POD");
-                    activity.setUsername(creator.getFullName());
-                    activity.setUserId(creator.getId());
-                    activity.setTitle(pod.getName());
-                    activity.setCreatedAt(Date.from(pod.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()));
-                    activities.add(activity);
-                }
-            }
-
-            // Get polls (SocialPost with type POLL)
-            List<Post> posts = postRepository.findByCollege(college);
-            for (Post post : posts) {
-                if (post instanceof SocialPost) {
-                    SocialPost socialPost = (SocialPost) post;
-                    if (socialPost.getType() != null && "POLL".equals(socialPost.getType().name())) {
-                        User author = userRepository.findById(socialPost.getAuthorId()).orElse(null);
-                        if (author != null && socialPost.getCreatedAt() != null) {
-                            CampusActivityDTO activity = new CampusActivityDTO();
-                            activity.setType("POLL");
-                            activity.setUsername(author.getFullName());
-                            activity.setUserId(author.getId());
-                            activity.setTitle(
-                                    socialPost.getTitle() != null ? socialPost.getTitle() : socialPost.getContent());
-                            activity.setCreatedAt(
-                                    Date.from(socialPost.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()));
-                            activities.add(activity);
-                        }
-                    }
-                }
-            }
-
-            // Get buddy beacons (filter by college if beacon has creator info)
-            List<BuddyBeacon> beacons = buddyBeaconRepository.findAll();
-            for (BuddyBeacon beacon : beacons) {
-                User creator = userRepository.findById(beacon.getAuthorId()).orElse(null);
-                if (creator != null && college.equals(creator.getCollegeName()) && beacon.getCreatedAt() != null) {
-                    CampusActivityDTO activity = new CampusActivityDTO();
-                    activity.setType("BEACON");
-                    activity.setUsername(creator.getFullName());
-                    activity.setUserId(creator.getId());
-                    activity.setTitle(null); // Beacons don't have titles
-                    activity.setCreatedAt(Date.from(beacon.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()));
-                    activities.add(activity);
-                }
-            }
-
-            // Sort by createdAt DESC (newest first)
-            activities.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-
-            // Return latest 20
-            return activities.stream().limit(20).collect(Collectors.toList());
-
+            return campusActivityService.getLatest(college, CampusActivityService.FEED_SIZE);
         } catch (Exception e) {
             System.err.println("❌ [ActivityFeed] Error: " + e.getMessage());
             e.printStackTrace();
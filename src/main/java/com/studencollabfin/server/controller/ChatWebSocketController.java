@@ -4,6 +4,7 @@ import com.studencollabfin.server.model.Chat;
 import com.studencollabfin.server.model.Message;
 import com.studencollabfin.server.service.ChatService;
 import com.studencollabfin.server.service.MessagingService;
+import com.studencollabfin.server.service.TypingIndicatorAggregator;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -23,6 +24,9 @@ public class ChatWebSocketController {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private TypingIndicatorAggregator typingIndicatorAggregator;
+
     // ✅ UPGRADED: Handle 1:1 direct messages via /chat.send endpoint
     @MessageMapping("/chat.send")
     public void sendMessage(@Payload ChatMessage chatMessage) {
@@ -75,21 +79,21 @@ public class ChatWebSocketController {
     }
 
     // ✅ UPGRADED: Broadcast typing indicators to conversation topic (NOT individual
-    // user queue)
+    // user queue). Events are coalesced by TypingIndicatorAggregator, which sends
+    // the conversation's current typists at most once per flush interval.
     @MessageMapping("/chat.typing")
     public void notifyTyping(@Payload Map<String, Object> typingData) {
         try {
             String conversationId = (String) typingData.get("conversationId");
-            String userName = (String) typingData.get("userName");
-
-            System.out.println("⌨️ [WS.TYPING] User typing in conversation: " + conversationId);
-            System.out.println("   User: " + userName);
+            if (conversationId == null) {
+                return;
+            }
+            Object userId = typingData.containsKey("userId") ? typingData.get("userId") : typingData.get("senderId");
+            boolean typing = !"false".equalsIgnoreCase(String.valueOf(typingData.get("isTyping")));
 
-            // ✅ FIXED: Broadcast to conversation topic (not individual user queue)
             String typingTopic = "/topic/conversation." + conversationId + ".typing";
-            System.out.println("📤 [WS] Broadcasting typing to: " + typingTopic);
-            messagingTemplate.convertAndSend(typingTopic, typingData);
-            System.out.println("✅ [WS] Typing broadcast complete");
+            typingIndicatorAggregator.onTyping(typingTopic, Map.of("conversationId", conversationId),
+                    userId != null ? userId.toString() : null, (String) typingData.get("userName"), typing);
 
         } catch (Exception e) {
             System.err.println("❌ Error handling typing indicator: " + e.getMessage());
@@ -5,7 +5,9 @@ import com.studencollabfin.server.model.Message;
 import com.studencollabfin.server.model.PodScope;
 import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.repository.CollabPodRepository;
+import com.studencollabfin.server.service.CampusActivityService;
 import com.studencollabfin.server.service.CollabPodService;
+import com.studencollabfin.server.service.MessageHistoryService;
 import com.studencollabfin.server.service.UserService;
 import com.studencollabfin.server.service.AchievementService;
 import com.studencollabfin.server.exception.PermissionDeniedException;
@@ -37,13 +39,16 @@ public class CollabPodController {
     private final CollabPodService collabPodService;
     private final UserService userService;
     private final AchievementService achievementService;
+    private final CampusActivityService campusActivityService;
 
     public CollabPodController(CollabPodRepository collabPodRepository, CollabPodService collabPodService,
-            UserService userService, AchievementService achievementService) {
+            UserService userService, AchievementService achievementService,
+            CampusActivityService campusActivityService) {
         this.collabPodRepository = collabPodRepository;
         this.collabPodService = collabPodService;
         this.userService = userService;
         this.achievementService = achievementService;
+        this.campusActivityService = campusActivityService;
     }
 
     /**
@@ -265,11 +270,40 @@ public class CollabPodController {
         return response;
     }
 
+    /**
+     * Pod chat history. Without paging parameters the full history is returned
+     * (legacy clients). With before/after/limit a single page is returned, and
+     * X-Prev-Cursor / X-Next-Cursor headers carry the cursors for the adjacent
+     * pages.
+     */
     @GetMapping("/{id}/messages")
-    public ResponseEntity<List<Message>> getPodMessages(@PathVariable String id) {
+    public ResponseEntity<List<Message>> getPodMessages(@PathVariable String id,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            if (before == null && after == null && limit == null) {
+                return ResponseEntity.ok(collabPodService.getMessagesForPod(id));
+            }
+            return MessageHistoryService.toResponse(collabPodService.getMessagePageForPod(id, before, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Delta sync for reconnecting clients: pod messages with seq greater than
+     * {@code since}, oldest first, with an X-Has-More header.
+     */
+    @GetMapping("/{id}/sync")
+    public ResponseEntity<List<Message>> syncPodMessages(@PathVariable String id,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Message> messages = collabPodService.getMessagesForPod(id);
-            return ResponseEntity.ok(messages);
+            return MessageHistoryService.toResponse(collabPodService.getMessagesSinceForPod(id, since, limit));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -300,6 +334,7 @@ public class CollabPodController {
     public ResponseEntity<CollabPod> createPod(@RequestBody CollabPod newPod) {
         @SuppressWarnings("null")
         CollabPod savedPod = collabPodRepository.save(newPod);
+        campusActivityService.recordPod(savedPod);
         return new ResponseEntity<>(savedPod, HttpStatus.CREATED);
     }
 
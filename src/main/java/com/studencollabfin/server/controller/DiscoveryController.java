@@ -1,18 +1,23 @@
 package com.studencollabfin.server.controller;
 
+import com.studencollabfin.server.dto.DiscoveryCardDTO;
 import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.repository.UserRepository;
-import com.studencollabfin.server.service.SkillSimilarityService;
+import com.studencollabfin.server.service.DiscoveryService;
+import com.studencollabfin.server.service.SkillIndexService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -28,20 +33,29 @@ public class DiscoveryController {
 
         private static final Logger logger = LoggerFactory.getLogger(DiscoveryController.class);
 
+        private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
         @Autowired
         private UserRepository userRepository;
 
         @Autowired
-        private SkillSimilarityService similarityService;
+        private SkillIndexService skillIndexService;
+
+        @Autowired
+        private DiscoveryService discoveryService;
 
         /**
          * Get paginated global skill matches for the authenticated user.
          * 🔄 PAGINATION SUPPORT: Supports page & limit for infinite scrolling.
          * 🎯 SORTING: Consistent by similarity score (ties broken by user ID).
+         * 🔖 CURSOR: Every authenticated response carries an opaque X-Next-Cursor
+         * header (last score + user ID). Passing it back as ?cursor= resumes right
+         * after that entry, so deep pages cost the same as the first one.
          * 
-         * @param page        Current page (1-indexed, default 1)
+         * @param page        Current page (1-indexed, default 1; ignored with cursor)
          * @param limit       Results per page (default 5 for Web compatibility, max 100
          *                    for App)
+         * @param cursor      X-Next-Cursor value from the previous page (optional)
          * @param currentUser Authenticated user (injected by Spring Security)
          * @return Paginated list of matching users globally (no college filter)
          */
@@ -49,6 +63,7 @@ public class DiscoveryController {
         public ResponseEntity<List<User>> getGlobalMatches(
                         @RequestParam(defaultValue = "1") int page,
                         @RequestParam(defaultValue = "5") int limit,
+                        @RequestParam(required = false) String cursor,
                         @AuthenticationPrincipal User currentUser) {
 
                 // Validate pagination parameters
@@ -62,19 +77,13 @@ public class DiscoveryController {
                 int offset = (page - 1) * limit;
                 logger.info("📄 [PAGINATION] page={}, limit={}, offset={}", page, limit, offset);
 
-                // Fetch all users from database
-                List<User> allUsers = userRepository.findAll();
-                logger.info("📊 Total users in DB: {}", allUsers.size());
-
                 // If not authenticated, return paginated users (unsorted)
                 if (currentUser == null) {
                         logger.warn("⚠️ /api/discovery/mesh - currentUser is NULL (not authenticated)");
-                        List<User> paginatedUsers = allUsers.stream()
-                                        .skip(offset)
-                                        .limit(limit)
-                                        .collect(Collectors.toList());
-                        logger.info("✅ Returning {} unauthenticated candidates (page {} of ~{})",
-                                        paginatedUsers.size(), page, (allUsers.size() + limit - 1) / limit);
+                        List<User> paginatedUsers = userRepository.findAll(PageRequest.of(page - 1, limit))
+                                        .getContent();
+                        logger.info("✅ Returning {} unauthenticated candidates (page {})",
+                                        paginatedUsers.size(), page);
                         return ResponseEntity.ok(paginatedUsers);
                 }
 
@@ -85,35 +94,57 @@ public class DiscoveryController {
                 logger.info("📊 Current user skills: {}", mySkills);
 
                 // 🔄 CONSISTENT SORTING: By similarity score (descending), then by user ID
-                // (ascending)
-                // This ensures stable pagination across multiple requests
-                List<User> sortedMatches = allUsers.stream()
-                                .filter(u -> !u.getId().equals(currentUser.getId())) // Exclude self
-                                .sorted((u1, u2) -> {
-                                        double score1 = similarityService.calculateSimilarity(mySkills, u1.getSkills());
-                                        double score2 = similarityService.calculateSimilarity(mySkills, u2.getSkills());
-
-                                        // Primary: Sort by score (descending - highest match first)
-                                        int scoreComparison = Double.compare(score2, score1);
-                                        if (scoreComparison != 0)
-                                                return scoreComparison;
-
-                                        // Secondary: Sort by ID (ascending) to break ties consistently
-                                        return u1.getId().compareTo(u2.getId());
-                                })
-                                .collect(Collectors.toList());
+                // (ascending). The skill index only scores users sharing a skill and keeps
+                // a bounded top-K heap of (offset + limit) entries.
+                List<SkillIndexService.ScoredUser> pageEntries;
+                if (cursor != null && !cursor.isBlank()) {
+                        SkillIndexService.ScoredUser after;
+                        try {
+                                after = SkillIndexService.ScoredUser.fromCursor(cursor);
+                        } catch (IllegalArgumentException e) {
+                                logger.warn("⚠️ /api/discovery/mesh - invalid cursor: {}", cursor);
+                                return ResponseEntity.badRequest().build();
+                        }
+                        pageEntries = skillIndexService.topMatches(currentUser.getId(), mySkills, after, limit);
+                } else {
+                        List<SkillIndexService.ScoredUser> ranked = skillIndexService.topMatches(
+                                        currentUser.getId(), mySkills, offset + limit);
+                        pageEntries = ranked.size() > offset
+                                        ? ranked.subList(offset, ranked.size())
+                                        : List.of();
+                }
+                List<User> topMatches = loadInOrder(pageEntries);
 
-                logger.info("✅ Sorted {} candidates by similarity score", sortedMatches.size());
+                logger.info("✅ Returning {} matches (page {}, cursor={}, {} users indexed)",
+                                topMatches.size(), page, cursor != null, skillIndexService.size());
 
-                // Apply pagination
-                List<User> topMatches = sortedMatches.stream()
-                                .skip(offset)
-                                .limit(limit)
-                                .collect(Collectors.toList());
+                // A short page means the mesh is exhausted: no next cursor
+                if (pageEntries.size() < limit) {
+                        return ResponseEntity.ok(topMatches);
+                }
+                return ResponseEntity.ok()
+                                .header(NEXT_CURSOR_HEADER, pageEntries.get(pageEntries.size() - 1).toCursor())
+                                .body(topMatches);
+        }
 
-                logger.info("✅ Returning {} matches (page {} of ~{})",
-                                topMatches.size(), page, (sortedMatches.size() + limit - 1) / limit);
-                return ResponseEntity.ok(topMatches);
+        /**
+         * Fetch ranked users in one round-trip, preserving the ranking order.
+         */
+        private List<User> loadInOrder(List<SkillIndexService.ScoredUser> entries) {
+                if (entries.isEmpty()) {
+                        return new ArrayList<>();
+                }
+                List<String> ids = entries.stream()
+                                .map(SkillIndexService.ScoredUser::userId)
+                                .collect(Collectors.toList());
+                Map<String, User> byId = new HashMap<>();
+                for (User user : userRepository.findAllById(ids)) {
+                        byId.put(user.getId(), user);
+                }
+                return ids.stream()
+                                .map(byId::get)
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.toList());
         }
 
         /**
@@ -128,16 +159,8 @@ public class DiscoveryController {
                                 .orElseThrow(() -> new RuntimeException("User not found"));
 
                 // Delegate to new mesh endpoint logic
-                List<String> mySkills = currentUser.getSkills();
-                List<User> matches = userRepository.findAll().stream()
-                                .filter(u -> !u.getId().equals(userId))
-                                .sorted((u1, u2) -> {
-                                        double score1 = similarityService.calculateSimilarity(mySkills, u1.getSkills());
-                                        double score2 = similarityService.calculateSimilarity(mySkills, u2.getSkills());
-                                        return Double.compare(score2, score1);
-                                })
-                                .limit(8)
-                                .collect(Collectors.toList());
+                List<User> matches = loadInOrder(
+                                skillIndexService.topMatches(userId, currentUser.getSkills(), 8));
 
                 return ResponseEntity.ok(matches);
         }
@@ -152,10 +175,10 @@ public class DiscoveryController {
          * 
          * @param excludeIds List of user IDs to exclude from results
          * @param limit      Number of results to return (default 10, max 100)
-         * @return List of users sorted by joinedDate (ASC) for FIFO queue behavior
+         * @return Discovery cards sorted by joinedDate (ASC) for FIFO queue behavior
          */
         @PostMapping("/mesh/batch")
-        public ResponseEntity<List<User>> getDiscoveryBatch(
+        public ResponseEntity<List<DiscoveryCardDTO>> getDiscoveryBatch(
                         @RequestBody List<String> excludeIds,
                         @RequestParam(defaultValue = "10") int limit) {
 
@@ -167,50 +190,15 @@ public class DiscoveryController {
 
                 logger.info("🎯 [DISCOVER_BATCH] Received {} exclude IDs, limit={}", excludeIds.size(), limit);
 
-                // Convert to Set for O(1) lookup
-                Set<String> excludeSet = new HashSet<>(excludeIds);
-                logger.info("📋 [DISCOVER_BATCH] Exclude Set size: {}", excludeSet.size());
-
-                // Fetch all users and filter
-                List<User> allUsers = userRepository.findAll();
-                logger.info("📊 [DISCOVER_BATCH] Total users in DB: {}", allUsers.size());
-
-                // 🔄 FIFO QUEUE LOGIC:
+                // 🔄 FIFO QUEUE LOGIC (resolved in MongoDB):
                 // - Filter: _id MUST NOT be in excludeIds
                 // - Sort: Strict by joinedDate ASC (oldest members first), then by ID ASC as
-                // tie-breaker
+                // tie-breaker, served by the {joinedDate: 1, _id: 1} index
                 // - Limit: Respect the limit param
-                List<User> batchCandidates = allUsers.stream()
-                                .filter(u -> !excludeSet.contains(u.getId())) // Exclude users in the list
-                                .sorted((u1, u2) -> {
-                                        // Sort by joinedDate (ASC) - oldest users first
-                                        if (u1.getJoinedDate() == null || u2.getJoinedDate() == null) {
-                                                // Handle null dates by comparing IDs
-                                                return u1.getId().compareTo(u2.getId());
-                                        }
-
-                                        // Primary: Compare joinedDate
-                                        int dateComparison = u1.getJoinedDate().compareTo(u2.getJoinedDate());
-                                        if (dateComparison != 0) {
-                                                return dateComparison; // Different dates? Use date
-                                        }
-
-                                        // Tie-Breaker: Same date? Use ID as deterministic tie-breaker
-                                        return u1.getId().compareTo(u2.getId());
-                                })
-                                .limit(limit)
-                                .collect(Collectors.toList());
-
-                // 🔍 DEBUG: Log the sorted order to verify stability
-                logger.info("✅ [DISCOVER_BATCH] Final Sort Order (Deterministic):");
-                for (int i = 0; i < batchCandidates.size(); i++) {
-                        User user = batchCandidates.get(i);
-                        logger.info("   [{}] ID: {} | Name: {} | JoinedDate: {}",
-                                        i, user.getId(), user.getFullName(), user.getJoinedDate());
-                }
+                // - Projection: Card fields only (no password, stats or badge lists)
+                List<DiscoveryCardDTO> batchCandidates = discoveryService.getDiscoveryBatch(excludeIds, limit);
 
-                logger.info("✅ [DISCOVER_BATCH] Returning {} candidates (filtered from {} total)",
-                                batchCandidates.size(), allUsers.size());
+                logger.info("✅ [DISCOVER_BATCH] Returning {} candidates", batchCandidates.size());
 
                 return ResponseEntity.ok(batchCandidates);
         }
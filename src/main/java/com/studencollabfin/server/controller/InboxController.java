@@ -2,6 +2,8 @@ package com.studencollabfin.server.controller;
 
 import com.studencollabfin.server.model.Inbox;
 import com.studencollabfin.server.repository.InboxRepository;
+import com.studencollabfin.server.service.BroadcastInboxService;
+import com.studencollabfin.server.service.InboxService;
 import com.studencollabfin.server.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
@@ -18,6 +20,10 @@ import java.util.Map;
  * - Retrieving all inbox items for the current user
  * - Filtering by notification type
  * - Marking items as read
+ *
+ * Items addressed to everyone (e.g. new events) come from BroadcastInboxService
+ * and are merged into the user's list; their ids start with "broadcast:" and
+ * read/delete on them only changes the calling user's receipt.
  */
 @RestController
 @RequestMapping("/api/inbox")
@@ -29,25 +35,47 @@ public class InboxController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private BroadcastInboxService broadcastInboxService;
+
+    @Autowired
+    private InboxService inboxService;
+
     /**
-     * Get all inbox items for the current user, sorted by newest first
+     * Get inbox items for the current user, sorted by newest first
+     * 
+     * Without before/limit the whole inbox is returned (legacy clients). With
+     * either, one page is returned and the cursor for the next (older) page is
+     * sent in the X-Next-Cursor header; it is absent on the last page.
      * 
      * @param userId The ID of the current user
+     * @param before Cursor from a previous page's X-Next-Cursor
+     * @param limit  Page size (default 30, max 100)
      * @return List of Inbox items sorted by timestamp (descending)
      */
     @GetMapping("/my")
     public ResponseEntity<List<Inbox>> getMyInbox(
-            @RequestParam String userId) {
+            @RequestParam String userId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
         System.out.println("📬 InboxController.getMyInbox called for user: " + userId);
 
         try {
+            if (before != null || limit != null) {
+                return InboxService.toResponse(inboxService.getPage(userId, before, limit));
+            }
+
             // Fetch all inbox items for user, sorted by newest first
             Sort sort = Sort.by(Sort.Direction.DESC, "timestamp");
-            List<Inbox> inboxItems = inboxRepository.findByUserId(userId, sort);
+            List<Inbox> inboxItems = BroadcastInboxService.merge(
+                    inboxRepository.findByUserId(userId, sort),
+                    broadcastInboxService.visibleTo(userId, null, false));
 
             System.out.println("✅ Found " + inboxItems.size() + " inbox items for user " + userId);
             return ResponseEntity.ok(inboxItems);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             System.err.println("❌ Error fetching inbox: " + e.getMessage());
             e.printStackTrace();
@@ -67,7 +95,9 @@ public class InboxController {
         System.out.println("📬 InboxController.getUnreadInbox called for user: " + userId);
 
         try {
-            List<Inbox> unreadItems = inboxRepository.findByUserIdAndReadFalse(userId);
+            List<Inbox> unreadItems = BroadcastInboxService.merge(
+                    inboxRepository.findByUserIdAndReadFalse(userId),
+                    broadcastInboxService.visibleTo(userId, null, true));
 
             System.out.println("✅ Found " + unreadItems.size() + " unread inbox items for user " + userId);
             return ResponseEntity.ok(unreadItems);
@@ -79,20 +109,46 @@ public class InboxController {
         }
     }
 
+    /**
+     * Number of unread items (personal and broadcast) for the current user,
+     * from the maintained counter; use this for badges instead of fetching
+     * /my/unread
+     * 
+     * @param userId The ID of the current user
+     * @return { "unread": n }
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(
+            @RequestParam String userId) {
+        return ResponseEntity.ok(Map.of("unread", inboxService.getUnreadCount(userId)));
+    }
+
     /**
      * Mark an inbox item as read
      * 
-     * @param id The ID of the inbox item
+     * @param id     The ID of the inbox item
+     * @param userId The current user (query param or X-User-Id); required for
+     *               broadcast items
      * @return The updated Inbox item
      */
     @PatchMapping("/{id}/read")
     @SuppressWarnings("null")
     public ResponseEntity<Inbox> markAsRead(
-            @PathVariable String id) {
+            @PathVariable String id,
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String headerUserId) {
         System.out.println("📬 InboxController.markAsRead called for inbox item: " + id);
 
         try {
-            Inbox updated = notificationService.markNotificationAsRead(id);
+            Inbox updated;
+            if (BroadcastInboxService.isBroadcastId(id)) {
+                updated = broadcastInboxService.markRead(id, resolveUserId(userId, headerUserId));
+                if (updated == null) {
+                    return ResponseEntity.notFound().build();
+                }
+            } else {
+                updated = notificationService.markNotificationAsRead(id);
+            }
 
             System.out.println("✅ Marked inbox item " + id + " as read");
             return ResponseEntity.ok(updated);
@@ -107,17 +163,28 @@ public class InboxController {
     /**
      * Delete an inbox item
      * 
-     * @param id The ID of the inbox item
+     * @param id     The ID of the inbox item
+     * @param userId The current user (query param or X-User-Id); required for
+     *               broadcast items
      * @return 204 No Content on success
      */
     @DeleteMapping("/{id}")
     @SuppressWarnings("null")
     public ResponseEntity<?> deleteInboxItem(
-            @PathVariable String id) {
+            @PathVariable String id,
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String headerUserId) {
         System.out.println("📬 InboxController.deleteInboxItem called for inbox item: " + id);
 
         try {
-            inboxRepository.deleteById(id);
+            if (BroadcastInboxService.isBroadcastId(id)) {
+                broadcastInboxService.dismiss(List.of(id), resolveUserId(userId, headerUserId));
+            } else {
+                inboxRepository.findById(id).ifPresent(item -> {
+                    inboxRepository.delete(item);
+                    inboxService.onDeleted(item);
+                });
+            }
 
             System.out.println("✅ Deleted inbox item " + id);
             return ResponseEntity.noContent().build();
@@ -132,30 +199,36 @@ public class InboxController {
     /**
      * ✅ Delete multiple inbox items in bulk
      * 
-     * @param body Request body containing list of item IDs: { "ids": ["id1", "id2"]
-     *             }
+     * One deleteMany restricted to the caller's own items; ids belonging to
+     * another user are ignored.
+     * 
+     * @param body   Request body containing list of item IDs: { "ids": ["id1", "id2"]
+     *               }
+     * @param userId The current user (query param or X-User-Id)
      * @return Count of deleted items
      */
     @DeleteMapping("/bulk")
-    @SuppressWarnings("null")
     public ResponseEntity<?> deleteBulkInboxItems(
-            @RequestBody Map<String, List<String>> body) {
+            @RequestBody Map<String, List<String>> body,
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String headerUserId) {
         System.out.println("📬 InboxController.deleteBulkInboxItems called");
 
         try {
             List<String> ids = body.get("ids");
+            String ownerId = resolveUserId(userId, headerUserId);
 
             if (ids == null || ids.isEmpty()) {
                 return ResponseEntity.badRequest().body("No IDs provided");
             }
-
-            // Delete all items with the provided IDs
-            for (String id : ids) {
-                inboxRepository.deleteById(id);
+            if (ownerId == null || ownerId.isBlank()) {
+                return ResponseEntity.badRequest().body("userId is required");
             }
 
-            System.out.println("✅ Deleted " + ids.size() + " inbox items");
-            return ResponseEntity.ok(Map.of("deleted", ids.size()));
+            long deleted = inboxService.deleteItems(ownerId, ids);
+
+            System.out.println("✅ Deleted " + deleted + " inbox items");
+            return ResponseEntity.ok(Map.of("deleted", deleted));
 
         } catch (Exception e) {
             System.err.println("❌ Error deleting bulk inbox items: " + e.getMessage());
@@ -182,19 +255,10 @@ public class InboxController {
             // Convert string to enum
             Inbox.NotificationType notificationType = Inbox.NotificationType.valueOf(type);
 
-            // Find all items of this type for the user
-            List<Inbox> items = inboxRepository.findByUserIdAndType(userId, notificationType);
+            long deleted = inboxService.clear(userId, notificationType);
 
-            if (items.isEmpty()) {
-                System.out.println("  ℹ️ No items of type " + type + " found for user " + userId);
-                return ResponseEntity.ok(Map.of("deleted", 0));
-            }
-
-            // Delete all found items
-            inboxRepository.deleteAll(items);
-
-            System.out.println("✅ Deleted " + items.size() + " inbox items of type " + type);
-            return ResponseEntity.ok(Map.of("deleted", items.size(), "type", type));
+            System.out.println("✅ Deleted " + deleted + " inbox items of type " + type);
+            return ResponseEntity.ok(Map.of("deleted", deleted, "type", type));
 
         } catch (Exception e) {
             System.err.println("❌ Error clearing inbox by type: " + e.getMessage());
@@ -215,19 +279,10 @@ public class InboxController {
         System.out.println("📬 InboxController.clearAllInbox called for user: " + userId);
 
         try {
-            // Find all items for this user
-            List<Inbox> items = inboxRepository.findByUserId(userId);
-
-            if (items.isEmpty()) {
-                System.out.println("  ℹ️ No items found for user " + userId);
-                return ResponseEntity.ok(Map.of("deleted", 0));
-            }
-
-            // Delete all found items
-            inboxRepository.deleteAll(items);
+            long deleted = inboxService.clear(userId, null);
 
-            System.out.println("✅ Cleared all " + items.size() + " inbox items for user " + userId);
-            return ResponseEntity.ok(Map.of("deleted", items.size()));
+            System.out.println("✅ Cleared all " + deleted + " inbox items for user " + userId);
+            return ResponseEntity.ok(Map.of("deleted", deleted));
 
         } catch (Exception e) {
             System.err.println("❌ Error clearing all inbox items: " + e.getMessage());
@@ -235,4 +290,38 @@ public class InboxController {
             return ResponseEntity.status(500).body("Error clearing inbox items");
         }
     }
+
+    /**
+     * ✅ Mark ALL inbox items read for the current user
+     * 
+     * @param userId The current user (query param or X-User-Id)
+     * @return Count of items marked read
+     */
+    @PatchMapping("/mark-all-read")
+    public ResponseEntity<?> markAllAsRead(
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = "X-User-Id", required = false) String headerUserId) {
+        userId = resolveUserId(userId, headerUserId);
+        System.out.println("📬 InboxController.markAllAsRead called for user: " + userId);
+
+        if (userId == null || userId.isBlank()) {
+            return ResponseEntity.badRequest().body("userId is required");
+        }
+
+        try {
+            long updated = inboxService.markAllRead(userId);
+
+            System.out.println("✅ Marked " + updated + " inbox items read for user " + userId);
+            return ResponseEntity.ok(Map.of("updated", updated));
+
+        } catch (Exception e) {
+            System.err.println("❌ Error marking all inbox items read: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error marking inbox items read");
+        }
+    }
+
+    private static String resolveUserId(String userId, String headerUserId) {
+        return userId != null && !userId.isBlank() ? userId : headerUserId;
+    }
 }
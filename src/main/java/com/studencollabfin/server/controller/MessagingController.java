@@ -2,6 +2,7 @@ package com.studencollabfin.server.controller;
 
 import com.studencollabfin.server.model.Conversation;
 import com.studencollabfin.server.model.Message;
+import com.studencollabfin.server.service.MessageHistoryService;
 import com.studencollabfin.server.service.MessagingService;
 import com.studencollabfin.server.dto.ConversationInviteResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,9 +44,36 @@ public class MessagingController {
         return messagingService.getConversation(conversationId).orElse(null);
     }
 
+    /**
+     * Conversation history. Without paging parameters the full history is
+     * returned (legacy clients); with before/after/limit a single keyset page
+     * plus X-Prev-Cursor / X-Next-Cursor headers.
+     */
     @GetMapping("/conversation/{conversationId}/messages")
-    public List<Message> getMessages(@PathVariable String conversationId) {
-        return messagingService.getMessages(conversationId);
+    public ResponseEntity<List<Message>> getMessages(@PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        if (before == null && after == null && limit == null) {
+            return ResponseEntity.ok(messagingService.getMessages(conversationId));
+        }
+        try {
+            return MessageHistoryService.toResponse(
+                    messagingService.getMessagePage(conversationId, before, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Delta sync: messages with seq greater than {@code since}, oldest first.
+     * X-Has-More tells the client to ask again from the last seq it received.
+     */
+    @GetMapping("/conversation/{conversationId}/sync")
+    public ResponseEntity<List<Message>> syncMessages(@PathVariable String conversationId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        return MessageHistoryService.toResponse(messagingService.getMessagesSince(conversationId, since, limit));
     }
 
     @PostMapping("/conversation/{conversationId}/send")
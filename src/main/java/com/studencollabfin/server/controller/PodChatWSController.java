@@ -3,6 +3,8 @@ package com.studencollabfin.server.controller;
 import com.studencollabfin.server.model.Message;
 import com.studencollabfin.server.service.CollabPodService;
 import com.studencollabfin.server.service.FcmNotificationService;
+import com.studencollabfin.server.service.PodMessageWriteBehind;
+import com.studencollabfin.server.service.TypingIndicatorAggregator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -16,12 +18,19 @@ import org.springframework.stereotype.Controller;
  * 
  * Message flow:
  * 1. Frontend sends message to /app/pod.{podId}.chat
- * 2. Handler saves message to database BEFORE broadcasting
+ * 2. Handler assigns the message id and journals it with PodMessageWriteBehind
  * 3. Broadcast to /topic/pod.{podId}.chat for all pod members
+ * 4. Once the batch containing it is in MongoDB, the sender receives a
+ *    durability ack on /user/queue/pod-ack ({podId, messageId, status, seq})
+ * 
+ * The broadcast carries no seq: it is assigned by the write-behind flusher so
+ * no Mongo round-trip precedes the broadcast. Clients learn seqs from acks,
+ * history and /app/sync replies.
  * 
  * Typing indicator flow:
  * 1. Frontend sends typing event to /app/pod.{podId}.typing with userName
- * 2. Broadcast to /topic/pod.{podId}.typing for all pod members
+ * 2. TypingIndicatorAggregator coalesces events and broadcasts the typist list
+ *    to /topic/pod.{podId}.typing at most once per interval
  */
 @Controller
 @RequiredArgsConstructor
@@ -29,32 +38,41 @@ public class PodChatWSController {
     private final CollabPodService collabPodService;
     private final SimpMessagingTemplate messagingTemplate;
     private final FcmNotificationService fcmNotificationService;
+    private final PodMessageWriteBehind podMessageWriteBehind;
+    private final TypingIndicatorAggregator typingIndicatorAggregator;
 
     @SuppressWarnings("null")
     @MessageMapping("/pod.{podId}.chat")
     public void handlePodMessage(@DestinationVariable String podId, @Payload Message message) {
         try {
-            System.out.println("📨 [WS] Message received for pod: " + podId);
-            System.out.println("   Content: " + message.getContent());
-            System.out.println("   Sender: " + message.getSenderName() + " (" + message.getSenderId() + ")");
-
             // Ensure pod context is properly set
             message.setPodId(podId);
             message.setConversationId(podId);
-            message.setMessageType(Message.MessageType.CHAT);
-            message.setScope("CAMPUS");
+            Message savedMessage = collabPodService.prepareMessage(message);
 
-            // CRITICAL: Save message to database BEFORE broadcasting
-            // This ensures data persistence even if WebSocket connection drops
-            System.out.println("💾 [DB] Saving message to database...");
-            Message savedMessage = collabPodService.saveMessage(message);
-            System.out.println("✅ [DB] Message saved with ID: " + savedMessage.getId());
+            // CRITICAL: Journal the message BEFORE broadcasting. The journal survives a
+            // crash, and the batched insert into MongoDB happens off this thread.
+            String senderId = savedMessage.getSenderId();
+            String messageId = savedMessage.getId();
+            String clientMessageId = savedMessage.getClientMessageId();
+            podMessageWriteBehind.submit(savedMessage).whenComplete((persisted, error) -> {
+                java.util.Map<String, Object> ack = new java.util.HashMap<>();
+                ack.put("podId", podId);
+                // A resend resolves to the message already stored under its clientMessageId
+                ack.put("messageId", persisted != null ? persisted.getId() : messageId);
+                if (clientMessageId != null) {
+                    ack.put("clientMessageId", clientMessageId);
+                }
+                ack.put("status", error == null ? "PERSISTED" : "FAILED");
+                if (persisted != null && persisted.getSeq() != null) {
+                    ack.put("seq", persisted.getSeq());
+                }
+                messagingTemplate.convertAndSendToUser(senderId, "/queue/pod-ack", ack);
+            });
 
-            // Broadcast saved message to all subscribers of this pod
+            // Broadcast the message to all subscribers of this pod
             String topicPath = String.format("/topic/pod.%s.chat", podId);
-            System.out.println("📤 [WS] Broadcasting to: " + topicPath);
             messagingTemplate.convertAndSend(topicPath, savedMessage);
-            System.out.println("✅ [WS] Broadcast complete");
 
             // ✅ FCM: POD notifications (topic-based) with Android tag stacking per pod
             try {
@@ -95,7 +113,6 @@ public class PodChatWSController {
                 System.err.println("⚠️ [FCM] POD notify failed: " + e.getMessage());
             }
 
-            System.out.println("✓ Pod message handled for pod " + podId + ": " + savedMessage.getId());
         } catch (Exception e) {
             System.err.println("✗ Error handling pod message: " + e.getMessage());
             e.printStackTrace();
@@ -109,30 +126,17 @@ public class PodChatWSController {
      * 
      * Typing indicator flow:
      * 1. Frontend sends to /app/pod.{podId}.typing with payload containing userName
-     * 2. Handler broadcasts to /topic/pod.{podId}.typing
-     * 3. Frontend receives and displays typing indicator
+     * 2. Handler records it in TypingIndicatorAggregator (no broadcast per keystroke)
+     * 3. Aggregator broadcasts the pod's current typists to /topic/pod.{podId}.typing
+     *    at most once per flush interval
      */
     @MessageMapping("/pod.{podId}.typing")
     public void handlePodTyping(@DestinationVariable String podId, @Payload java.util.Map<String, String> payload) {
         try {
-            String userId = payload.get("userId");
-            String userName = payload.get("userName");
-
-            System.out.println("⌨️  [WS] Typing indicator received for pod: " + podId);
-            System.out.println("   User: " + userName + " (" + userId + ")");
-
-            // Create typed indicator payload with userName included
-            java.util.Map<String, Object> typingEvent = new java.util.HashMap<>();
-            typingEvent.put("userId", userId);
-            typingEvent.put("userName", userName);
-            typingEvent.put("timestamp", System.currentTimeMillis());
-            typingEvent.put("isTyping", true);
-
-            // Broadcast to all subscribers of this pod's typing topic
             String typingTopic = String.format("/topic/pod.%s.typing", podId);
-            System.out.println("📤 [WS] Broadcasting typing indicator to: " + typingTopic);
-            messagingTemplate.convertAndSend(typingTopic, typingEvent);
-            System.out.println("✅ [WS] Typing indicator broadcast complete");
+            typingIndicatorAggregator.onTyping(typingTopic, java.util.Map.of("podId", podId),
+                    payload.get("userId"), payload.get("userName"),
+                    !"false".equalsIgnoreCase(payload.get("isTyping")));
         } catch (Exception e) {
             System.err.println("✗ Error handling typing indicator: " + e.getMessage());
             e.printStackTrace();
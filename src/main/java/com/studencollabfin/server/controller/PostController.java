@@ -5,6 +5,8 @@ import com.studencollabfin.server.model.SocialPost;
 import com.studencollabfin.server.model.TeamFindingPost;
 import com.studencollabfin.server.model.XPAction;
 import com.studencollabfin.server.model.CollabPod;
+import com.studencollabfin.server.service.CampusFeedService;
+import com.studencollabfin.server.service.PostCountService;
 import com.studencollabfin.server.service.PostService;
 import com.studencollabfin.server.service.UserService;
 import com.studencollabfin.server.service.GamificationService;
@@ -33,6 +35,8 @@ public class PostController {
     private final MongoTemplate mongoTemplate;
     private final UserService userService;
     private final CollabPodRepository collabPodRepository;
+    private final CampusFeedService campusFeedService;
+    private final PostCountService postCountService;
 
     @PutMapping("/{postId}/like")
     public ResponseEntity<SocialPost> toggleLike(@PathVariable String postId, Authentication authentication,
@@ -54,27 +58,6 @@ public class PostController {
         return ResponseEntity.ok(updatedPost);
     }
 
-    // Helper method to add author details to richPost
-    private void addAuthorDetailsToPost(java.util.Map<String, Object> richPost, String authorId) {
-        try {
-            com.studencollabfin.server.model.User user = userService.getUserById(authorId);
-            if (user != null) {
-                richPost.put("authorName", user.getFullName() != null ? user.getFullName() : "Unknown User");
-                richPost.put("authorCollege", user.getCollegeName() != null ? user.getCollegeName() : "");
-                richPost.put("authorYear", user.getYearOfStudy() != null ? user.getYearOfStudy() : "");
-            } else {
-                richPost.put("authorName", "Unknown User");
-                richPost.put("authorCollege", "");
-                richPost.put("authorYear", "");
-            }
-        } catch (Exception e) {
-            // If user fetch fails, use defaults
-            richPost.put("authorName", "Unknown User");
-            richPost.put("authorCollege", "");
-            richPost.put("authorYear", "");
-        }
-    }
-
     // Extracts user ID from Authentication or X-User-Id header
     private String getCurrentUserId(Authentication authentication, HttpServletRequest request) {
         // Try Authentication object first (Spring Security)
@@ -111,8 +94,16 @@ public class PostController {
         return domain.isEmpty() ? "" : domain;
     }
 
+    /**
+     * Campus feed for the current user's college.
+     * Pass {@code size} (and optionally {@code page}, 0-indexed) to get one page,
+     * newest first, from a single indexed query; without it the whole college
+     * feed is returned as before.
+     */
     @GetMapping
     public ResponseEntity<List<Object>> getAllPosts(@RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
             Authentication authentication, HttpServletRequest request) {
         // ✅ Campus Isolation: Fetch current user and filter posts by college
         String userId = getCurrentUserId(authentication, request);
@@ -121,7 +112,12 @@ public class PostController {
         if (userId != null && !userId.trim().isEmpty()) {
             try {
                 com.studencollabfin.server.model.User currentUser = userService.getUserById(userId);
-                if (currentUser != null && currentUser.getCollegeName() != null) {
+                if (currentUser != null && currentUser.getCollegeName() != null && size != null) {
+                    com.studencollabfin.server.model.PostType ptype = parsePostType(type);
+                    posts = campusFeedService.getCollegeFeedPage(currentUser.getCollegeName(), ptype,
+                            Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+                    return ResponseEntity.ok(toFeedRichPosts(posts));
+                } else if (currentUser != null && currentUser.getCollegeName() != null) {
                     posts = postService.getAllPosts(currentUser.getCollegeName());
                     System.out.println("✅ Filtered posts for college: " + currentUser.getCollegeName());
                 } else {
@@ -158,6 +154,24 @@ public class PostController {
                 // unknown type - ignore and return all
             }
         }
+        return ResponseEntity.ok(toFeedRichPosts(posts));
+    }
+
+    // Unknown or blank type filters are ignored (null)
+    private com.studencollabfin.server.model.PostType parsePostType(String type) {
+        if (type == null || type.isBlank()) {
+            return null;
+        }
+        try {
+            return com.studencollabfin.server.model.PostType.valueOf(type);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    // Rich format for GET /api/posts
+    private List<Object> toFeedRichPosts(List<Post> posts) {
+        java.util.Map<String, Post.AuthorSnippet> authors = campusFeedService.resolveAuthors(posts);
         List<Object> richPosts = new java.util.ArrayList<>();
         for (Post post : posts) {
             java.util.Map<String, Object> richPost = new java.util.HashMap<>();
@@ -165,8 +179,8 @@ public class PostController {
             richPost.put("authorId", post.getAuthorId());
             richPost.put("createdAt", post.getCreatedAt() != null ? post.getCreatedAt().toString() : "");
 
-            // Add author details (name, college, year)
-            addAuthorDetailsToPost(richPost, post.getAuthorId());
+            // Add author details (name, college, year) from the denormalized snippet
+            CampusFeedService.putAuthorDetails(richPost, authors.get(post.getId()));
 
             if (post instanceof com.studencollabfin.server.model.SocialPost) {
                 com.studencollabfin.server.model.SocialPost social = (com.studencollabfin.server.model.SocialPost) post;
@@ -201,7 +215,7 @@ public class PostController {
             }
             richPosts.add(richPost);
         }
-        return ResponseEntity.ok(richPosts);
+        return richPosts;
     }
 
     @PostMapping("/social")
@@ -455,13 +469,6 @@ public class PostController {
     @GetMapping("/campus/counts")
     public ResponseEntity<java.util.Map<String, Long>> getCampusPostCounts(Authentication authentication,
             HttpServletRequest request) {
-        java.util.Map<String, Long> counts = new java.util.HashMap<>();
-        java.util.List<com.studencollabfin.server.model.PostType> campusTypes = java.util.Arrays.asList(
-                com.studencollabfin.server.model.PostType.ASK_HELP,
-                com.studencollabfin.server.model.PostType.OFFER_HELP,
-                com.studencollabfin.server.model.PostType.LOOKING_FOR,
-                com.studencollabfin.server.model.PostType.POLL);
-
         // ✅ DOMAIN-LOCKED: Extract user's email domain and fetch posts from same domain
         // only
         String userId = getCurrentUserId(authentication, request);
@@ -493,67 +500,14 @@ public class PostController {
                     .body(java.util.Map.of());
         }
 
-        // Get posts strictly by institution domain (not all posts)
-        List<Post> allPosts = postService.getCampusPostsByDomain(institutionDomain);
-        for (com.studencollabfin.server.model.PostType ptype : campusTypes) {
-            long count = 0;
-            for (Post post : allPosts) {
-                // ✅ DOMAIN CHECK: Only count posts that belong to this user's institution
-                if (post.getInstitutionDomain() == null || !post.getInstitutionDomain().equals(institutionDomain)) {
-                    continue;
-                }
-
-                if (post instanceof com.studencollabfin.server.model.SocialPost) {
-                    com.studencollabfin.server.model.SocialPost social = (com.studencollabfin.server.model.SocialPost) post;
-                    String category = social.getCategory() != null ? social.getCategory() : "CAMPUS";
-
-                    // For LOOKING_FOR posts, verify pod source is COLLAB_POD (exclude TEAM_PODs)
-                    if (social.getType() == ptype && ("CAMPUS".equals(category) || category == null)) {
-                        if (ptype == com.studencollabfin.server.model.PostType.LOOKING_FOR) {
-                            // Verify linkedPodId points to a COLLAB_POD (not TEAM_POD)
-                            String linkedPodId = social.getLinkedPodId();
-                            if (linkedPodId != null && !linkedPodId.isEmpty()) {
-                                java.util.Optional<CollabPod> podOpt = collabPodRepository.findById(linkedPodId);
-                                if (podOpt.isPresent()
-                                        && podOpt.get().getPodSource() == CollabPod.PodSource.COLLAB_POD) {
-                                    count++;
-                                }
-                            }
-                        } else {
-                            // For non-LOOKING_FOR types, count normally
-                            count++;
-                        }
-                    }
-                }
-            }
-            counts.put(ptype.name(), count);
-        }
-        return ResponseEntity.ok(counts);
+        // Single $group aggregation over indexed fields (cached briefly per domain)
+        return ResponseEntity.ok(postCountService.getCampusCounts(institutionDomain));
     }
 
     @GetMapping("/inter/counts")
     public ResponseEntity<java.util.Map<String, Long>> getInterPostCounts() {
-        java.util.Map<String, Long> counts = new java.util.HashMap<>();
-        java.util.List<com.studencollabfin.server.model.PostType> interTypes = java.util.Arrays.asList(
-                com.studencollabfin.server.model.PostType.DISCUSSION,
-                com.studencollabfin.server.model.PostType.COLLAB,
-                com.studencollabfin.server.model.PostType.POLL);
-
-        // Get all posts and count by type for inter - filter by INTER category
-        List<Post> allPosts = postService.getAllPosts();
-        for (com.studencollabfin.server.model.PostType ptype : interTypes) {
-            long count = 0;
-            for (Post post : allPosts) {
-                if (post instanceof com.studencollabfin.server.model.SocialPost) {
-                    com.studencollabfin.server.model.SocialPost social = (com.studencollabfin.server.model.SocialPost) post;
-                    String category = social.getCategory() != null ? social.getCategory() : "CAMPUS";
-                    if (social.getType() == ptype && "INTER".equals(category))
-                        count++;
-                }
-            }
-            counts.put(ptype.name(), count);
-        }
-        return ResponseEntity.ok(counts);
+        // Count INTER-category posts by type with one aggregation (cached briefly)
+        return ResponseEntity.ok(postCountService.getInterCounts());
     }
 
     @GetMapping("/{id}")
@@ -804,6 +758,7 @@ public class PostController {
 
     // Helper method to convert posts to rich format
     private List<Object> convertToRichPosts(List<Post> posts) {
+        java.util.Map<String, Post.AuthorSnippet> authors = campusFeedService.resolveAuthors(posts);
         List<Object> richPosts = new java.util.ArrayList<>();
         for (Post post : posts) {
             java.util.Map<String, Object> richPost = new java.util.HashMap<>();
@@ -811,8 +766,8 @@ public class PostController {
             richPost.put("authorId", post.getAuthorId());
             richPost.put("createdAt", post.getCreatedAt() != null ? post.getCreatedAt().toString() : "");
 
-            // Add author details (name, college, year)
-            addAuthorDetailsToPost(richPost, post.getAuthorId());
+            // Add author details (name, college, year) from the denormalized snippet
+            CampusFeedService.putAuthorDetails(richPost, authors.get(post.getId()));
 
             if (post instanceof com.studencollabfin.server.model.SocialPost) {
                 com.studencollabfin.server.model.SocialPost social = (com.studencollabfin.server.model.SocialPost) post;
@@ -0,0 +1,91 @@
+package com.studencollabfin.server.controller;
+
+import com.studencollabfin.server.model.Message;
+import com.studencollabfin.server.service.CollabPodService;
+import com.studencollabfin.server.service.MessageHistoryService;
+import com.studencollabfin.server.service.MessagingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebSocket controller for replaying missed messages after a reconnect.
+ *
+ * Replay flow:
+ * 1. After (re)subscribing, the client sends to /app/sync
+ *    {podId | conversationId, since: <last seq seen>}
+ * 2. Handler loads messages with seq > since (one indexed range query)
+ * 3. Replies on /user/queue/sync with {podId | conversationId, messages,
+ *    hasMore, lastSeq}; while hasMore is true the client asks again from lastSeq
+ *
+ * Only pod members and conversation participants get messages; anyone else
+ * gets {podId | conversationId, error} on the same queue.
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class SyncWSController {
+    private final CollabPodService collabPodService;
+    private final MessagingService messagingService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @MessageMapping("/sync")
+    public void handleSync(@Payload Map<String, Object> request, Principal principal) {
+        if (principal == null) {
+            log.warn("[WS-SYNC] Ignoring sync request from unauthenticated session");
+            return;
+        }
+
+        String podId = (String) request.get("podId");
+        String conversationId = (String) request.get("conversationId");
+        long since = request.get("since") instanceof Number n ? n.longValue() : 0L;
+        Integer limit = request.get("limit") instanceof Number n ? n.intValue() : null;
+
+        String userId = principal.getName();
+        MessageHistoryService.SyncBatch batch;
+        Map<String, Object> reply = new HashMap<>();
+        if (podId != null && !podId.isBlank()) {
+            reply.put("podId", podId);
+            if (!collabPodService.isPodMember(podId, userId)) {
+                rejectSync(userId, reply, "Not a member of this pod");
+                return;
+            }
+            batch = collabPodService.getMessagesSinceForPod(podId, since, limit);
+        } else if (conversationId != null && !conversationId.isBlank()) {
+            reply.put("conversationId", conversationId);
+            if (!messagingService.isParticipant(conversationId, userId)) {
+                rejectSync(userId, reply, "Not a participant of this conversation");
+                return;
+            }
+            batch = messagingService.getMessagesSince(conversationId, since, limit);
+        } else {
+            return;
+        }
+
+        List<Message> messages = batch.messages();
+        long lastSeq = since;
+        for (Message message : messages) {
+            if (message.getSeq() != null && message.getSeq() > lastSeq) {
+                lastSeq = message.getSeq();
+            }
+        }
+        reply.put("messages", messages);
+        reply.put("hasMore", batch.hasMore());
+        reply.put("lastSeq", lastSeq);
+        messagingTemplate.convertAndSendToUser(userId, "/queue/sync", reply);
+    }
+
+    private void rejectSync(String userId, Map<String, Object> reply, String error) {
+        log.warn("[WS-SYNC] Rejected sync for {} on {}: {}", userId, reply, error);
+        reply.put("error", error);
+        messagingTemplate.convertAndSendToUser(userId, "/queue/sync", reply);
+    }
+}
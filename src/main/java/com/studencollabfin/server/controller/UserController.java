@@ -7,9 +7,13 @@ import com.studencollabfin.server.model.XPAction;
 import com.studencollabfin.server.service.UserService;
 import com.studencollabfin.server.service.AchievementService;
 import com.studencollabfin.server.service.GamificationService;
+import com.studencollabfin.server.service.OptimisticRetry;
+import com.studencollabfin.server.service.SkillIndexService;
+import com.studencollabfin.server.service.UserProfileCache;
 import com.studencollabfin.server.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -36,9 +40,15 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SkillIndexService skillIndexService;
+
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     /**
      * Updates the FCM token for the authenticated user
      */
@@ -126,8 +136,8 @@ public class UserController {
                         "message", "Missing user context. Provide userId or authenticated user."));
             }
 
-            user.setFcmToken(token);
-            userRepository.save(user);
+            userService.updateUser(user.getId(), Update.update("fcmToken", token));
+            userProfileCache.invalidate(user.getId());
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -176,8 +186,8 @@ public class UserController {
                 prefs.setAllowDMs(payload.get("allowDMs"));
             }
 
-            user.setNotificationPreferences(prefs);
-            userRepository.save(user);
+            user = userService.updateUser(user.getId(), Update.update("notificationPreferences", prefs));
+            userProfileCache.invalidate(user.getId());
 
             System.out.println("✅ [SETTINGS] Updated notification preferences for " + user.getEmail());
             System.out.println("   allowInbox: " + prefs.isAllowInbox());
@@ -262,19 +272,12 @@ public class UserController {
                         .body("Access Denied: Only developers can grant badges");
             }
 
-            // Get target user and promote to COLLEGE_HEAD
-            User targetUser = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-            targetUser.setRole("COLLEGE_HEAD");
-
-            // Add badge to user's list for frontend visibility
-            if (targetUser.getBadges() == null) {
-                targetUser.setBadges(new ArrayList<>());
+            // Promote target user to COLLEGE_HEAD and add the badge for frontend visibility
+            User targetUser = userService.updateUser(userId,
+                    Update.update("role", "COLLEGE_HEAD").addToSet("badges", "Campus Catalyst"));
+            if (targetUser == null) {
+                throw new RuntimeException("User not found");
             }
-            if (!targetUser.getBadges().contains("Campus Catalyst")) {
-                targetUser.getBadges().add("Campus Catalyst");
-            }
-
-            userRepository.save(targetUser);
             achievementService.unlockAchievement(userId, "Campus Catalyst");
 
             return ResponseEntity.ok(Map.of(
@@ -313,19 +316,12 @@ public class UserController {
     @SuppressWarnings("null")
     public ResponseEntity<?> activateDevForUser(@PathVariable String userId) {
         try {
-            // Get user and set isDev to true
-            User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-            user.setDev(true);
-
-            // Add Founding Dev badge if not already present
-            if (user.getBadges() == null) {
-                user.setBadges(new ArrayList<>());
-            }
-            if (!user.getBadges().contains("Founding Dev")) {
-                user.getBadges().add("Founding Dev");
+            // Set isDev to true and add the Founding Dev badge if not already present
+            User user = userService.updateUser(userId,
+                    Update.update("isDev", true).addToSet("badges", "Founding Dev"));
+            if (user == null) {
+                throw new RuntimeException("User not found");
             }
-
-            userRepository.save(user);
             achievementService.unlockAchievement(userId, "Founding Dev");
 
             return ResponseEntity.ok(Map.of(
@@ -343,32 +339,38 @@ public class UserController {
     @SuppressWarnings("null")
     public ResponseEntity<User> updateProfile(@PathVariable String userId, @RequestBody User updates) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            // Update all profile fields dynamically from the request
-            if (updates.getFullName() != null)
-                user.setFullName(updates.getFullName());
-            if (updates.getCollegeName() != null)
-                user.setCollegeName(updates.getCollegeName());
-            if (updates.getDepartment() != null)
-                user.setDepartment(updates.getDepartment());
-            if (updates.getYearOfStudy() != null)
-                user.setYearOfStudy(updates.getYearOfStudy());
-            if (updates.getGoals() != null)
-                user.setGoals(updates.getGoals());
-            if (updates.getSkills() != null)
-                user.setSkills(updates.getSkills());
-            if (updates.getExcitingTags() != null)
-                user.setExcitingTags(updates.getExcitingTags());
-            if (updates.getRolesOpenTo() != null)
-                user.setRolesOpenTo(updates.getRolesOpenTo());
-
-            User updatedUser = userRepository.save(user);
+            // Re-read and re-apply if a concurrent writer bumped the version
+            User updatedUser = OptimisticRetry.run("updateProfile", () -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+
+                // Update all profile fields dynamically from the request
+                if (updates.getFullName() != null)
+                    user.setFullName(updates.getFullName());
+                if (updates.getCollegeName() != null)
+                    user.setCollegeName(updates.getCollegeName());
+                if (updates.getDepartment() != null)
+                    user.setDepartment(updates.getDepartment());
+                if (updates.getYearOfStudy() != null)
+                    user.setYearOfStudy(updates.getYearOfStudy());
+                if (updates.getGoals() != null)
+                    user.setGoals(updates.getGoals());
+                if (updates.getSkills() != null)
+                    user.setSkills(updates.getSkills());
+                if (updates.getExcitingTags() != null)
+                    user.setExcitingTags(updates.getExcitingTags());
+                if (updates.getRolesOpenTo() != null)
+                    user.setRolesOpenTo(updates.getRolesOpenTo());
+
+                return userRepository.save(user);
+            });
+            if (updates.getSkills() != null) {
+                skillIndexService.indexUser(updatedUser);
+            }
             eventPublisher.publishEvent(new ProfileUpdatedEvent(userId, isProfileComplete(updatedUser)));
 
             // Check if profile is now complete for Profile Pioneer achievement
-            if (isProfileComplete(user)) {
+            if (isProfileComplete(updatedUser)) {
                 achievementService.unlockAchievement(userId, "Profile Pioneer");
             }
 
@@ -383,20 +385,16 @@ public class UserController {
     @SuppressWarnings("null")
     public ResponseEntity<User> endorseUser(@PathVariable String userId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            // Increment endorsement count
-            int currentEndorsements = user.getEndorsementsCount();
-            int newEndorsements = currentEndorsements + 1;
-            user.setEndorsementsCount(newEndorsements);
+            // Increment endorsement count ($inc, safe under concurrent endorsements)
+            User user = userService.incrementEndorsements(userId);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
 
             // 📊 GAMIFICATION: Award XP for receiving endorsement
             gamificationService.awardXp(userId, XPAction.RECEIVE_ENDORSEMENT);
 
-            user = userRepository.save(user);
-
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok(userRepository.findById(userId).orElse(user));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -433,33 +431,36 @@ public class UserController {
     public ResponseEntity<?> updateDisplayedBadges(@PathVariable String userId,
             @RequestBody Map<String, List<String>> request) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             List<String> badgesToDisplay = request.get("badges");
 
-            // Validate: user can only display badges they have earned
-            if (badgesToDisplay != null) {
-                for (String badge : badgesToDisplay) {
-                    if (!user.getBadges().contains(badge)) {
-                        return ResponseEntity.badRequest()
-                                .body("Cannot display badge you haven't earned: " + badge);
+            // Limit to 3 badges max (except special badges like Signal Guardian, Mod Badge,
+            // Penalty badges)
+            // For now, allow any 3 earned badges
+            if (badgesToDisplay != null && badgesToDisplay.size() > 3) {
+                return ResponseEntity.badRequest()
+                        .body("You can display a maximum of 3 badges");
+            }
+
+            // Re-read and re-validate if a concurrent writer bumped the version
+            return OptimisticRetry.<ResponseEntity<?>>run("updateDisplayedBadges", () -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+
+                // Validate: user can only display badges they have earned
+                if (badgesToDisplay != null) {
+                    for (String badge : badgesToDisplay) {
+                        if (!user.getBadges().contains(badge)) {
+                            return ResponseEntity.badRequest()
+                                    .body("Cannot display badge you haven't earned: " + badge);
+                        }
                     }
-                }
 
-                // Limit to 3 badges max (except special badges like Signal Guardian, Mod Badge,
-                // Penalty badges)
-                // For now, allow any 3 earned badges
-                if (badgesToDisplay.size() > 3) {
-                    return ResponseEntity.badRequest()
-                            .body("You can display a maximum of 3 badges");
+                    user.setDisplayedBadges(badgesToDisplay);
                 }
 
-                user.setDisplayedBadges(badgesToDisplay);
-            }
-
-            User updatedUser = userRepository.save(user);
-            return ResponseEntity.ok(updatedUser);
+                User updatedUser = userRepository.save(user);
+                return ResponseEntity.ok(updatedUser);
+            });
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error: " + e.getMessage());
@@ -477,66 +478,69 @@ public class UserController {
     public ResponseEntity<?> updateFeaturedBadges(@PathVariable String userId,
             @RequestBody Map<String, String> request) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // Re-read and re-apply if a concurrent writer bumped the version
+            return OptimisticRetry.<ResponseEntity<?>>run("updateFeaturedBadges", () -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
 
-            String badgeId = request.get("badgeId");
-            System.out.println("🎯 Feature Badge Request: userId=" + userId + ", badgeId=" + badgeId);
-            System.out.println("📊 User badges: " + user.getBadges());
+                String badgeId = request.get("badgeId");
+                System.out.println("🎯 Feature Badge Request: userId=" + userId + ", badgeId=" + badgeId);
+                System.out.println("📊 User badges: " + user.getBadges());
 
-            if (badgeId == null || badgeId.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body("Badge ID is required");
-            }
+                if (badgeId == null || badgeId.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                            .body("Badge ID is required");
+                }
 
-            // Get current featured badges list
-            List<String> featuredBadges = user.getFeaturedBadges();
-            if (featuredBadges == null) {
-                featuredBadges = new ArrayList<>();
-            }
+                // Get current featured badges list
+                List<String> featuredBadges = user.getFeaturedBadges();
+                if (featuredBadges == null) {
+                    featuredBadges = new ArrayList<>();
+                }
 
-            // ✅ NORMALIZATION: Normalize badge names to handle case sensitivity
-            String normalizedBadgeId = normalizeBadgeName(badgeId);
-            System.out.println("✏️ Normalized badgeId: " + badgeId + " -> " + normalizedBadgeId);
+                // ✅ NORMALIZATION: Normalize badge names to handle case sensitivity
+                String normalizedBadgeId = normalizeBadgeName(badgeId);
+                System.out.println("✏️ Normalized badgeId: " + badgeId + " -> " + normalizedBadgeId);
 
-            // ✅ VALIDATION: Check if user has earned this badge (with fallback auto-unlock)
-            boolean hasBadge = false;
-            if (user.getBadges() != null) {
-                hasBadge = user.getBadges().stream()
-                        .anyMatch(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
-            }
+                // ✅ VALIDATION: Check if user has earned this badge (with fallback auto-unlock)
+                boolean hasBadge = false;
+                if (user.getBadges() != null) {
+                    hasBadge = user.getBadges().stream()
+                            .anyMatch(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
+                }
 
-            if (!hasBadge) {
-                System.out.println("❌ Badge not found in user.badges! Badge: " + badgeId);
-                return ResponseEntity.badRequest()
-                        .body("Cannot feature badge not earned: " + badgeId);
-            }
+                if (!hasBadge) {
+                    System.out.println("❌ Badge not found in user.badges! Badge: " + badgeId);
+                    return ResponseEntity.badRequest()
+                            .body("Cannot feature badge not earned: " + badgeId);
+                }
 
-            // Toggle featured status with normalized names
-            boolean isAlreadyFeatured = featuredBadges.stream()
-                    .anyMatch(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
+                // Toggle featured status with normalized names
+                boolean isAlreadyFeatured = featuredBadges.stream()
+                        .anyMatch(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
 
-            if (isAlreadyFeatured) {
-                // Remove from featured if already featured
-                featuredBadges.removeIf(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
-                System.out.println("➖ Removed from featured: " + normalizedBadgeId);
-            } else {
-                // Add to featured if not already featured
-                // Limit to 2 featured badges max
-                if (featuredBadges.size() >= 2) {
-                    System.out.println("⚠️ Max limit reached: " + featuredBadges.size());
-                    return ResponseEntity.badRequest()
-                            .body("You can feature a maximum of 2 badges");
+                if (isAlreadyFeatured) {
+                    // Remove from featured if already featured
+                    featuredBadges.removeIf(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
+                    System.out.println("➖ Removed from featured: " + normalizedBadgeId);
+                } else {
+                    // Add to featured if not already featured
+                    // Limit to 2 featured badges max
+                    if (featuredBadges.size() >= 2) {
+                        System.out.println("⚠️ Max limit reached: " + featuredBadges.size());
+                        return ResponseEntity.badRequest()
+                                .body("You can feature a maximum of 2 badges");
+                    }
+                    featuredBadges.add(normalizedBadgeId);
+                    System.out.println("➕ Added to featured: " + normalizedBadgeId);
                 }
-                featuredBadges.add(normalizedBadgeId);
-                System.out.println("➕ Added to featured: " + normalizedBadgeId);
-            }
 
-            user.setFeaturedBadges(featuredBadges);
-            User updatedUser = userRepository.save(user);
-            System.out.println("✅ Featured badges updated: " + updatedUser.getFeaturedBadges());
+                user.setFeaturedBadges(featuredBadges);
+                User updatedUser = userRepository.save(user);
+                System.out.println("✅ Featured badges updated: " + updatedUser.getFeaturedBadges());
 
-            return ResponseEntity.ok(updatedUser);
+                return ResponseEntity.ok(updatedUser);
+            });
         } catch (RuntimeException e) {
             System.out.println("❌ Error: " + e.getMessage());
             e.printStackTrace();
@@ -550,43 +554,46 @@ public class UserController {
     public ResponseEntity<?> removeFeaturedBadge(@PathVariable String userId,
             @PathVariable String badgeId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // Re-read and re-apply if a concurrent writer bumped the version
+            return OptimisticRetry.<ResponseEntity<?>>run("removeFeaturedBadge", () -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
 
-            System.out.println("🗑️ Remove Badge Request: userId=" + userId + ", badgeId=" + badgeId);
-            System.out.println("📊 Current featured badges: " + user.getFeaturedBadges());
+                System.out.println("🗑️ Remove Badge Request: userId=" + userId + ", badgeId=" + badgeId);
+                System.out.println("📊 Current featured badges: " + user.getFeaturedBadges());
 
-            if (badgeId == null || badgeId.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body("Badge ID is required");
-            }
+                if (badgeId == null || badgeId.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                            .body("Badge ID is required");
+                }
 
-            // Get current featured badges list
-            List<String> featuredBadges = user.getFeaturedBadges();
-            if (featuredBadges == null || featuredBadges.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body("No featured badges to remove");
-            }
+                // Get current featured badges list
+                List<String> featuredBadges = user.getFeaturedBadges();
+                if (featuredBadges == null || featuredBadges.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                            .body("No featured badges to remove");
+                }
 
-            // ✅ NORMALIZATION: Normalize badge name to handle case sensitivity
-            String normalizedBadgeId = normalizeBadgeName(badgeId);
-            System.out.println("✏️ Normalized badgeId: " + badgeId + " -> " + normalizedBadgeId);
+                // ✅ NORMALIZATION: Normalize badge name to handle case sensitivity
+                String normalizedBadgeId = normalizeBadgeName(badgeId);
+                System.out.println("✏️ Normalized badgeId: " + badgeId + " -> " + normalizedBadgeId);
 
-            // Remove the badge from featured list (case-insensitive)
-            boolean removed = featuredBadges.removeIf(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
+                // Remove the badge from featured list (case-insensitive)
+                boolean removed = featuredBadges.removeIf(b -> normalizeBadgeName(b).equalsIgnoreCase(normalizedBadgeId));
 
-            if (!removed) {
-                System.out.println("⚠️ Badge not found in featured list: " + normalizedBadgeId);
-                return ResponseEntity.badRequest()
-                        .body("Badge not found in featured showcase");
-            }
+                if (!removed) {
+                    System.out.println("⚠️ Badge not found in featured list: " + normalizedBadgeId);
+                    return ResponseEntity.badRequest()
+                            .body("Badge not found in featured showcase");
+                }
 
-            user.setFeaturedBadges(featuredBadges);
-            User updatedUser = userRepository.save(user);
-            System.out.println("✅ Badge removed from featured: " + normalizedBadgeId);
-            System.out.println("✅ Featured badges now: " + updatedUser.getFeaturedBadges());
+                user.setFeaturedBadges(featuredBadges);
+                User updatedUser = userRepository.save(user);
+                System.out.println("✅ Badge removed from featured: " + normalizedBadgeId);
+                System.out.println("✅ Featured badges now: " + updatedUser.getFeaturedBadges());
 
-            return ResponseEntity.ok(updatedUser);
+                return ResponseEntity.ok(updatedUser);
+            });
         } catch (RuntimeException e) {
             System.out.println("❌ Error: " + e.getMessage());
             e.printStackTrace();
@@ -6,8 +6,10 @@ import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.dto.ReportRequest;
 import com.studencollabfin.server.repository.ReportRepository;
 import com.studencollabfin.server.repository.UserRepository;
+import com.studencollabfin.server.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +30,9 @@ public class UserReportController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
@@ -70,40 +75,33 @@ public class UserReportController {
             Report savedReport = reportRepository.save(report);
             System.out.println("✅ MONGODB: Report saved with ID " + savedReport.getId());
 
-            // ✅ INCREMENT REPORT COUNT
-            reportedUser.setReportCount(reportedUser.getReportCount() + 1);
-            System.out.println("📊 REPORT SYSTEM: User " + reportedUser.getId() +
-                    " report count incremented to " + reportedUser.getReportCount());
-
-            // ✅ ADD SPAM ALERT BADGE
+            // ✅ INCREMENT REPORT COUNT, ADD SPAM ALERT BADGE, SET PENALTY EXPIRY (24 HOURS
+            // FROM NOW) and force the badge to the public profile, in one targeted update
+            // so concurrent reports each count
             String spamBadgeName = "Spam Alert";
-            if (!reportedUser.getBadges().contains(spamBadgeName)) {
-                reportedUser.getBadges().add(spamBadgeName);
-                System.out.println("🚨 REPORT SYSTEM: 'Spam Alert' badge added to " + reportedUser.getId());
-            }
-
-            // ✅ SET PENALTY EXPIRY (24 HOURS FROM NOW)
             LocalDateTime penaltyExpiry = LocalDateTime.now().plusHours(24);
-            reportedUser.setPenaltyExpiry(penaltyExpiry);
-            System.out.println("⏰ REPORT SYSTEM: Penalty expires at " + penaltyExpiry);
-
-            // ✅ Force Spam Alert badge to featured badges (public profile)
-            if (!reportedUser.getDisplayedBadges().contains(spamBadgeName)) {
-                reportedUser.getDisplayedBadges().add(spamBadgeName);
-                System.out.println(
-                        "🏆 REPORT SYSTEM: Spam Alert badge forced to public profile for " + reportedUser.getId());
+            reportedUser = userService.updateUser(reportedUser.getId(), new Update()
+                    .inc("reportCount", 1)
+                    .addToSet("badges", spamBadgeName)
+                    .addToSet("displayedBadges", spamBadgeName)
+                    .set("penaltyExpiry", penaltyExpiry));
+            if (reportedUser == null) {
+                throw new RuntimeException("User not found");
             }
+            System.out.println("📊 REPORT SYSTEM: User " + reportedUser.getId() +
+                    " report count incremented to " + reportedUser.getReportCount());
+            System.out.println("⏰ REPORT SYSTEM: Penalty expires at " + penaltyExpiry);
 
             // ✅ EVOLVING BAN LOGIC: Ban if reportCount >= 3
-            if (reportedUser.getReportCount() >= 3) {
-                reportedUser.setBanned(true);
+            if (reportedUser.getReportCount() >= 3 && !reportedUser.isBanned()) {
+                User banned = userService.updateUser(reportedUser.getId(), Update.update("isBanned", true));
+                if (banned != null) {
+                    reportedUser = banned;
+                }
                 System.out.println("🚫 BAN SYSTEM: User " + reportedUser.getId() +
                         " BANNED! (Report count: " + reportedUser.getReportCount() + ")");
             }
 
-            // Save updated user
-            userRepository.save(reportedUser);
-
             eventPublisher.publishEvent(new UserReportedEvent(reporterId, reportedUser.getId()));
 
             // Return success response
@@ -176,9 +174,7 @@ public class UserReportController {
             if (user.getPenaltyExpiry() != null &&
                     LocalDateTime.now().isAfter(user.getPenaltyExpiry())) {
 
-                user.getPenaltyExpiry();
-                user.getDisplayedBadges().remove("Spam Alert");
-                userRepository.save(user);
+                userService.updateUser(userId, new Update().pull("displayedBadges", "Spam Alert"));
 
                 System.out.println("✅ PENALTY CLEARED: Spam Alert badge removed for " + userId);
                 return ResponseEntity.ok(Map.of("message", "Penalty cleared"));
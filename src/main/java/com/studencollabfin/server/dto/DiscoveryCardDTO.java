@@ -0,0 +1,41 @@
+package com.studencollabfin.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for Discovery Deck cards (POST /api/discovery/mesh/batch)
+ * Projection of User with only the fields a card renders - no password,
+ * statsMap, FCM token or hard-mode badge lists.
+ * Field names match User so existing clients parse it unchanged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscoveryCardDTO {
+    private String id;
+    private String fullName;
+    private String collegeName;
+    private String yearOfStudy;
+    private String department;
+    private List<String> skills;
+    private List<String> rolesOpenTo;
+    private List<String> excitingTags;
+    private String goals;
+    private String profilePicUrl;
+    private List<String> displayedBadges;
+    private int level;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime joinedDate;
+
+    /** Fields loaded from the users collection for a card. */
+    public static final String[] FIELDS = {
+            "fullName", "collegeName", "yearOfStudy", "department", "skills", "rolesOpenTo",
+            "excitingTags", "goals", "profilePicUrl", "displayedBadges", "level", "joinedDate"
+    };
+}
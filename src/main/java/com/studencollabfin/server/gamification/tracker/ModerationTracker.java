@@ -6,12 +6,14 @@ import com.studencollabfin.server.model.HardModeBadge;
 import com.studencollabfin.server.service.HardModeBadgeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -20,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
@@ -36,6 +39,9 @@ public class ModerationTracker {
     private final MongoTemplate mongoTemplate;
     private final HardModeBadgeService hardModeBadgeService;
 
+    // senderId -> (receiverId -> ban expiry); checked on every DM send
+    private volatile Map<String, Map<String, LocalDateTime>> dmBans = new ConcurrentHashMap<>();
+
     @Async
     @EventListener
     public void onUserReported(UserReportedEvent event) {
@@ -125,6 +131,11 @@ public class ModerationTracker {
         tracker.setProgressCurrent(hasActiveDmBan ? tracker.getProgressTotal() : 0);
         tracker.setLastCheckedAt(now);
         mongoTemplate.save(tracker);
+        if (hasActiveDmBan) {
+            dmBans.put(targetUserId, parseDmBans(dmBanUntil));
+        } else {
+            dmBans.remove(targetUserId);
+        }
 
         if (hasActiveDmBan && !tracker.isUnlocked() && tracker.getProgressCurrent() >= tracker.getProgressTotal()) {
             hardModeBadgeService.awardBadge(targetUserId, BADGE_SPAM_ALERT_SANCTION);
@@ -282,44 +293,61 @@ public class ModerationTracker {
         return result;
     }
 
-    public boolean isDmBanActiveBetween(String senderId, String receiverId) {
-        Query query = Query.query(Criteria.where("userId").is(senderId).and("badgeId").is(BADGE_SPAM_ALERT_SANCTION));
-        HardModeBadge tracker = mongoTemplate.findOne(query, HardModeBadge.class);
-        if (tracker == null || tracker.getProgressData() == null) {
-            return false;
-        }
-
-        Map<String, String> dmBanUntil = getStringStringMap(tracker.getProgressData().get(DM_BAN_UNTIL_KEY));
-        if (!dmBanUntil.containsKey(receiverId)) {
-            return false;
-        }
-
+    /**
+     * Rebuild the in-memory DM-ban table from the sanction trackers. Runs at
+     * startup and every minute, so bans applied on another instance are
+     * picked up; bans applied here are written to the table immediately.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    public void refreshDmBans() {
         try {
-            LocalDateTime expiry = LocalDateTime.parse(dmBanUntil.get(receiverId));
-            return expiry.isAfter(LocalDateTime.now());
-        } catch (Exception ex) {
-            return false;
+            Query query = Query.query(Criteria.where("badgeId").is(BADGE_SPAM_ALERT_SANCTION)
+                    .and("progressData.sanctionActive").is(true));
+            query.fields().include("userId", "progressData");
+
+            Map<String, Map<String, LocalDateTime>> table = new ConcurrentHashMap<>();
+            for (HardModeBadge tracker : mongoTemplate.find(query, HardModeBadge.class)) {
+                if (tracker.getUserId() != null && tracker.getProgressData() != null) {
+                    Map<String, LocalDateTime> bans = parseDmBans(tracker.getProgressData().get(DM_BAN_UNTIL_KEY));
+                    if (!bans.isEmpty()) {
+                        table.put(tracker.getUserId(), bans);
+                    }
+                }
+            }
+            dmBans = table;
+        } catch (Exception e) {
+            log.error("[ModerationTracker] Failed to refresh DM-ban table: {}", e.getMessage(), e);
         }
     }
 
+    public boolean isDmBanActiveBetween(String senderId, String receiverId) {
+        LocalDateTime expiry = dmBanExpiry(senderId, receiverId);
+        return expiry != null && expiry.isAfter(LocalDateTime.now());
+    }
+
     public long getRemainingDmBanMinutes(String senderId, String receiverId) {
-        Query query = Query.query(Criteria.where("userId").is(senderId).and("badgeId").is(BADGE_SPAM_ALERT_SANCTION));
-        HardModeBadge tracker = mongoTemplate.findOne(query, HardModeBadge.class);
-        if (tracker == null || tracker.getProgressData() == null) {
+        LocalDateTime expiry = dmBanExpiry(senderId, receiverId);
+        if (expiry == null) {
             return 0;
         }
+        return Math.max(0, ChronoUnit.MINUTES.between(LocalDateTime.now(), expiry));
+    }
 
-        Map<String, String> dmBanUntil = getStringStringMap(tracker.getProgressData().get(DM_BAN_UNTIL_KEY));
-        if (!dmBanUntil.containsKey(receiverId)) {
-            return 0;
-        }
+    private LocalDateTime dmBanExpiry(String senderId, String receiverId) {
+        Map<String, LocalDateTime> bans = dmBans.get(senderId);
+        return bans != null ? bans.get(receiverId) : null;
+    }
 
-        try {
-            LocalDateTime expiry = LocalDateTime.parse(dmBanUntil.get(receiverId));
-            long remaining = ChronoUnit.MINUTES.between(LocalDateTime.now(), expiry);
-            return Math.max(0, remaining);
-        } catch (Exception ex) {
-            return 0;
+    private Map<String, LocalDateTime> parseDmBans(Object raw) {
+        Map<String, LocalDateTime> bans = new HashMap<>();
+        for (Map.Entry<String, String> entry : getStringStringMap(raw).entrySet()) {
+            try {
+                bans.put(entry.getKey(), LocalDateTime.parse(entry.getValue()));
+            } catch (Exception ex) {
+                // Unparseable expiry: treated as no ban, same as before
+            }
         }
+        return bans;
     }
 }
@@ -0,0 +1,35 @@
+package com.studencollabfin.server.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+/**
+ * BroadcastInbox - One inbox item shown to every user (e.g. a new event),
+ * stored once instead of copied into each user's inbox. Per-user read and
+ * dismiss state lives in {@link BroadcastInboxReceipt}.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "broadcastInbox")
+public class BroadcastInbox {
+
+    public static final String ID_PREFIX = "broadcast:";
+
+    @Id
+    private String id; // Always starts with ID_PREFIX, e.g. "broadcast:event-<eventId>"
+
+    private Inbox.NotificationType type;
+    private String title;
+    private String message;
+    private Inbox.NotificationSeverity severity = Inbox.NotificationSeverity.LOW;
+    private String postId; // Referenced entity (event id for event broadcasts)
+    private String senderId;
+
+    private LocalDateTime createdAt;
+    @Indexed
+    private LocalDateTime timestamp; // Inbox ordering, same meaning as Inbox.timestamp
+}
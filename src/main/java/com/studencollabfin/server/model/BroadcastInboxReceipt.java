@@ -0,0 +1,33 @@
+package com.studencollabfin.server.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+/**
+ * BroadcastInboxReceipt - A user's state for one broadcast inbox item. Only
+ * exists once the user read or dismissed it; no receipt means unread.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "broadcastInboxReceipts")
+@CompoundIndex(name = "userId_broadcastId", def = "{'userId': 1, 'broadcastId': 1}")
+public class BroadcastInboxReceipt {
+
+    @Id
+    private String id; // "<broadcastId>|<userId>"
+
+    private String broadcastId;
+    private String userId;
+    private boolean read = false;
+    private boolean dismissed = false; // Deleted/cleared from the user's inbox
+    private LocalDateTime readAt;
+    private LocalDateTime updatedAt;
+
+    public static String idFor(String broadcastId, String userId) {
+        return broadcastId + "|" + userId;
+    }
+}
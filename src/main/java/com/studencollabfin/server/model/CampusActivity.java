@@ -0,0 +1,35 @@
+package com.studencollabfin.server.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+/**
+ * CampusActivity - One entry of the Campus Overview live feed.
+ *
+ * Written once when a pod, poll or beacon is created and never updated, so the
+ * creator's name is stored with the entry. Lives in a capped collection
+ * (created by CampusActivityService) with a {college: 1, createdAt: -1} index.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "campusActivity")
+public class CampusActivity {
+
+    @Id
+    private String id;
+
+    private String college; // Campus isolation key
+    private String type; // COLLAB_POD, TEAM_POD, POLL, BEACON
+    private String username;
+    private String userId;
+    private String title; // Pod/poll title, null for beacons
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
@@ -1,6 +1,7 @@
 package com.studencollabfin.server.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.List;
 import java.util.Date;
@@ -9,6 +10,8 @@ import java.util.Date;
 public class Conversation {
     @Id
     private String id;
+    @Version
+    private Long version;
     private List<String> participantIds; // user IDs of both participants
     private String status; // "PENDING" or "ACCEPTED"
     private String initiatorId; // User ID who initiated the invite
@@ -19,6 +22,8 @@ public class Conversation {
     private java.util.Map<String, Integer> unreadCounts; // userId -> unreadCount
     private java.util.Map<String, Date> lastReadTimestamps; // userId -> lastReadTime
 
+    private Long lastSeq; // Message.seq of the latest message (delta sync)
+
     // Getters and setters
     public String getId() {
         return id;
@@ -28,6 +33,22 @@ public class Conversation {
         this.id = id;
     }
 
+    public Long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(Long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public List<String> getParticipantIds() {
         return participantIds;
     }
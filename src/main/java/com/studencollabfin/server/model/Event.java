@@ -41,6 +41,10 @@ public class Event {
     private int participantsCount = 0; // Display count (legacy, use currentParticipants)
     private int teamsCount = 0; // Number of teams formed for this event (legacy, use currentTeams)
 
+    // false until the new-event broadcast has been published; null for events
+    // created before announcements were tracked
+    private Boolean announced;
+
     // ✅ NEW: Capacity Limits
     private Integer maxTeams; // Maximum number of teams allowed (null = unlimited)
 
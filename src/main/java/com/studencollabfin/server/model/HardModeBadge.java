@@ -3,6 +3,7 @@ package com.studencollabfin.server.model;
 import lombok.Data;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -17,6 +18,8 @@ import java.util.Map;
 public class HardModeBadge {
     @Id
     private String id;
+    @Version
+    private Long version;
 
     private String userId;
     private String badgeId; // e.g., "discussion-architect"
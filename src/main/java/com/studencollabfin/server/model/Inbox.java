@@ -2,6 +2,7 @@ package com.studencollabfin.server.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Document(collection = "inbox")
+@CompoundIndex(name = "userId_timestamp_id", def = "{'userId': 1, 'timestamp': -1, '_id': -1}") // Inbox pages
 public class Inbox {
 
     /**
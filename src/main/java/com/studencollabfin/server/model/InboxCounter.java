@@ -0,0 +1,22 @@
+package com.studencollabfin.server.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * InboxCounter - Number of unread personal inbox items for one user, kept up
+ * to date on create/read/delete so badge counts need no scan of the inbox.
+ * Broadcast items are counted separately (see BroadcastInboxService).
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "inboxCounters")
+public class InboxCounter {
+
+    @Id
+    private String id; // userId
+
+    private long unread = 0;
+}
@@ -4,6 +4,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.List;
@@ -12,10 +14,17 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "messages")
+@CompoundIndex(name = "conversationId_sentAt_id", def = "{'conversationId': 1, 'sentAt': 1, '_id': 1}")
+@CompoundIndex(name = "conversationId_seq", def = "{'conversationId': 1, 'seq': 1}")
 public class Message {
     @Id
     private String id;
 
+    // Id the sending client gave the message (optimistic UI, resends). The _id is
+    // always server-assigned; this one is unique so a resend is not stored twice
+    @Indexed(unique = true, sparse = true)
+    private String clientMessageId;
+
     // ✅ NEW: Message type categorization with enum
     private MessageType messageType; // CHAT, SYSTEM (for actions like 'User X was kicked')
 
@@ -51,6 +60,7 @@ public class Message {
 
     // Metadata
     private Date sentAt;
+    private Long seq; // Per-conversation sequence number (delta sync); null on messages stored before it existed
     private boolean read;
 
     // ✅ NEW: Enum for message types
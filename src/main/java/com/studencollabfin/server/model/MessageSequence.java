@@ -0,0 +1,21 @@
+package com.studencollabfin.server.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MessageSequence - Last message sequence number handed out for one
+ * conversation (DM conversation id or pod id). Advanced with an atomic $inc.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "messageSequences")
+public class MessageSequence {
+
+    @Id
+    private String id; // conversationId
+
+    private long seq = 0; // Last assigned Message.seq
+}
@@ -0,0 +1,36 @@
+package com.studencollabfin.server.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+/**
+ * MigrationProgress - Checkpoint for a resumable background data migration.
+ * One document per migration, keyed by the migration name.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "migrations")
+public class MigrationProgress {
+
+    @Id
+    private String id; // Migration name, e.g. "post-institution-domain-backfill"
+
+    private String lastProcessedId; // Keyset checkpoint: last _id handled
+    private long scanned = 0; // Documents examined so far
+    private long updated = 0; // Documents written so far
+    private boolean completed = false;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    public MigrationProgress(String id) {
+        this.id = id;
+    }
+}
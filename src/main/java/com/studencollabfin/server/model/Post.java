@@ -1,19 +1,25 @@
 package com.studencollabfin.server.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "posts") // All post types will be stored in this single collection
+@CompoundIndex(name = "college_createdAt", def = "{'college': 1, 'createdAt': -1}") // Campus feed pages
 public abstract class Post {
 
     @Id
     private String id;
 
+    @Indexed // Profile updates re-project author snippets by authorId
     private String authorId;
+    private AuthorSnippet authorSnippet; // Denormalized author details for feed rendering
     private String content; // The main text of the post
 
     @Indexed // ✅ NEW: Index for fast querying by creation time (used for expiry handling)
@@ -22,4 +28,17 @@ public abstract class Post {
 
     @Indexed // ✅ Domain-locked institutional isolation: Email domain from author's email
     private String institutionDomain; // e.g., "sinhgad.edu", "coep.ac.in"
+
+    /**
+     * AuthorSnippet - Embedded copy of the author fields the feed renders.
+     * Written on post creation and refreshed when the author updates their profile.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AuthorSnippet {
+        private String name;
+        private String college;
+        private String year;
+    }
 }
@@ -2,6 +2,8 @@ package com.studencollabfin.server.model;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,8 +11,12 @@ import java.util.List;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Document(collection = "posts")
+@CompoundIndex(name = "institutionDomain_type", def = "{'institutionDomain': 1, 'type': 1}") // Campus counts
+@CompoundIndex(name = "category_type", def = "{'category': 1, 'type': 1}") // Inter counts
 public class SocialPost extends Post {
 
+    @Version
+    private Long version;
     private String title;
     private List<String> likes = new ArrayList<>();
     private List<String> commentIds = new ArrayList<>(); // References to comments collection
@@ -19,6 +25,7 @@ public class SocialPost extends Post {
     private String category = "CAMPUS"; // INTER or CAMPUS to distinguish where polls are shown
     // Optional fields for linking to created pods or listing required skills
     private String linkedPodId;
+    private CollabPod.PodSource podSource; // Denormalized from the linked pod (for campus counts)
     private List<String> requiredSkills = new ArrayList<>();
 
     // ✅ NEW: Pod name (for LOOKING_FOR posts, separate from post title)
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
@@ -18,11 +20,14 @@ import java.util.HashMap;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "users")
+@CompoundIndex(name = "joinedDate_id", def = "{'joinedDate': 1, '_id': 1}") // Discovery deck FIFO order
 public class User {
     // FCM Token for push notifications
     private String fcmToken;
     @Id
     private String id; // Maps to MongoDB _id
+    @Version
+    private Long version; // Optimistic locking: save() fails if another writer got there first
     private String fullName; // e.g., "Taksh"
     private String collegeName; // e.g., "SINHGAD"
     private String yearOfStudy; // e.g., "3rd Year"
@@ -9,5 +9,7 @@ import java.util.List;
 public interface EventRepository extends MongoRepository<Event, String> {
     // ADD THIS METHOD
     List<Event> findByCategory(String category);
+
+    List<Event> findByAnnouncedFalse();
 }
 
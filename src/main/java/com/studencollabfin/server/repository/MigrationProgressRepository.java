@@ -0,0 +1,9 @@
+package com.studencollabfin.server.repository;
+
+import com.studencollabfin.server.model.MigrationProgress;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigrationProgressRepository extends MongoRepository<MigrationProgress, String> {
+}
@@ -9,6 +9,11 @@ import com.studencollabfin.server.repository.UserRepository;
 import com.studencollabfin.server.repository.ConversationRepository;
 import com.studencollabfin.server.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,6 +39,8 @@ public class AchievementService {
     private GamificationService gamificationService;
     @Autowired(required = false)
     private HardModeBadgeService hardModeBadgeService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     public void checkHardMode(String userId, String eventType) {
         checkHardMode(userId, eventType, Map.of());
@@ -91,49 +98,46 @@ public class AchievementService {
 
     public void unlockAchievement(String userId, String title) {
         // ✅ CRITICAL: Add badge to user.badges array immediately (achievement doc
-        // optional)
-        @SuppressWarnings("null")
-        User user = userRepository.findById(userId).orElse(null);
+        // optional). One conditional $addToSet, so it neither races the trackers'
+        // counter updates nor awards XP twice when two unlocks run at once.
+        Update update = new Update().addToSet("badges", title).inc("version", 1);
+        String hybridBadgeId = title != null ? toHybridBadgeId(title) : null;
+        if (hybridBadgeId != null && !hybridBadgeId.isEmpty()) {
+            update.addToSet("hardModeBadgesEarned", hybridBadgeId);
+        }
+        User user = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId).and("badges").ne(title)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
         if (user != null) {
-            if (user.getBadges() == null) {
-                user.setBadges(new ArrayList<>());
-            }
-
-            // Only add if not already present
-            if (!user.getBadges().contains(title)) {
-                user.getBadges().add(title);
+            System.out.println("[BadgeService] ✅ Added '" + title + "' to user.badges array for " + userId);
 
-                persistHybridBadgeId(user, title);
-
-                userRepository.save(user);
-                System.out.println("[BadgeService] ✅ Added '" + title + "' to user.badges array for " + userId);
+            // Award XP for badge unlock
+            try {
+                gamificationService.awardXp(userId, com.studencollabfin.server.model.XPAction.BADGE_UNLOCK);
+                System.out.println("[BadgeService] 💰 Awarded 25 XP for " + title + " unlock");
+            } catch (Exception e) {
+                System.err.println("[BadgeService] ⚠️ Failed to award XP: " + e.getMessage());
+            }
 
-                // Award XP for badge unlock
+            // ✅ REAL-TIME: Broadcast badge unlock via WebSocket
+            if (messagingTemplate != null) {
                 try {
-                    gamificationService.awardXp(userId, com.studencollabfin.server.model.XPAction.BADGE_UNLOCK);
-                    System.out.println("[BadgeService] 💰 Awarded 25 XP for " + title + " unlock");
+                    messagingTemplate.convertAndSendToUser(
+                            userId,
+                            "/queue/badge-unlock",
+                            Map.of(
+                                    "badgeName", title,
+                                    "message", "🎉 " + title + " badge unlocked!",
+                                    "timestamp", System.currentTimeMillis()));
+                    System.out.println("[BadgeService] ✅ WebSocket broadcast sent for " + title + " unlock");
                 } catch (Exception e) {
-                    System.err.println("[BadgeService] ⚠️ Failed to award XP: " + e.getMessage());
-                }
-
-                // ✅ REAL-TIME: Broadcast badge unlock via WebSocket
-                if (messagingTemplate != null) {
-                    try {
-                        messagingTemplate.convertAndSendToUser(
-                                userId,
-                                "/queue/badge-unlock",
-                                Map.of(
-                                        "badgeName", title,
-                                        "message", "🎉 " + title + " badge unlocked!",
-                                        "timestamp", System.currentTimeMillis()));
-                        System.out.println("[BadgeService] ✅ WebSocket broadcast sent for " + title + " unlock");
-                    } catch (Exception e) {
-                        System.err.println("[BadgeService] ⚠️ WebSocket broadcast failed: " + e.getMessage());
-                    }
+                    System.err.println("[BadgeService] ⚠️ WebSocket broadcast failed: " + e.getMessage());
                 }
-            } else {
-                System.out.println("[BadgeService] ℹ️ User already has '" + title + "' badge");
             }
+        } else if (userRepository.existsById(userId)) {
+            System.out.println("[BadgeService] ℹ️ User already has '" + title + "' badge");
         } else {
             System.err.println("[BadgeService] ❌ User not found: " + userId);
         }
@@ -324,19 +328,21 @@ public class AchievementService {
             // IMPORTANT: XP/level may have been updated via GamificationService.awardXp(),
             // which loads+saves a separate User instance.
             // Re-load the latest user before saving badges to avoid overwriting XP.
-            User latestUser = userRepository.findById(user.getId()).orElse(user);
-            latestUser.setBadges(currentBadges);
-            if (latestUser.getHardModeBadgesEarned() == null) {
-                latestUser.setHardModeBadgesEarned(new ArrayList<>());
-            }
-            if (user.getHardModeBadgesEarned() != null) {
-                for (String badgeId : user.getHardModeBadgesEarned()) {
-                    if (!latestUser.getHardModeBadgesEarned().contains(badgeId)) {
-                        latestUser.getHardModeBadgesEarned().add(badgeId);
+            return OptimisticRetry.run("syncUserBadges", () -> {
+                User latestUser = userRepository.findById(user.getId()).orElse(user);
+                latestUser.setBadges(currentBadges);
+                if (latestUser.getHardModeBadgesEarned() == null) {
+                    latestUser.setHardModeBadgesEarned(new ArrayList<>());
+                }
+                if (user.getHardModeBadgesEarned() != null) {
+                    for (String badgeId : user.getHardModeBadgesEarned()) {
+                        if (!latestUser.getHardModeBadgesEarned().contains(badgeId)) {
+                            latestUser.getHardModeBadgesEarned().add(badgeId);
+                        }
                     }
                 }
-            }
-            return userRepository.save(latestUser);
+                return userRepository.save(latestUser);
+            });
         } else {
             return user;
         }
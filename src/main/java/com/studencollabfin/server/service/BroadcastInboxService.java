@@ -0,0 +1,383 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.dto.EventNotificationDTO;
+import com.studencollabfin.server.gamification.event.NotificationReadEvent;
+import com.studencollabfin.server.model.BroadcastInbox;
+import com.studencollabfin.server.model.BroadcastInboxReceipt;
+import com.studencollabfin.server.model.Event;
+import com.studencollabfin.server.model.Inbox;
+import com.studencollabfin.server.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BroadcastInboxService: Inbox items addressed to everyone.
+ *
+ * A broadcast is written once to broadcastInbox and announced on
+ * {@link #GLOBAL_TOPIC}; users' read/dismiss state is a receipt document that
+ * only exists once they act on it. Reads merge the recent broadcasts into the
+ * user's personal inbox as ordinary {@link Inbox} items (id starting with
+ * {@link BroadcastInbox#ID_PREFIX}), so clients see one list.
+ *
+ * A user sees every broadcast not older than their account, as they would
+ * have received a per-user copy of it; like personal items, broadcasts never
+ * expire and are paged by (timestamp, _id) alongside them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BroadcastInboxService {
+
+    public static final String GLOBAL_TOPIC = "/topic/notifications";
+
+    private final MongoTemplate mongoTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserProfileCache userProfileCache;
+
+    public static boolean isBroadcastId(String id) {
+        return id != null && id.startsWith(BroadcastInbox.ID_PREFIX);
+    }
+
+    /**
+     * {@link #publishEvent} off the caller's thread, then flag the event as
+     * announced so the startup sweep in EventService skips it. A failure
+     * leaves the flag unset and the announcement is retried on next startup.
+     */
+    @Async
+    public void publishEventInBackground(EventNotificationDTO notification) {
+        try {
+            publishEvent(notification);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(notification.getEventId())),
+                    Update.update("announced", true), Event.class);
+        } catch (Exception e) {
+            log.error("[BroadcastInbox] Publishing event {} failed, will retry on next startup: {}",
+                    notification.getEventId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add a new event to everyone's inbox and notify connected clients. The
+     * broadcast id is derived from the event id, so publishing twice rewrites
+     * the same item.
+     */
+    public BroadcastInbox publishEvent(EventNotificationDTO notification) {
+        BroadcastInbox broadcast = new BroadcastInbox();
+        broadcast.setId(BroadcastInbox.ID_PREFIX + "event-" + notification.getEventId());
+        broadcast.setType(Inbox.NotificationType.POD_EVENT); // Reusing POD_EVENT type for all events
+        broadcast.setSeverity(Inbox.NotificationSeverity.LOW);
+        broadcast.setTitle("New Event: " + notification.getEventTitle());
+        broadcast.setMessage(notification.getMessage());
+        broadcast.setPostId(notification.getEventId());
+        broadcast.setSenderId("system");
+        broadcast.setCreatedAt(LocalDateTime.now());
+        broadcast.setTimestamp(broadcast.getCreatedAt());
+        broadcast = mongoTemplate.save(broadcast);
+
+        messagingTemplate.convertAndSend(GLOBAL_TOPIC, notification);
+        return broadcast;
+    }
+
+    /**
+     * Broadcast items visible to a user, as Inbox items, newest first.
+     *
+     * @param type       Only this type, or null for all
+     * @param unreadOnly Skip items the user has read
+     */
+    public List<Inbox> visibleTo(String userId, Inbox.NotificationType type, boolean unreadOnly) {
+        if (userId == null || userId.isBlank()) {
+            return List.of();
+        }
+        Query query = new Query(visibleCriteria(userId))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp"));
+        if (type != null) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        List<Inbox> items = new ArrayList<>();
+        applyReceipts(userId, mongoTemplate.find(query, BroadcastInbox.class), unreadOnly, items);
+        return items;
+    }
+
+    /**
+     * Up to {@code limit} broadcast items visible to a user that sort after
+     * the given keyset position, newest first, in the same (timestamp, _id)
+     * order as InboxService pages. Dismissed items are skipped without
+     * shortening the result.
+     *
+     * @param beforeTimestamp Timestamp of the last item already served, or null for the first page
+     * @param beforeId        Id of that item
+     */
+    public List<Inbox> pageVisibleTo(String userId, LocalDateTime beforeTimestamp, String beforeId, int limit) {
+        if (userId == null || userId.isBlank() || limit < 1) {
+            return List.of();
+        }
+        List<Inbox> items = new ArrayList<>(limit);
+        while (items.size() < limit) {
+            Criteria criteria = visibleCriteria(userId);
+            if (beforeTimestamp != null) {
+                criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                        Criteria.where("timestamp").lt(beforeTimestamp),
+                        Criteria.where("timestamp").is(beforeTimestamp).and("_id").lt(beforeId)));
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "_id")))
+                    .limit(limit - items.size());
+            List<BroadcastInbox> batch = mongoTemplate.find(query, BroadcastInbox.class);
+            applyReceipts(userId, batch, false, items);
+            if (batch.size() < query.getLimit()) {
+                break;
+            }
+            BroadcastInbox last = batch.get(batch.size() - 1);
+            beforeTimestamp = last.getTimestamp();
+            beforeId = last.getId();
+        }
+        return items;
+    }
+
+    /**
+     * Number of broadcasts a user has neither read nor dismissed, counted
+     * in one aggregation: visible broadcasts joined to the user's receipts
+     * (userId_broadcastId index), keeping those with no read or dismissed
+     * receipt. Stray receipts, e.g. for a deleted broadcast, cannot skew it.
+     */
+    public long countUnread(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return 0;
+        }
+        Document visible = new Document();
+        LocalDateTime joined = joinedDate(userId);
+        if (joined != null) {
+            // Same LocalDateTime -> Date mapping Spring Data applies on save
+            visible.append("timestamp", new Document("$gte",
+                    Date.from(joined.atZone(ZoneId.systemDefault()).toInstant())));
+        }
+        List<Document> pipeline = List.of(
+                new Document("$match", visible),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(BroadcastInboxReceipt.class))
+                        .append("let", new Document("broadcastId", "$_id"))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("userId", userId)
+                                        .append("$or", List.of(new Document("read", true), new Document("dismissed", true)))),
+                                new Document("$match", new Document("$expr",
+                                        new Document("$eq", List.of("$broadcastId", "$$broadcastId")))),
+                                new Document("$limit", 1),
+                                new Document("$project", new Document("_id", 1))))
+                        .append("as", "handled")),
+                new Document("$match", new Document("handled", new Document("$size", 0))),
+                new Document("$count", "unread"));
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(BroadcastInbox.class))
+                .aggregate(pipeline)
+                .first();
+        return result != null ? ((Number) result.get("unread")).longValue() : 0;
+    }
+
+    /**
+     * The subset of ids that are existing broadcasts visible to the user, so
+     * receipts are never written for anything else.
+     */
+    private List<String> visibleIds(Collection<String> broadcastIds, String userId) {
+        if (broadcastIds.isEmpty() || userId == null || userId.isBlank()) {
+            return List.of();
+        }
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("_id").in(broadcastIds), visibleCriteria(userId)));
+        query.fields().include("_id");
+        List<String> ids = new ArrayList<>();
+        for (BroadcastInbox broadcast : mongoTemplate.find(query, BroadcastInbox.class)) {
+            ids.add(broadcast.getId());
+        }
+        return ids;
+    }
+
+    private LocalDateTime joinedDate(String userId) {
+        return userProfileCache.get(userId).map(User::getJoinedDate).orElse(null);
+    }
+
+    private Criteria visibleCriteria(String userId) {
+        LocalDateTime joined = joinedDate(userId);
+        return joined != null ? Criteria.where("timestamp").gte(joined) : new Criteria();
+    }
+
+    private void applyReceipts(String userId, List<BroadcastInbox> broadcasts, boolean unreadOnly,
+            List<Inbox> items) {
+        if (broadcasts.isEmpty()) {
+            return;
+        }
+        Map<String, BroadcastInboxReceipt> receipts = receiptsFor(userId, broadcasts);
+        for (BroadcastInbox broadcast : broadcasts) {
+            BroadcastInboxReceipt receipt = receipts.get(broadcast.getId());
+            boolean read = receipt != null && receipt.isRead();
+            if ((receipt != null && receipt.isDismissed()) || (unreadOnly && read)) {
+                continue;
+            }
+            items.add(toInbox(broadcast, userId, read));
+        }
+    }
+
+    /**
+     * Personal and broadcast items as one list, newest first.
+     */
+    public static List<Inbox> merge(List<Inbox> personal, List<Inbox> broadcasts) {
+        if (broadcasts.isEmpty()) {
+            return personal;
+        }
+        List<Inbox> merged = new ArrayList<>(personal.size() + broadcasts.size());
+        merged.addAll(personal);
+        merged.addAll(broadcasts);
+        merged.sort(Comparator.comparing(Inbox::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
+    }
+
+    /**
+     * Mark a broadcast read for one user.
+     *
+     * @return The item as the user now sees it, or null if the broadcast does not exist
+     */
+    public Inbox markRead(String broadcastId, String userId) {
+        if (userId == null || userId.isBlank()) {
+            return null;
+        }
+        // Only broadcasts the user can see get a receipt; countUnread relies on it
+        BroadcastInbox broadcast = mongoTemplate.findOne(
+                new Query(new Criteria().andOperator(Criteria.where("_id").is(broadcastId), visibleCriteria(userId))),
+                BroadcastInbox.class);
+        if (broadcast == null) {
+            return null;
+        }
+
+        LocalDateTime readAt = LocalDateTime.now();
+        BroadcastInboxReceipt previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(BroadcastInboxReceipt.idFor(broadcastId, userId))),
+                new Update()
+                        .setOnInsert("broadcastId", broadcastId)
+                        .setOnInsert("userId", userId)
+                        .set("read", true)
+                        .set("readAt", readAt)
+                        .set("updatedAt", readAt),
+                FindAndModifyOptions.options().upsert(true).returnNew(false),
+                BroadcastInboxReceipt.class);
+
+        if (previous == null || !previous.isRead()) {
+            LocalDateTime createdAt = broadcast.getCreatedAt() != null ? broadcast.getCreatedAt() : readAt;
+            eventPublisher.publishEvent(new NotificationReadEvent(
+                    userId,
+                    broadcastId,
+                    broadcast.getPostId(),
+                    broadcast.getType() == Inbox.NotificationType.POD_EVENT ? "EVENT" : String.valueOf(broadcast.getType()),
+                    Math.max(0, ChronoUnit.MINUTES.between(createdAt, readAt))));
+        }
+        return toInbox(broadcast, userId, true);
+    }
+
+    /**
+     * Hide broadcasts from one user's inbox (their "delete").
+     *
+     * @return Number of broadcasts dismissed
+     */
+    public int dismiss(Collection<String> broadcastIds, String userId) {
+        return upsertReceipts(visibleIds(broadcastIds, userId), userId, "dismissed");
+    }
+
+    /**
+     * Dismiss every broadcast currently visible to a user.
+     *
+     * @param type Only this type, or null for all
+     * @return Number of broadcasts dismissed
+     */
+    public int dismissAll(String userId, Inbox.NotificationType type) {
+        List<String> ids = new ArrayList<>();
+        for (Inbox item : visibleTo(userId, type, false)) {
+            ids.add(item.getId());
+        }
+        return dismiss(ids, userId);
+    }
+
+    /**
+     * Mark every visible unread broadcast read for one user, in one bulk
+     * write. Unlike {@link #markRead} this publishes no NotificationReadEvent:
+     * "mark all read" is not the user reading each item.
+     *
+     * @return Number of broadcasts marked read
+     */
+    public int markAllRead(String userId) {
+        List<String> ids = new ArrayList<>();
+        for (Inbox item : visibleTo(userId, null, true)) {
+            ids.add(item.getId());
+        }
+        return upsertReceipts(ids, userId, "read");
+    }
+
+    private int upsertReceipts(Collection<String> broadcastIds, String userId, String flag) {
+        if (broadcastIds.isEmpty() || userId == null || userId.isBlank()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BroadcastInboxReceipt.class);
+        for (String broadcastId : broadcastIds) {
+            Update update = new Update()
+                    .setOnInsert("broadcastId", broadcastId)
+                    .setOnInsert("userId", userId)
+                    .set(flag, true)
+                    .set("updatedAt", now);
+            if ("read".equals(flag)) {
+                update.set("readAt", now);
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(BroadcastInboxReceipt.idFor(broadcastId, userId))),
+                    update);
+        }
+        bulk.execute();
+        return broadcastIds.size();
+    }
+
+    private Map<String, BroadcastInboxReceipt> receiptsFor(String userId, List<BroadcastInbox> broadcasts) {
+        List<String> ids = new ArrayList<>(broadcasts.size());
+        for (BroadcastInbox broadcast : broadcasts) {
+            ids.add(broadcast.getId());
+        }
+        Query query = Query.query(Criteria.where("userId").is(userId).and("broadcastId").in(ids));
+        Map<String, BroadcastInboxReceipt> receipts = new HashMap<>();
+        for (BroadcastInboxReceipt receipt : mongoTemplate.find(query, BroadcastInboxReceipt.class)) {
+            receipts.put(receipt.getBroadcastId(), receipt);
+        }
+        return receipts;
+    }
+
+    private static Inbox toInbox(BroadcastInbox broadcast, String userId, boolean read) {
+        Inbox item = new Inbox();
+        item.setId(broadcast.getId());
+        item.setUserId(userId);
+        item.setType(broadcast.getType());
+        item.setTitle(broadcast.getTitle());
+        item.setMessage(broadcast.getMessage());
+        item.setSeverity(broadcast.getSeverity());
+        item.setPostId(broadcast.getPostId());
+        item.setSenderId(broadcast.getSenderId());
+        item.setCreatedAt(broadcast.getCreatedAt());
+        item.setTimestamp(broadcast.getTimestamp());
+        item.setRead(read);
+        return item;
+    }
+}
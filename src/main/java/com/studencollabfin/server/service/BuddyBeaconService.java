@@ -21,7 +21,11 @@ public class BuddyBeaconService {
     @Autowired
     private InboxRepository inboxRepository;
     @Autowired
+    private InboxService inboxService;
+    @Autowired
     private CollabPodRepository collabPodRepository;
+    @Autowired
+    private CampusActivityService campusActivityService;
 
     // --- Beacon Post Logic ---
     public BuddyBeacon createBeaconPost(String userId, BuddyBeacon beaconPost) {
@@ -32,7 +36,9 @@ public class BuddyBeaconService {
             beaconPost.setCurrentTeamMemberIds(new ArrayList<>());
         }
         beaconPost.getCurrentTeamMemberIds().add(userId);
-        return beaconRepository.save(beaconPost);
+        BuddyBeacon savedBeacon = beaconRepository.save(beaconPost);
+        campusActivityService.recordBeacon(savedBeacon);
+        return savedBeacon;
     }
 
     /**
@@ -384,7 +390,7 @@ public class BuddyBeaconService {
                     inboxMessage.setPostTitle(beacon.getTitle());
                     inboxMessage.setSenderId(userId);
                     inboxMessage.setApplicationStatus("ACCEPTED");
-                    inboxRepository.save(inboxMessage);
+                    inboxService.onCreated(inboxRepository.save(inboxMessage));
 
                     // TODO: Send Collab Pod invitation logic here
                     return applicationRepository.save(app);
@@ -505,7 +511,7 @@ public class BuddyBeaconService {
                     inboxMessage.setPostTitle(teamPost.getTitle());
                     inboxMessage.setSenderId(userId);
                     inboxMessage.setApplicationStatus("ACCEPTED");
-                    inboxRepository.save(inboxMessage);
+                    inboxService.onCreated(inboxRepository.save(inboxMessage));
 
                     // TODO: Send Collab Pod invitation logic here
                     return applicationRepository.save(app);
@@ -548,7 +554,7 @@ public class BuddyBeaconService {
                     inboxMessage.setApplicationStatus("REJECTED");
                     inboxMessage.setRejectionReason(reason != null ? reason.toString() : "");
                     inboxMessage.setRejectionNote(note);
-                    inboxRepository.save(inboxMessage);
+                    inboxService.onCreated(inboxRepository.save(inboxMessage));
 
                     return applicationRepository.save(app);
                 }
@@ -581,7 +587,7 @@ public class BuddyBeaconService {
                     inboxMessage.setApplicationStatus("REJECTED");
                     inboxMessage.setRejectionReason(reason != null ? reason.toString() : "");
                     inboxMessage.setRejectionNote(note);
-                    inboxRepository.save(inboxMessage);
+                    inboxService.onCreated(inboxRepository.save(inboxMessage));
 
                     return applicationRepository.save(app);
                 }
@@ -0,0 +1,230 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.dto.CampusActivityDTO;
+import com.studencollabfin.server.model.BuddyBeacon;
+import com.studencollabfin.server.model.CampusActivity;
+import com.studencollabfin.server.model.CollabPod;
+import com.studencollabfin.server.model.Post;
+import com.studencollabfin.server.model.PostType;
+import com.studencollabfin.server.model.SocialPost;
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * CampusActivityService: Append-only feed behind the Campus Overview activity
+ * stream.
+ *
+ * Pods, polls and beacons append one CampusActivity entry when they are
+ * created, carrying the creator's name, so reading a campus feed is a single
+ * {college: 1, createdAt: -1} index query with no user lookups. Entries live in
+ * a capped collection, so old activity ages out on its own.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CampusActivityService implements SmartInitializingSingleton {
+
+    public static final int FEED_SIZE = 20;
+
+    // Capped collection bounds: whichever is hit first evicts the oldest entries
+    static final long CAP_BYTES = 32L * 1024 * 1024;
+    static final long CAP_DOCUMENTS = 100_000;
+
+    // Per-source limit when seeding a freshly created collection from existing data
+    private static final int SEED_LIMIT = 2000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+
+    /**
+     * Create the capped collection and its index on first startup, seeding it
+     * with the most recent existing pods, polls and beacons.
+     *
+     * Runs once all singletons exist, before the web server or any
+     * ApplicationReadyEvent task can call record*: the first insert into a
+     * missing collection would create it uncapped. A collection found uncapped
+     * anyway is converted in place.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            if (!mongoTemplate.collectionExists(CampusActivity.class)) {
+                mongoTemplate.createCollection(CampusActivity.class,
+                        CollectionOptions.empty().capped().size(CAP_BYTES).maxDocuments(CAP_DOCUMENTS));
+                int seeded = seed();
+                log.info("[CampusActivity] Created capped collection, seeded {} entries", seeded);
+            } else if (!isCapped()) {
+                log.error("[CampusActivity] Collection {} exists but is not capped; converting it", collection());
+                mongoTemplate.executeCommand(new Document("convertToCapped", collection()).append("size", CAP_BYTES));
+            }
+            mongoTemplate.indexOps(CampusActivity.class).ensureIndex(
+                    new Index().on("college", Sort.Direction.ASC).on("createdAt", Sort.Direction.DESC)
+                            .named("college_createdAt"));
+        } catch (Exception e) {
+            log.error("[CampusActivity] Failed to initialize collection: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Latest activity for a college, newest first.
+     */
+    public List<CampusActivityDTO> getLatest(String college, int limit) {
+        if (college == null || college.isBlank()) {
+            return new ArrayList<>();
+        }
+        Query query = Query.query(Criteria.where("college").is(college))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .limit(limit);
+        query.fields().include("type", "username", "userId", "title", "createdAt");
+        return mongoTemplate.find(query, CampusActivityDTO.class, collection());
+    }
+
+    /**
+     * Record a newly created pod. Pods without a college (global rooms, team
+     * pods generated from beacons) are not part of any campus feed.
+     */
+    public void recordPod(CollabPod pod) {
+        if (pod == null || isGlobalOrMissing(pod.getCollege()) || pod.getOwnerId() == null) {
+            return;
+        }
+        String username = pod.getOwnerName();
+        if (username == null) {
+            username = userRepository.findById(pod.getOwnerId()).map(User::getFullName).orElse(null);
+        }
+        append(new CampusActivity(null, pod.getCollege(), podActivityType(pod), username, pod.getOwnerId(),
+                pod.getName(), createdAtOrNow(pod.getCreatedAt())));
+    }
+
+    /**
+     * Record a newly created post; only campus polls show up in the feed. The
+     * author name comes from the post's AuthorSnippet.
+     */
+    public void recordPost(Post post) {
+        if (!(post instanceof SocialPost social) || social.getType() != PostType.POLL
+                || isGlobalOrMissing(social.getCollege()) || social.getAuthorSnippet() == null) {
+            return;
+        }
+        append(new CampusActivity(null, social.getCollege(), "POLL", social.getAuthorSnippet().getName(),
+                social.getAuthorId(), pollTitle(social), createdAtOrNow(social.getCreatedAt())));
+    }
+
+    /**
+     * Record a newly created beacon under its author's college.
+     */
+    public void recordBeacon(BuddyBeacon beacon) {
+        if (beacon == null || beacon.getAuthorId() == null) {
+            return;
+        }
+        User author = userRepository.findById(beacon.getAuthorId()).orElse(null);
+        if (author == null || isGlobalOrMissing(author.getCollegeName())) {
+            return;
+        }
+        append(new CampusActivity(null, author.getCollegeName(), "BEACON", author.getFullName(), author.getId(),
+                null, createdAtOrNow(beacon.getCreatedAt())));
+    }
+
+    // The feed is best-effort: never fail the create call because of it
+    private void append(CampusActivity activity) {
+        try {
+            mongoTemplate.insert(activity);
+        } catch (Exception e) {
+            log.warn("[CampusActivity] Failed to record {} for college={}: {}", activity.getType(),
+                    activity.getCollege(), e.getMessage());
+        }
+    }
+
+    private int seed() {
+        List<CollabPod> pods = mongoTemplate.find(recent(Criteria.where("college").nin(null, "", "GLOBAL")
+                .and("createdAt").ne(null)), CollabPod.class);
+        List<Post> polls = mongoTemplate.find(recent(Criteria.where("type").is(PostType.POLL)
+                .and("college").nin(null, "", "GLOBAL")
+                .and("createdAt").ne(null)), Post.class);
+        List<BuddyBeacon> beacons = mongoTemplate.find(recent(Criteria.where("createdAt").ne(null)),
+                BuddyBeacon.class);
+
+        Set<String> userIds = new HashSet<>();
+        pods.forEach(pod -> userIds.add(pod.getOwnerId()));
+        polls.forEach(post -> userIds.add(post.getAuthorId()));
+        beacons.forEach(beacon -> userIds.add(beacon.getAuthorId()));
+        userIds.remove(null);
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+
+        List<CampusActivity> entries = new ArrayList<>();
+        for (CollabPod pod : pods) {
+            User owner = users.get(pod.getOwnerId());
+            if (owner != null) {
+                entries.add(new CampusActivity(null, pod.getCollege(), podActivityType(pod), owner.getFullName(),
+                        owner.getId(), pod.getName(), pod.getCreatedAt()));
+            }
+        }
+        for (Post post : polls) {
+            User author = users.get(post.getAuthorId());
+            if (author != null && post instanceof SocialPost social) {
+                entries.add(new CampusActivity(null, social.getCollege(), "POLL", author.getFullName(),
+                        author.getId(), pollTitle(social), social.getCreatedAt()));
+            }
+        }
+        for (BuddyBeacon beacon : beacons) {
+            User author = users.get(beacon.getAuthorId());
+            if (author != null && !isGlobalOrMissing(author.getCollegeName())) {
+                entries.add(new CampusActivity(null, author.getCollegeName(), "BEACON", author.getFullName(),
+                        author.getId(), null, beacon.getCreatedAt()));
+            }
+        }
+
+        // Oldest first, so capped-collection eviction order matches createdAt
+        entries.sort(Comparator.comparing(CampusActivity::getCreatedAt));
+        if (!entries.isEmpty()) {
+            mongoTemplate.insert(entries, CampusActivity.class);
+        }
+        return entries.size();
+    }
+
+    private static Query recent(Criteria criteria) {
+        return new Query(criteria).with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(SEED_LIMIT);
+    }
+
+    private static String podActivityType(CollabPod pod) {
+        return pod.getType() == CollabPod.PodType.LOOKING_FOR ? "COLLAB_POD" : "TEAM_POD";
+    }
+
+    private static String pollTitle(SocialPost poll) {
+        return poll.getTitle() != null ? poll.getTitle() : poll.getContent();
+    }
+
+    private static boolean isGlobalOrMissing(String college) {
+        return college == null || college.isBlank() || "GLOBAL".equals(college);
+    }
+
+    private static LocalDateTime createdAtOrNow(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt : LocalDateTime.now();
+    }
+
+    private boolean isCapped() {
+        Document info = mongoTemplate.getDb().listCollections()
+                .filter(new Document("name", collection())).first();
+        Document options = info != null ? info.get("options", Document.class) : null;
+        return options != null && Boolean.TRUE.equals(options.getBoolean("capped"));
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(CampusActivity.class);
+    }
+}
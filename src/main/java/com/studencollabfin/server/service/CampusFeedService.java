@@ -0,0 +1,140 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.gamification.event.ProfileUpdatedEvent;
+import com.studencollabfin.server.model.Post;
+import com.studencollabfin.server.model.PostType;
+import com.studencollabfin.server.model.TeamFindingPost;
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * CampusFeedService: Read side of the campus feed.
+ *
+ * Each post carries a denormalized AuthorSnippet (name, college, year), so a
+ * feed page renders from one indexed posts query without per-post user
+ * lookups. Snippets are written when a post is created and re-projected onto
+ * all of an author's posts when a ProfileUpdatedEvent is published.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CampusFeedService {
+
+    static final String UNKNOWN_AUTHOR = "Unknown User";
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+
+    /**
+     * Build the snippet embedded on a post for its author.
+     */
+    public static Post.AuthorSnippet snippetOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new Post.AuthorSnippet(
+                user.getFullName() != null ? user.getFullName() : UNKNOWN_AUTHOR,
+                user.getCollegeName() != null ? user.getCollegeName() : "",
+                user.getYearOfStudy() != null ? user.getYearOfStudy() : "");
+    }
+
+    /**
+     * One page of a college's feed, newest first, served by the
+     * {college: 1, createdAt: -1} index.
+     *
+     * @param college College name (campus isolation key)
+     * @param type    Optional PostType filter (LOOKING_FOR also matches team posts)
+     * @param page    0-indexed page number
+     * @param size    Page size
+     */
+    public List<Post> getCollegeFeedPage(String college, PostType type, int page, int size) {
+        Criteria criteria = Criteria.where("college").is(college);
+        if (type == PostType.LOOKING_FOR) {
+            criteria = criteria.orOperator(
+                    Criteria.where("type").is(type),
+                    Criteria.where("_class").is(TeamFindingPost.class.getName()));
+        } else if (type != null) {
+            criteria = criteria.and("type").is(type);
+        }
+
+        Query query = new Query(criteria)
+                .with(PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
+        return mongoTemplate.find(query, Post.class);
+    }
+
+    /**
+     * Author snippets for a batch of posts. Posts already carrying a snippet are
+     * served as-is; legacy posts without one are resolved with a single
+     * findAllById over their distinct authors.
+     */
+    public Map<String, Post.AuthorSnippet> resolveAuthors(Collection<? extends Post> posts) {
+        Map<String, Post.AuthorSnippet> byPostId = new HashMap<>();
+        Set<String> missingAuthors = new HashSet<>();
+        for (Post post : posts) {
+            if (post.getAuthorSnippet() != null) {
+                byPostId.put(post.getId(), post.getAuthorSnippet());
+            } else if (post.getAuthorId() != null) {
+                missingAuthors.add(post.getAuthorId());
+            }
+        }
+
+        if (!missingAuthors.isEmpty()) {
+            Map<String, Post.AuthorSnippet> byAuthorId = new HashMap<>();
+            for (User user : userRepository.findAllById(missingAuthors)) {
+                byAuthorId.put(user.getId(), snippetOf(user));
+            }
+            for (Post post : posts) {
+                if (post.getAuthorSnippet() == null && byAuthorId.containsKey(post.getAuthorId())) {
+                    byPostId.put(post.getId(), byAuthorId.get(post.getAuthorId()));
+                }
+            }
+        }
+        return byPostId;
+    }
+
+    /**
+     * Put the author fields the feed UI expects onto a rich post map.
+     */
+    public static void putAuthorDetails(Map<String, Object> richPost, Post.AuthorSnippet snippet) {
+        richPost.put("authorName", snippet != null ? snippet.getName() : UNKNOWN_AUTHOR);
+        richPost.put("authorCollege", snippet != null ? snippet.getCollege() : "");
+        richPost.put("authorYear", snippet != null ? snippet.getYear() : "");
+    }
+
+    /**
+     * Re-project the author snippet onto every post by this user.
+     */
+    @Async
+    @EventListener
+    public void onProfileUpdated(ProfileUpdatedEvent event) {
+        if (event == null || event.userId() == null || event.userId().isBlank()) {
+            return;
+        }
+
+        User user = userRepository.findById(event.userId()).orElse(null);
+        if (user == null) {
+            return;
+        }
+
+        long modified = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("authorId").is(user.getId())),
+                new Update().set("authorSnippet", snippetOf(user)).inc("version", 1),
+                Post.class).getModifiedCount();
+        if (modified > 0) {
+            log.info("[CampusFeed] Refreshed author snippet on {} posts for user={}", modified, user.getId());
+        }
+    }
+}
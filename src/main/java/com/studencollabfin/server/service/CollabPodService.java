@@ -19,11 +19,17 @@ import com.studencollabfin.server.exception.CooldownException;
 import com.studencollabfin.server.exception.BannedFromPodException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -34,6 +40,9 @@ import java.util.Set;
 @Service
 public class CollabPodService {
 
+    // Conditional join attempts before giving up on a pod whose roster keeps changing
+    private static final int MAX_JOIN_ATTEMPTS = 3;
+
     @Autowired
     private CollabPodRepository collabPodRepository;
 
@@ -55,6 +64,9 @@ public class CollabPodService {
     @Autowired
     private InboxRepository inboxRepository;
 
+    @Autowired
+    private InboxService inboxService;
+
     @Autowired
     private AchievementService achievementService;
 
@@ -64,6 +76,18 @@ public class CollabPodService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private CampusActivityService campusActivityService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MessageHistoryService messageHistoryService;
+
+    @Autowired
+    private MessageSequenceService messageSequenceService;
+
     @SuppressWarnings("null")
     public CollabPod createPod(String creatorId, CollabPod pod) {
         System.out.println("CollabPodService.createPod called with creatorId: " + creatorId);
@@ -117,6 +141,7 @@ public class CollabPodService {
                 + pod.getType());
         CollabPod savedPod = collabPodRepository.save(pod);
         System.out.println("Pod saved successfully with ID: " + savedPod.getId());
+        campusActivityService.recordPod(savedPod);
 
         boolean isMultiCollege = savedPod.getScope() == com.studencollabfin.server.model.PodScope.GLOBAL;
         int distinctCollegeCountAtFill = calculateDistinctCollegeCountAtFill(savedPod);
@@ -138,6 +163,21 @@ public class CollabPodService {
                 .orElseThrow(() -> new RuntimeException("CollabPod not found: " + podId));
     }
 
+    /**
+     * Whether a user may read the pod's chat: its owner, creator, an admin or
+     * a member. An existence check, so the pod is not loaded.
+     */
+    public boolean isPodMember(String podId, String userId) {
+        if (podId == null || userId == null) {
+            return false;
+        }
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(podId).orOperator(
+                Criteria.where("ownerId").is(userId),
+                Criteria.where("creatorId").is(userId),
+                Criteria.where("adminIds").is(userId),
+                Criteria.where("memberIds").is(userId))), CollabPod.class);
+    }
+
     @SuppressWarnings("null")
     public CollabPod scheduleMeeting(String podId, String moderatorId, CollabPod.Meeting meeting) {
         CollabPod pod = collabPodRepository.findById(podId)
@@ -171,9 +211,31 @@ public class CollabPodService {
 
     public List<Message> getMessagesForPod(String podId) {
         // The podId is used as the conversationId for messages
-        // ✅ DEFENSIVE: Handle null senders and system messages gracefully
-        List<Message> messages = messageRepository.findByConversationIdOrderBySentAtAsc(podId);
+        return sanitizePodMessages(podId, messageRepository.findByConversationIdOrderBySentAtAsc(podId));
+    }
 
+    /**
+     * One keyset page of a pod's chat history (see MessageHistoryService).
+     *
+     * @throws IllegalArgumentException if a cursor is malformed
+     */
+    public MessageHistoryService.MessagePage getMessagePageForPod(String podId, String before, String after,
+            Integer limit) {
+        MessageHistoryService.MessagePage page = messageHistoryService.getPage(podId, before, after, limit);
+        return new MessageHistoryService.MessagePage(sanitizePodMessages(podId, page.messages()),
+                page.olderCursor(), page.newerCursor());
+    }
+
+    /**
+     * Pod messages a reconnecting client missed (see MessageHistoryService#getSince).
+     */
+    public MessageHistoryService.SyncBatch getMessagesSinceForPod(String podId, long since, Integer limit) {
+        MessageHistoryService.SyncBatch batch = messageHistoryService.getSince(podId, since, limit);
+        return new MessageHistoryService.SyncBatch(sanitizePodMessages(podId, batch.messages()), batch.hasMore());
+    }
+
+    // ✅ DEFENSIVE: Handle null senders and system messages gracefully
+    private List<Message> sanitizePodMessages(String podId, List<Message> messages) {
         // Process messages with error handling
         List<Message> processedMessages = new java.util.ArrayList<>();
         for (Message msg : messages) {
@@ -222,69 +284,74 @@ public class CollabPodService {
 
     public Message saveMessage(Message message) {
         try {
-            // Ensure message has an ID
-            if (message.getId() == null || message.getId().isEmpty()) {
-                message.setId(new java.util.UUID(java.util.UUID.randomUUID().getMostSignificantBits(),
-                        java.util.UUID.randomUUID().getLeastSignificantBits()).toString());
-            }
-
-            // CRITICAL FIX: Ensure senderId is always set
-            // This is used by frontend to determine message alignment (left vs right)
-            if (message.getSenderId() == null || message.getSenderId().isEmpty()) {
-                throw new IllegalArgumentException("senderId is required for messages");
+            // CRITICAL: Save to messages collection with ALL fields intact
+            return messageRepository.save(messageSequenceService.assign(prepareMessage(message)));
+        } catch (org.springframework.dao.DuplicateKeyException e) {
+            // clientMessageId already stored: a resend gets the stored message back,
+            // a different message reusing the client id is rejected
+            Message stored = mongoTemplate.findOne(
+                    new Query(Criteria.where("clientMessageId").is(message.getClientMessageId())), Message.class);
+            if (stored != null && PodMessageWriteBehind.isSameMessage(stored, message)) {
+                return stored;
             }
+            throw new RuntimeException("Message id already used by another message", e);
+        } catch (Exception e) {
+            System.err.println("✗ Error saving message: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to save message", e);
+        }
+    }
 
-            // Ensure conversationId is set from podId if not already set
-            if (message.getConversationId() == null && message.getPodId() != null) {
-                message.setConversationId(message.getPodId());
-            }
+    /**
+     * Normalize a pod chat message before it is stored: assign its id, default
+     * sentAt/text/attachmentType and stamp the campus pod type and scope.
+     * Used both by the synchronous REST path, which also assigns the sequence
+     * number, and by the WebSocket path, which broadcasts the prepared message
+     * and persists it via PodMessageWriteBehind (whose flusher numbers it).
+     * Touches no database, so it is safe on the broadcast path.
+     */
+    public Message prepareMessage(Message message) {
+        // An id sent by the client is only its own reference; the stored id is
+        // always assigned here so a reused or colliding client id cannot
+        // overwrite (REST) or be acked in place of (WebSocket) another message
+        if (message.getId() != null && !message.getId().isEmpty() && message.getClientMessageId() == null) {
+            message.setClientMessageId(message.getId());
+        }
+        message.setId(java.util.UUID.randomUUID().toString());
 
-            // Set sentAt if not provided
-            if (message.getSentAt() == null) {
-                message.setSentAt(new java.util.Date());
-            }
+        // CRITICAL FIX: Ensure senderId is always set
+        // This is used by frontend to determine message alignment (left vs right)
+        if (message.getSenderId() == null || message.getSenderId().isEmpty()) {
+            throw new IllegalArgumentException("senderId is required for messages");
+        }
 
-            // If content is provided instead of text, use content as text
-            if (message.getText() == null && message.getContent() != null) {
-                message.setText(message.getContent());
-            }
+        // Ensure conversationId is set from podId if not already set
+        if (message.getConversationId() == null && message.getPodId() != null) {
+            message.setConversationId(message.getPodId());
+        }
 
-            // CRITICAL FIX: Ensure attachment fields are preserved
-            // Frontend sends attachmentUrl and attachmentType - these MUST be saved to
-            // database
-            if (message.getAttachmentUrl() != null) {
-                System.out.println("✓ Message has attachment URL: " + message.getAttachmentUrl());
-                System.out.println("  - Type: " + message.getAttachmentType());
-                System.out.println("  - FileName: " + message.getFileName());
-            }
+        // Set sentAt if not provided
+        if (message.getSentAt() == null) {
+            message.setSentAt(new java.util.Date());
+        }
 
-            // If attachmentType is not set, default to NONE
-            if (message.getAttachmentType() == null || message.getAttachmentType().isEmpty()) {
-                message.setAttachmentType("NONE");
-            }
+        // If content is provided instead of text, use content as text
+        if (message.getText() == null && message.getContent() != null) {
+            message.setText(message.getContent());
+        }
 
-            // Default to unread status
-            message.setRead(false);
+        // If attachmentType is not set, default to NONE
+        if (message.getAttachmentType() == null || message.getAttachmentType().isEmpty()) {
+            message.setAttachmentType("NONE");
+        }
 
-            // Set messageType and scope for campus pods
-            message.setMessageType(Message.MessageType.CHAT);
-            message.setScope("CAMPUS");
+        // Default to unread status
+        message.setRead(false);
 
-            // CRITICAL: Save to messages collection with ALL fields intact
-            Message savedMessage = messageRepository.save(message);
-            System.out.println("✓ Message saved to messages collection: " + savedMessage.getId() + " for pod: "
-                    + savedMessage.getPodId());
-            System.out.println("  - Sender ID: " + savedMessage.getSenderId());
-            System.out.println("  - Attachment URL saved: "
-                    + (savedMessage.getAttachmentUrl() != null ? savedMessage.getAttachmentUrl() : "NONE"));
-            System.out.println("  - Attachment Type saved: " + savedMessage.getAttachmentType());
-
-            return savedMessage;
-        } catch (Exception e) {
-            System.err.println("✗ Error saving message: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to save message", e);
-        }
+        // Set messageType and scope for campus pods
+        message.setMessageType(Message.MessageType.CHAT);
+        message.setScope("CAMPUS");
+        return message;
     }
 
     /**
@@ -452,35 +519,25 @@ public class CollabPodService {
         // Step 7: Move target from memberIds/adminIds to bannedIds (including names)
         System.out.println("  ✓ Hierarchy check passed: " + actorRole + " can kick " + targetRole);
 
-        int memberIndex = -1;
-        if (pod.getMemberIds() != null) {
-            memberIndex = pod.getMemberIds().indexOf(targetId);
-            pod.getMemberIds().remove(targetId);
-            // Remove corresponding name
-            if (memberIndex >= 0 && pod.getMemberNames() != null && memberIndex < pod.getMemberNames().size()) {
-                pod.getMemberNames().remove(memberIndex);
-            }
-        }
-
-        int adminIndex = -1;
-        if (pod.getAdminIds() != null) {
-            adminIndex = pod.getAdminIds().indexOf(targetId);
-            pod.getAdminIds().remove(targetId);
-            // Remove corresponding name
-            if (adminIndex >= 0 && pod.getAdminNames() != null && adminIndex < pod.getAdminNames().size()) {
-                pod.getAdminNames().remove(adminIndex);
-            }
-        }
-
-        if (pod.getBannedIds() == null) {
-            pod.setBannedIds(new java.util.ArrayList<>());
+        // Atomic: only applies if the roles checked above still hold
+        List<Criteria> guards = new ArrayList<>();
+        guards.add(Criteria.where("_id").is(podId));
+        guards.add(Criteria.where("ownerId").is(pod.getOwnerId()));
+        guards.add(new Criteria().orOperator(
+                Criteria.where(PodRosterUpdates.MEMBERS).is(targetId),
+                Criteria.where(PodRosterUpdates.ADMINS).is(targetId)));
+        if (actorRole.equals("ADMIN")) {
+            guards.add(Criteria.where(PodRosterUpdates.ADMINS).is(actorId));
+            guards.add(Criteria.where(PodRosterUpdates.ADMINS).ne(targetId));
+        }
+        CollabPod updatedPod = mongoTemplate.findAndModify(
+                new Query(new Criteria().andOperator(guards)),
+                PodRosterUpdates.banFromRoster(targetId),
+                FindAndModifyOptions.options().returnNew(true),
+                CollabPod.class);
+        if (updatedPod == null) {
+            throw new RuntimeException("Pod roles changed while kicking, please try again");
         }
-        if (!pod.getBannedIds().contains(targetId)) {
-            pod.getBannedIds().add(targetId);
-        }
-
-        pod.setLastActive(LocalDateTime.now());
-        CollabPod updatedPod = collabPodRepository.save(pod);
         System.out.println("  ✓ User " + targetId + " moved to bannedIds and names removed");
 
         // ✅ LIVE SIGNAL: Broadcast ROLE_CHANGED event to all pod members
@@ -519,7 +576,7 @@ public class CollabPodService {
             systemMsg.setRead(false);
             systemMsg.setScope("CAMPUS");
 
-            Message savedMsg = messageRepository.save(systemMsg);
+            Message savedMsg = messageRepository.save(messageSequenceService.assign(systemMsg));
             System.out.println("  ✓ System message logged: " + savedMsg.getId());
         } catch (Exception e) {
             System.err.println("⚠️ Failed to log system message: " + e.getMessage());
@@ -541,7 +598,7 @@ public class CollabPodService {
             inboxNotification.setReason(reason);
             inboxNotification.setRead(false);
 
-            inboxRepository.save(inboxNotification);
+            inboxService.onCreated(inboxRepository.save(inboxNotification));
             System.out.println("  ✓ Inbox notification created for banned user");
         } catch (Exception e) {
             System.err.println("⚠️ Failed to create inbox notification: " + e.getMessage());
@@ -567,56 +624,25 @@ public class CollabPodService {
     public void leavePod(String podId, String userId) {
         System.out.println("👋 LEAVE: User " + userId + " leaving pod " + podId);
 
-        // Step 1: Fetch pod
-        CollabPod pod = collabPodRepository.findById(podId)
-                .orElseThrow(() -> new RuntimeException("CollabPod not found: " + podId));
-
-        // Step 2: Prevent owner from leaving (they must transfer or close)
-        if (pod.getOwnerId().equals(userId)) {
+        // Steps 1-5 in one atomic update: remove the user from BOTH memberIds AND
+        // adminIds (with their names) and reopen a FULL pod that dropped below
+        // capacity. The owner never matches (they must transfer or close).
+        // Returns the pod as it was before removal.
+        CollabPod pod = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(podId).and("ownerId").ne(userId)),
+                PodRosterUpdates.removeFromRoster(userId),
+                FindAndModifyOptions.options().returnNew(false),
+                CollabPod.class);
+        if (pod == null) {
+            collabPodRepository.findById(podId)
+                    .orElseThrow(() -> new RuntimeException("CollabPod not found: " + podId));
             throw new RuntimeException("Pod owner cannot leave. Transfer ownership or close the pod.");
         }
 
-        // Step 3: Check if user is an admin before removal
         boolean wasAdmin = pod.getAdminIds() != null && pod.getAdminIds().contains(userId);
         System.out.println("  ℹ️ User was admin: " + wasAdmin);
-
-        // Step 4: Remove user from BOTH memberIds AND adminIds arrays, along with their
-        // names
-        // Safe removal - if not in list, remove() just returns false without error
-        int memberIndex = -1;
-        if (pod.getMemberIds() != null) {
-            memberIndex = pod.getMemberIds().indexOf(userId);
-            pod.getMemberIds().remove(userId);
-            // Remove corresponding name
-            if (memberIndex >= 0 && pod.getMemberNames() != null && memberIndex < pod.getMemberNames().size()) {
-                pod.getMemberNames().remove(memberIndex);
-            }
-        }
-
-        int adminIndex = -1;
-        if (pod.getAdminIds() != null) {
-            adminIndex = pod.getAdminIds().indexOf(userId);
-            pod.getAdminIds().remove(userId);
-            // Remove corresponding name
-            if (adminIndex >= 0 && pod.getAdminNames() != null && adminIndex < pod.getAdminNames().size()) {
-                pod.getAdminNames().remove(adminIndex);
-            }
-        }
-        pod.setLastActive(LocalDateTime.now());
-
         System.out.println("  ✓ User removed from memberIds/adminIds and their corresponding names");
 
-        // Step 5: Update pod status if needed
-        if (pod.getStatus() == CollabPod.PodStatus.FULL &&
-                pod.getMemberIds() != null &&
-                pod.getMemberIds().size() < pod.getMaxCapacity()) {
-            pod.setStatus(CollabPod.PodStatus.ACTIVE);
-            System.out.println("  ✓ Pod status changed from FULL to ACTIVE");
-        }
-
-        collabPodRepository.save(pod);
-        System.out.println("  ✓ Pod saved with user removed");
-
         // Step 6: Create cooldown record (15 minutes)
         try {
             LocalDateTime now = LocalDateTime.now();
@@ -653,7 +679,7 @@ public class CollabPodService {
             systemMsg.setRead(false);
             systemMsg.setScope(pod.getScope() != null ? pod.getScope().toString() : "CAMPUS");
 
-            Message savedMsg = messageRepository.save(systemMsg);
+            Message savedMsg = messageRepository.save(messageSequenceService.assign(systemMsg));
             System.out.println("  ✓ System message logged: " + savedMsg.getId() + " (" + systemMessageText + ")");
         } catch (Exception e) {
             System.err.println("⚠️ Failed to log system message: " + e.getMessage());
@@ -773,7 +799,7 @@ public class CollabPodService {
             systemMsg.setRead(false);
             systemMsg.setScope(pod.getScope() != null ? pod.getScope().toString() : "CAMPUS");
 
-            Message savedMsg = messageRepository.save(systemMsg);
+            Message savedMsg = messageRepository.save(messageSequenceService.assign(systemMsg));
             System.out.println("  ✓ System message logged: " + savedMsg.getId());
         } catch (Exception e) {
             System.err.println("⚠️ Failed to log system message: " + e.getMessage());
@@ -795,6 +821,7 @@ public class CollabPodService {
             notification.setRead(false);
 
             Inbox savedNotif = inboxRepository.save(notification);
+            inboxService.onCreated(savedNotif);
             System.out.println("  ✓ Inbox notification created for new owner: " + savedNotif.getId());
         } catch (Exception e) {
             System.err.println("⚠️ Failed to create notification: " + e.getMessage());
@@ -864,53 +891,71 @@ public class CollabPodService {
             System.out.println("  ✓ No cooldown record found - user can join");
         }
 
-        // Step 4: Check if user is already owner, admin, or member
-        if (pod.getOwnerId() != null && pod.getOwnerId().equals(userId)) {
-            System.out.println("  ℹ️ User is the pod owner, no need to join as member");
-            return pod;
-        }
-        if (pod.getAdminIds() != null && pod.getAdminIds().contains(userId)) {
-            System.out.println("  ℹ️ User is already an admin");
-            return pod;
-        }
-        if (pod.getMemberIds() != null && pod.getMemberIds().contains(userId)) {
-            System.out.println("  ℹ️ User is already a member");
-            return pod;
-        }
-
-        // Step 5: Check pod capacity
-        if (pod.getStatus() == CollabPod.PodStatus.FULL ||
-                (pod.getMaxCapacity() > 0 && pod.getMemberIds().size() >= pod.getMaxCapacity())) {
-            pod.setStatus(CollabPod.PodStatus.FULL);
-            collabPodRepository.save(pod);
-            System.out.println("  ✗ Pod is full");
-            throw new RuntimeException("CollabPod is full");
-        }
-
-        // Step 6: Add user to memberIds and memberNames
-        if (pod.getMemberIds() == null) {
-            pod.setMemberIds(new java.util.ArrayList<>());
-        }
-        if (pod.getMemberNames() == null) {
-            pod.setMemberNames(new java.util.ArrayList<>());
-        }
+        String userName = null;
+        boolean isFirstPod = false;
+        CollabPod updatedPod = null;
+        for (int attempt = 1; updatedPod == null; attempt++) {
+            // Step 4: Check if user is already owner, admin, or member
+            if (pod.getOwnerId() != null && pod.getOwnerId().equals(userId)) {
+                System.out.println("  ℹ️ User is the pod owner, no need to join as member");
+                return pod;
+            }
+            if (pod.getAdminIds() != null && pod.getAdminIds().contains(userId)) {
+                System.out.println("  ℹ️ User is already an admin");
+                return pod;
+            }
+            if (pod.getMemberIds() != null && pod.getMemberIds().contains(userId)) {
+                System.out.println("  ℹ️ User is already a member");
+                return pod;
+            }
+            if (attempt > 1 && pod.getBannedIds() != null && pod.getBannedIds().contains(userId)) {
+                throw new BannedFromPodException("You are banned from this pod and cannot rejoin");
+            }
 
-        // Get user name and add both ID and name
-        String userName = getUserName(userId);
-        pod.getMemberIds().add(userId);
-        pod.getMemberNames().add(userName);
-        pod.setLastActive(LocalDateTime.now());
+            // Step 5: Check pod capacity
+            int memberCount = pod.getMemberIds() != null ? pod.getMemberIds().size() : 0;
+            if (pod.getStatus() == CollabPod.PodStatus.FULL ||
+                    (pod.getMaxCapacity() > 0 && memberCount >= pod.getMaxCapacity())) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(podId)),
+                        Update.update("status", CollabPod.PodStatus.FULL).inc("version", 1), CollabPod.class);
+                System.out.println("  ✗ Pod is full");
+                throw new RuntimeException("CollabPod is full");
+            }
 
-        boolean isFirstPod = collabPodRepository.findByMemberIdsContaining(userId).isEmpty() &&
-                collabPodRepository.findByCreatorId(userId).isEmpty();
+            if (userName == null) {
+                userName = getUserName(userId);
+                isFirstPod = collabPodRepository.findByMemberIdsContaining(userId).isEmpty() &&
+                        collabPodRepository.findByCreatorId(userId).isEmpty();
+            }
 
-        CollabPod updatedPod = collabPodRepository.save(pod);
+            // Step 6: Add user to memberIds and memberNames atomically. The predicate
+            // re-checks roles, ban and capacity on the server, so concurrent joins
+            // can neither overwrite each other nor overfill the pod.
+            updatedPod = mongoTemplate.findAndModify(
+                    joinableQuery(pod, userId),
+                    new Update()
+                            .addToSet(PodRosterUpdates.MEMBERS, userId)
+                            .push(PodRosterUpdates.MEMBER_NAMES, userName)
+                            .set("lastActive", LocalDateTime.now())
+                            .inc("version", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    CollabPod.class);
+
+            if (updatedPod == null) {
+                if (attempt >= MAX_JOIN_ATTEMPTS) {
+                    throw new RuntimeException("CollabPod is busy, please try again");
+                }
+                // Lost a race: re-read and re-evaluate against the current roster
+                pod = collabPodRepository.findById(podId)
+                        .orElseThrow(() -> new RuntimeException("CollabPod not found: " + podId));
+            }
+        }
         System.out.println(
                 "  ✓ User " + userId + " (" + userName + ") added to memberIds (total members: "
-                        + pod.getMemberIds().size() + ")");
+                        + updatedPod.getMemberIds().size() + ")");
 
         eventPublisher.publishEvent(new PodJoinedEvent(userId, podId, isFirstPod));
-        eventPublisher.publishEvent(new CollabRoomParticipatedEvent(userId, podId, deriveAcademicBranch(pod)));
+        eventPublisher.publishEvent(new CollabRoomParticipatedEvent(userId, podId, deriveAcademicBranch(updatedPod)));
 
         int distinctCollegeCountAtFill = calculateDistinctCollegeCountAtFill(updatedPod);
         if (distinctCollegeCountAtFill >= 4) {
@@ -947,7 +992,7 @@ public class CollabPodService {
             systemMsg.setRead(false);
             systemMsg.setScope("CAMPUS");
 
-            Message savedMsg = messageRepository.save(systemMsg);
+            Message savedMsg = messageRepository.save(messageSequenceService.assign(systemMsg));
             System.out.println("  ✓ System message logged: " + savedMsg.getId());
         } catch (Exception e) {
             System.err.println("⚠️ Failed to log system message: " + e.getMessage());
@@ -995,35 +1040,21 @@ public class CollabPodService {
             return pod;
         }
 
-        // ✅ Move from memberIds to adminIds (including names)
-        int memberIndex = -1;
-        if (pod.getMemberIds() != null && pod.getMemberIds().contains(targetId)) {
-            memberIndex = pod.getMemberIds().indexOf(targetId);
-            pod.getMemberIds().remove(targetId);
-            // Remove corresponding name from memberNames
-            if (memberIndex >= 0 && pod.getMemberNames() != null && memberIndex < pod.getMemberNames().size()) {
-                pod.getMemberNames().remove(memberIndex);
-            }
-            System.out.println("✅ Removed " + targetId + " from memberIds");
+        // ✅ Move from memberIds to adminIds (including names) in one atomic update,
+        // guarded on the actor still owning the pod and the target not yet an admin
+        String targetName = getUserName(targetId);
+        CollabPod updatedPod = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(podId)
+                        .and("ownerId").is(actorId)
+                        .and(PodRosterUpdates.ADMINS).ne(targetId)),
+                PodRosterUpdates.moveBetween(PodRosterUpdates.MEMBERS, PodRosterUpdates.MEMBER_NAMES,
+                        PodRosterUpdates.ADMINS, PodRosterUpdates.ADMIN_NAMES, targetId, targetName),
+                FindAndModifyOptions.options().returnNew(true),
+                CollabPod.class);
+        if (updatedPod == null) {
+            return currentPodForOwner(podId, actorId, "Only the Pod Owner can promote members");
         }
-
-        if (pod.getAdminIds() == null) {
-            pod.setAdminIds(new java.util.ArrayList<>());
-        }
-        if (pod.getAdminNames() == null) {
-            pod.setAdminNames(new java.util.ArrayList<>());
-        }
-
-        if (!pod.getAdminIds().contains(targetId)) {
-            String targetName = getUserName(targetId);
-            pod.getAdminIds().add(targetId);
-            pod.getAdminNames().add(targetName);
-            System.out.println("✅ Added " + targetId + " (" + targetName + ") to adminIds");
-        }
-
-        // Save updated pod
-        CollabPod updatedPod = collabPodRepository.save(pod);
-        System.out.println("✅ Pod saved with promoted admin");
+        System.out.println("✅ Moved " + targetId + " (" + targetName + ") from memberIds to adminIds");
 
         // ✅ LIVE SIGNAL: Broadcast ROLE_CHANGED event to all pod members
         try {
@@ -1046,7 +1077,6 @@ public class CollabPodService {
         // ✅ Create SYSTEM message for audit trail
         try {
             String actorName = getUserName(actorId);
-            String targetName = getUserName(targetId);
             String messageText = actorName + " promoted " + targetName + " to Admin";
 
             Message systemMessage = new Message();
@@ -1059,7 +1089,7 @@ public class CollabPodService {
             systemMessage.setSenderName(actorName);
             systemMessage.setSentAt(new Date());
 
-            messageRepository.save(systemMessage);
+            messageRepository.save(messageSequenceService.assign(systemMessage));
             System.out.println("✅ SYSTEM message saved: " + messageText);
         } catch (Exception e) {
             System.err.println("⚠️ Failed to create SYSTEM message: " + e.getMessage());
@@ -1106,35 +1136,21 @@ public class CollabPodService {
             return pod;
         }
 
-        // ✅ Move from adminIds to memberIds (including names)
-        int adminIndex = -1;
-        if (pod.getAdminIds() != null) {
-            adminIndex = pod.getAdminIds().indexOf(targetId);
-            pod.getAdminIds().remove(targetId);
-            // Remove corresponding name from adminNames
-            if (adminIndex >= 0 && pod.getAdminNames() != null && adminIndex < pod.getAdminNames().size()) {
-                pod.getAdminNames().remove(adminIndex);
-            }
-            System.out.println("✅ Removed " + targetId + " from adminIds");
-        }
-
-        if (pod.getMemberIds() == null) {
-            pod.setMemberIds(new java.util.ArrayList<>());
-        }
-        if (pod.getMemberNames() == null) {
-            pod.setMemberNames(new java.util.ArrayList<>());
-        }
-
-        if (!pod.getMemberIds().contains(targetId)) {
-            String targetName = getUserName(targetId);
-            pod.getMemberIds().add(targetId);
-            pod.getMemberNames().add(targetName);
-            System.out.println("✅ Added " + targetId + " (" + targetName + ") to memberIds");
+        // ✅ Move from adminIds to memberIds (including names) in one atomic update,
+        // guarded on the actor still owning the pod and the target still an admin
+        String targetName = getUserName(targetId);
+        CollabPod updatedPod = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(podId)
+                        .and("ownerId").is(actorId)
+                        .and(PodRosterUpdates.ADMINS).is(targetId)),
+                PodRosterUpdates.moveBetween(PodRosterUpdates.ADMINS, PodRosterUpdates.ADMIN_NAMES,
+                        PodRosterUpdates.MEMBERS, PodRosterUpdates.MEMBER_NAMES, targetId, targetName),
+                FindAndModifyOptions.options().returnNew(true),
+                CollabPod.class);
+        if (updatedPod == null) {
+            return currentPodForOwner(podId, actorId, "Only the Pod Owner can demote admins");
         }
-
-        // Save updated pod
-        CollabPod updatedPod = collabPodRepository.save(pod);
-        System.out.println("✅ Pod saved with demoted member");
+        System.out.println("✅ Moved " + targetId + " (" + targetName + ") from adminIds to memberIds");
 
         // ✅ LIVE SIGNAL: Broadcast ROLE_CHANGED event to all pod members
         try {
@@ -1157,7 +1173,6 @@ public class CollabPodService {
         // ✅ Create SYSTEM message for audit trail
         try {
             String actorName = getUserName(actorId);
-            String targetName = getUserName(targetId);
             String messageText = actorName + " demoted " + targetName + " to Member";
 
             Message systemMessage = new Message();
@@ -1170,7 +1185,7 @@ public class CollabPodService {
             systemMessage.setSenderName(actorName);
             systemMessage.setSentAt(new Date());
 
-            messageRepository.save(systemMessage);
+            messageRepository.save(messageSequenceService.assign(systemMessage));
             System.out.println("✅ SYSTEM message saved: " + messageText);
         } catch (Exception e) {
             System.err.println("⚠️ Failed to create SYSTEM message: " + e.getMessage());
@@ -1179,6 +1194,40 @@ public class CollabPodService {
         return updatedPod;
     }
 
+    /**
+     * Join predicate: the pod is not FULL, the user holds no role and is not
+     * banned, and (for capped pods) memberIds has fewer than maxCapacity entries,
+     * i.e. the element at index maxCapacity - 1 does not exist yet.
+     */
+    private Query joinableQuery(CollabPod pod, String userId) {
+        Criteria criteria = Criteria.where("_id").is(pod.getId())
+                .and("status").ne(CollabPod.PodStatus.FULL)
+                .and("ownerId").ne(userId)
+                .and(PodRosterUpdates.ADMINS).ne(userId)
+                .and(PodRosterUpdates.MEMBERS).ne(userId)
+                .and("bannedIds").ne(userId);
+        if (pod.getMaxCapacity() > 0) {
+            criteria = criteria.and("maxCapacity").is(pod.getMaxCapacity())
+                    .and(PodRosterUpdates.MEMBERS + "." + (pod.getMaxCapacity() - 1)).exists(false);
+        }
+        return new Query(criteria);
+    }
+
+    /**
+     * Resolve a conditional promote/demote that matched nothing: either the
+     * actor no longer owns the pod, or the target already has the requested role.
+     */
+    @SuppressWarnings("null")
+    private CollabPod currentPodForOwner(String podId, String actorId, String deniedMessage) {
+        CollabPod pod = collabPodRepository.findById(podId)
+                .orElseThrow(() -> new RuntimeException("Pod not found: " + podId));
+        if (pod.getOwnerId() == null || !pod.getOwnerId().equals(actorId)) {
+            throw new PermissionDeniedException(deniedMessage);
+        }
+        System.out.println("⚠️ Role already applied, nothing to change");
+        return pod;
+    }
+
     /**
      * Helper method to get user's display name from user ID
      */
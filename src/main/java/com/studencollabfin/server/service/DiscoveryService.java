@@ -0,0 +1,94 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.dto.DiscoveryCardDTO;
+import com.studencollabfin.server.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * DiscoveryService: Server-side queries for the Discovery Deck.
+ *
+ * The FIFO batch is resolved in MongoDB against the {joinedDate: 1, _id: 1}
+ * index and projected to DiscoveryCardDTO, so its cost grows with the batch
+ * limit rather than with the size of the users collection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DiscoveryService {
+
+    // Above this many exclude IDs, a $nin predicate costs more to ship and parse
+    // than walking the index and skipping excluded IDs in memory
+    static final int NIN_THRESHOLD = 1000;
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Next batch of discovery cards in joinedDate (ASC), _id (ASC) order,
+     * skipping every excluded user.
+     *
+     * @param excludeIds User IDs the client has already seen
+     * @param limit      Maximum number of cards to return
+     */
+    public List<DiscoveryCardDTO> getDiscoveryBatch(Collection<String> excludeIds, int limit) {
+        Set<String> excludeSet = excludeIds == null ? Collections.emptySet() : new HashSet<>(excludeIds);
+
+        if (excludeSet.size() <= NIN_THRESHOLD) {
+            Query query = new Query();
+            if (!excludeSet.isEmpty()) {
+                query.addCriteria(Criteria.where("_id").nin(excludeSet));
+            }
+            query.with(fifoOrder()).limit(limit);
+            query.fields().include(DiscoveryCardDTO.FIELDS);
+            return mongoTemplate.find(query, DiscoveryCardDTO.class, collection());
+        }
+
+        // Large exclude list: stream the covered (joinedDate, _id) index in deck order
+        // and keep the first `limit` IDs not excluded, then load just those cards
+        List<String> picked = new ArrayList<>(limit);
+        Query scan = new Query().with(fifoOrder()).cursorBatchSize(SCAN_BATCH_SIZE);
+        scan.fields().include("_id", "joinedDate");
+
+        int scanned = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(scan, Document.class, collection())) {
+            Iterator<Document> ids = stream.iterator();
+            while (ids.hasNext() && picked.size() < limit) {
+                Object id = ids.next().get("_id");
+                scanned++;
+                String userId = id == null ? null : id.toString();
+                if (userId != null && !excludeSet.contains(userId)) {
+                    picked.add(userId);
+                }
+            }
+        }
+        log.info("[Discovery] Scanned {} index entries to fill {} cards ({} excluded IDs)",
+                scanned, picked.size(), excludeSet.size());
+
+        if (picked.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Query cards = new Query(Criteria.where("_id").in(picked)).with(fifoOrder());
+        cards.fields().include(DiscoveryCardDTO.FIELDS);
+        return mongoTemplate.find(cards, DiscoveryCardDTO.class, collection());
+    }
+
+    private static Sort fifoOrder() {
+        return Sort.by(Sort.Order.asc("joinedDate"), Sort.Order.asc("_id"));
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(User.class);
+    }
+}
@@ -5,12 +5,12 @@ import com.studencollabfin.server.dto.EventNotificationDTO;
 import com.studencollabfin.server.model.CollabPod;
 import com.studencollabfin.server.model.Event;
 import com.studencollabfin.server.model.TeamFindingPost;
-import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.repository.CollabPodRepository;
 import com.studencollabfin.server.repository.EventRepository;
 import com.studencollabfin.server.repository.PostRepository;
-import com.studencollabfin.server.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -26,8 +26,7 @@ public class EventService {
     private final EventRepository eventRepository;
     private final PostRepository postRepository;
     private final CollabPodRepository collabPodRepository;
-    private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final BroadcastInboxService broadcastInboxService;
 
     public List<Event> getAllEvents() {
         return eventRepository.findAll();
@@ -38,6 +37,26 @@ public class EventService {
         return eventRepository.findByCategory(category);
     }
 
+    /**
+     * Re-queue announcements that never completed, e.g. because the node
+     * stopped between saving the event and publishing its broadcast. Publishing
+     * is keyed by event id, so a replay cannot create a second inbox item.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void announcePendingEvents() {
+        try {
+            List<Event> pending = eventRepository.findByAnnouncedFalse();
+            for (Event event : pending) {
+                triggerEventNotification(event);
+            }
+            if (!pending.isEmpty()) {
+                System.out.println("✅ Re-queued " + pending.size() + " pending event announcement(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error re-queuing pending event announcements: " + e.getMessage());
+        }
+    }
+
     @SuppressWarnings("null")
     public Event getEventById(String id) {
         // Find the event by ID, or throw an exception if not found
@@ -121,6 +140,7 @@ public class EventService {
         // Set default values for other fields
         newEvent.setStatus(Event.EventStatus.UPCOMING);
         newEvent.setType(Event.EventType.OTHER);
+        newEvent.setAnnounced(false);
 
         // Save the new event to the database
         Event savedEvent = eventRepository.save(newEvent);
@@ -134,24 +154,14 @@ public class EventService {
     /**
      * ✅ NEW: Trigger event notification broadcast
      * 
-     * 1. Get all users from the system
-     * 2. Create EventNotificationDTO with event details
-     * 3. Broadcast via NotificationService (WebSocket + Inbox storage)
-     * 4. Only triggers on event creation, NOT on update
+     * 1. Create EventNotificationDTO with event details
+     * 2. Hand it to BroadcastInboxService, which publishes one shared inbox
+     *    item plus one topic broadcast on a background thread, instead of a
+     *    copy per user on the request thread
+     * 3. Only triggers on event creation, NOT on update
      */
     private void triggerEventNotification(Event event) {
         try {
-            // Get all users to notify
-            List<User> allUsers = userRepository.findAll();
-            List<String> allUserIds = allUsers.stream()
-                    .map(User::getId)
-                    .collect(Collectors.toList());
-
-            if (allUserIds.isEmpty()) {
-                System.out.println("⚠️  No users to notify for event: " + event.getTitle());
-                return;
-            }
-
             // Create event notification DTO
             EventNotificationDTO notification = new EventNotificationDTO();
             notification.setEventId(event.getId());
@@ -166,9 +176,9 @@ public class EventService {
             notification.setIcon("📅");
 
             // Broadcast to all users
-            notificationService.broadcastEventNotification(notification, allUserIds);
+            broadcastInboxService.publishEventInBackground(notification);
 
-            System.out.println("✅ Event notification broadcast for: " + event.getTitle());
+            System.out.println("✅ Event notification queued for: " + event.getTitle());
         } catch (Exception e) {
             System.err.println("❌ Error broadcasting event notification: " + e.getMessage());
             e.printStackTrace();
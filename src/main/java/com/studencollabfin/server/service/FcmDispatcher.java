@@ -0,0 +1,376 @@
+package com.studencollabfin.server.service;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+import com.studencollabfin.server.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * FcmDispatcher: Asynchronous, batched delivery of push notifications.
+ *
+ * Callers {@link #enqueue(Delivery)} and return immediately; a fixed set of
+ * worker threads drains the bounded queue in batches of up to
+ * {@link #MAX_BATCH} (the FCM limit for sendEach). Per-message outcomes decide
+ * what happens next:
+ * - transient errors (UNAVAILABLE, INTERNAL, QUOTA_EXCEEDED) are re-queued with
+ *   exponential backoff, up to maxAttempts in total
+ * - UNREGISTERED / SENDER_ID_MISMATCH tokens are handed to the token cleaner,
+ *   which removes them from their users
+ * - anything else is counted as failed and dropped
+ *
+ * Deliveries that carry a badge user get the user's unread inbox count
+ * resolved here, once per user per batch, so the Mongo read happens on a
+ * worker and not on the thread that queued the push.
+ *
+ * When the queue is full new notifications are dropped and counted; pushes are
+ * best effort and must never block a request or STOMP thread.
+ */
+@Slf4j
+@Service
+public class FcmDispatcher {
+
+    public static final int MAX_BATCH = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final Set<MessagingErrorCode> RETRYABLE = EnumSet.of(
+            MessagingErrorCode.UNAVAILABLE, MessagingErrorCode.INTERNAL, MessagingErrorCode.QUOTA_EXCEEDED);
+    private static final Set<MessagingErrorCode> INVALID_TOKEN = EnumSet.of(
+            MessagingErrorCode.UNREGISTERED, MessagingErrorCode.SENDER_ID_MISMATCH);
+
+    /**
+     * One push: the built FCM message plus its target, kept alongside because
+     * Message does not expose it. When badgeUserId is set, message is only a
+     * fallback and withBadge rebuilds it with that user's unread count.
+     */
+    public record Delivery(Message message, String token, String topic, int attempt, String badgeUserId,
+            IntFunction<Message> withBadge) {
+        public static Delivery toToken(Message message, String token) {
+            return new Delivery(message, token, null, 1, null, null);
+        }
+
+        public static Delivery toTopic(Message message, String topic) {
+            return new Delivery(message, null, topic, 1, null, null);
+        }
+
+        /**
+         * @param fallback  Message sent if the badge count cannot be read
+         * @param withBadge Builds the message for a given badge count
+         */
+        public static Delivery toUser(Message fallback, String token, String userId,
+                IntFunction<Message> withBadge) {
+            return new Delivery(fallback, token, null, 1, userId, withBadge);
+        }
+
+        Delivery withMessage(Message resolved) {
+            return new Delivery(resolved, token, topic, attempt, null, null);
+        }
+
+        Delivery nextAttempt() {
+            return new Delivery(message, token, topic, attempt + 1, badgeUserId, withBadge);
+        }
+    }
+
+    /**
+     * Result for one delivery. A failed outcome may have no error code when
+     * FCM did not report one; it is then treated as a permanent failure.
+     */
+    public record Outcome(boolean success, String messageId, MessagingErrorCode error) {
+        public static Outcome sent(String messageId) {
+            return new Outcome(true, messageId, null);
+        }
+
+        public static Outcome failed(MessagingErrorCode error) {
+            return new Outcome(false, null, error);
+        }
+    }
+
+    /**
+     * Sends one batch and returns one outcome per delivery, in order. Throwing
+     * means the whole batch failed (network error, FCM not initialised, ...).
+     */
+    @FunctionalInterface
+    public interface FcmTransport {
+        List<Outcome> sendBatch(List<Delivery> batch) throws Exception;
+    }
+
+    /**
+     * Removes a token FCM reported as no longer valid.
+     */
+    @FunctionalInterface
+    public interface TokenCleaner {
+        void removeToken(String token);
+    }
+
+    /**
+     * Unread count shown as the app icon badge.
+     */
+    @FunctionalInterface
+    public interface BadgeCounter {
+        long unreadCount(String userId);
+    }
+
+    private final FcmTransport transport;
+    private final TokenCleaner tokenCleaner;
+    private final BadgeCounter badgeCounter;
+    private final int workers;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final BlockingQueue<Delivery> queue;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong invalidTokens = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    @Autowired
+    public FcmDispatcher(MongoTemplate mongoTemplate, InboxService inboxService,
+            @Value("${fcm.transport:firebase}") String transport,
+            @Value("${fcm.dispatch.workers:2}") int workers,
+            @Value("${fcm.dispatch.queue-capacity:10000}") int queueCapacity,
+            @Value("${fcm.dispatch.max-attempts:4}") int maxAttempts,
+            @Value("${fcm.dispatch.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this("local".equalsIgnoreCase(transport) ? new LocalFcmTransport() : FcmDispatcher::sendViaFirebase,
+                token -> removeTokenFromUsers(mongoTemplate, token), inboxService::getUnreadCount,
+                workers, queueCapacity, maxAttempts, retryBackoffMs);
+    }
+
+    public FcmDispatcher(FcmTransport transport, TokenCleaner tokenCleaner, int workers, int queueCapacity,
+            int maxAttempts, long retryBackoffMs) {
+        this(transport, tokenCleaner, userId -> 1, workers, queueCapacity, maxAttempts, retryBackoffMs);
+    }
+
+    public FcmDispatcher(FcmTransport transport, TokenCleaner tokenCleaner, BadgeCounter badgeCounter,
+            int workers, int queueCapacity, int maxAttempts, long retryBackoffMs) {
+        this.transport = transport;
+        this.tokenCleaner = tokenCleaner;
+        this.badgeCounter = badgeCounter;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(1, retryBackoffMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fcm-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::workLoop, "fcm-dispatch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workerThreads.add(worker);
+        }
+    }
+
+    /**
+     * Stop accepting work; deliveries still queued or waiting for a retry are
+     * dropped.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        for (Thread worker : workerThreads) {
+            worker.interrupt();
+        }
+        for (Thread worker : workerThreads) {
+            try {
+                worker.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queue a push for delivery.
+     *
+     * @return false if the queue is full and the push was dropped
+     */
+    public boolean enqueue(Delivery delivery) {
+        if (queue.offer(delivery)) {
+            return true;
+        }
+        long total = dropped.incrementAndGet();
+        if (total == 1 || total % 1000 == 0) {
+            log.warn("[FCM] Dispatch queue full, {} notifications dropped so far", total);
+        }
+        return false;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("retried", retried.get());
+        stats.put("invalidTokensRemoved", invalidTokens.get());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+
+    private void workLoop() {
+        List<Delivery> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                Delivery first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[FCM] Dispatch worker error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void dispatch(List<Delivery> batch) {
+        resolveBadges(batch);
+        List<Outcome> outcomes;
+        try {
+            outcomes = transport.sendBatch(batch);
+        } catch (Exception e) {
+            boolean transientFailure = e instanceof IOException
+                    || (e instanceof FirebaseMessagingException fme && RETRYABLE.contains(fme.getMessagingErrorCode()));
+            log.warn("[FCM] Batch of {} failed ({}): {}", batch.size(),
+                    transientFailure ? "will retry" : "dropped", e.getMessage());
+            for (Delivery delivery : batch) {
+                if (transientFailure) {
+                    retryOrFail(delivery);
+                } else {
+                    failed.incrementAndGet();
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Delivery delivery = batch.get(i);
+            Outcome outcome = i < outcomes.size() ? outcomes.get(i) : Outcome.failed(null);
+            MessagingErrorCode error = outcome.error();
+            if (outcome.success()) {
+                sent.incrementAndGet();
+            } else if (RETRYABLE.contains(error)) {
+                retryOrFail(delivery);
+            } else if (INVALID_TOKEN.contains(error) && delivery.token() != null) {
+                invalidTokens.incrementAndGet();
+                try {
+                    tokenCleaner.removeToken(delivery.token());
+                } catch (Exception e) {
+                    log.warn("[FCM] Could not remove invalid token: {}", e.getMessage());
+                }
+            } else {
+                failed.incrementAndGet();
+                log.debug("[FCM] Delivery failed with {}", error);
+            }
+        }
+    }
+
+    /**
+     * Replace each badge delivery with its message built for the user's
+     * unread count (at least 1, so a push that is not an inbox item still
+     * shows). The fallback message is kept if the count cannot be read.
+     */
+    private void resolveBadges(List<Delivery> batch) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Delivery delivery = batch.get(i);
+            if (delivery.badgeUserId() == null) {
+                continue;
+            }
+            Integer badge = counts.computeIfAbsent(delivery.badgeUserId(), userId -> {
+                try {
+                    return (int) Math.max(1, Math.min(badgeCounter.unreadCount(userId), Integer.MAX_VALUE));
+                } catch (Exception e) {
+                    log.debug("[FCM] Badge count for {} unavailable: {}", userId, e.getMessage());
+                    return null;
+                }
+            });
+            batch.set(i, delivery.withMessage(badge != null ? delivery.withBadge().apply(badge) : delivery.message()));
+        }
+    }
+
+    private void retryOrFail(Delivery delivery) {
+        if (delivery.attempt() >= maxAttempts || !running) {
+            failed.incrementAndGet();
+            return;
+        }
+        retried.incrementAndGet();
+        long backoff = Math.min(MAX_BACKOFF_MS, retryBackoffMs << (delivery.attempt() - 1));
+        try {
+            retryScheduler.schedule(() -> enqueue(delivery.nextAttempt()), backoff, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            failed.incrementAndGet(); // scheduler shut down
+        }
+    }
+
+    private static List<Outcome> sendViaFirebase(List<Delivery> batch) throws FirebaseMessagingException {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (Delivery delivery : batch) {
+            messages.add(delivery.message());
+        }
+        BatchResponse response = FirebaseMessaging.getInstance().sendEach(messages);
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        for (SendResponse result : response.getResponses()) {
+            outcomes.add(result.isSuccessful()
+                    ? Outcome.sent(result.getMessageId())
+                    : Outcome.failed(result.getException().getMessagingErrorCode()));
+        }
+        return outcomes;
+    }
+
+    private static void removeTokenFromUsers(MongoTemplate mongoTemplate, String token) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("fcmToken").is(token)),
+                new Update().unset("fcmToken").inc("version", 1),
+                User.class);
+    }
+}
@@ -2,16 +2,23 @@ package com.studencollabfin.server.service;
 
 import com.google.firebase.messaging.AndroidConfig;
 import com.google.firebase.messaging.AndroidNotification;
-import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
 import com.studencollabfin.server.model.User;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.function.IntFunction;
 
+/**
+ * Builds FCM messages and hands them to {@link FcmDispatcher}; nothing here
+ * waits on FCM or reads the database, so it is safe to call from request and
+ * STOMP threads.
+ */
 @Service
+@RequiredArgsConstructor
 public class FcmNotificationService {
 
     public static final String TYPE_INBOX = "INBOX";
@@ -24,12 +31,16 @@ public class FcmNotificationService {
     public static final String CHANNEL_POLLS = "polls";
     public static final String CHANNEL_IMPORTANT = "channel_important";
 
+    private final FcmDispatcher fcmDispatcher;
+
     /**
      * Send notification to a specific user token with preference checks.
      * Enforces user notification preferences for INBOX and DM types.
      * Topics (POLL, POD) are not filtered here - they're handled client-side.
+     *
+     * @return true if the notification was queued for delivery
      */
-    public String sendToToken(
+    public boolean sendToToken(
             String token,
             String title,
             String body,
@@ -38,7 +49,7 @@ public class FcmNotificationService {
             String androidTag,
             User user) {
         if (token == null || token.isBlank()) {
-            return null;
+            return false;
         }
 
         // ✅ PREFERENCE CHECK: Enforce user notification settings
@@ -48,33 +59,41 @@ public class FcmNotificationService {
 
             if (TYPE_INBOX.equals(type) && !prefs.isAllowInbox()) {
                 System.out.println("⏭️ [FCM] INBOX notification blocked by user preference");
-                return null;
+                return false;
             }
             if (TYPE_DM.equals(type) && !prefs.isAllowDMs()) {
                 System.out.println("⏭️ [FCM] DM notification blocked by user preference");
-                return null;
+                return false;
             }
         }
 
         Map<String, String> safeData = (data == null) ? Collections.emptyMap() : data;
+        IntFunction<Message> withBadge = badge -> tokenMessage(token, title, body, safeData, androidTag, badge);
+
+        // 🔔 BADGE COUNT: Unread inbox items from the maintained counter, read
+        // by the dispatcher worker; without a user the badge is just 1
+        if (user == null || user.getId() == null) {
+            return fcmDispatcher.enqueue(FcmDispatcher.Delivery.toToken(withBadge.apply(1), token));
+        }
+        return fcmDispatcher.enqueue(
+                FcmDispatcher.Delivery.toUser(withBadge.apply(1), token, user.getId(), withBadge));
+    }
 
+    private static Message tokenMessage(String token, String title, String body, Map<String, String> data,
+            String androidTag, int badge) {
         AndroidNotification.Builder androidNotif = AndroidNotification.builder();
         if (androidTag != null && !androidTag.isBlank()) {
             androidNotif.setTag(androidTag);
         }
         androidNotif.setChannelId(CHANNEL_IMPORTANT);
-
-        // 🔔 BADGE COUNT: Set notification count for app icon badge
-        // TODO: Calculate actual unread count (DMs + Inbox) from UserService
-        // For now, using 1 to indicate new notification
-        androidNotif.setNotificationCount(1);
+        androidNotif.setNotificationCount(badge);
 
         // 🎯 CLICK ACTION: Essential for Flutter notification handling
         androidNotif.setClickAction("FLUTTER_NOTIFICATION_CLICK");
 
-        Message msg = Message.builder()
+        return Message.builder()
                 .setToken(token)
-                .putAllData(safeData)
+                .putAllData(data)
                 .setNotification(Notification.builder()
                         .setTitle(title)
                         .setBody(body)
@@ -84,16 +103,14 @@ public class FcmNotificationService {
                         .setNotification(androidNotif.build())
                         .build())
                 .build();
-
-        try {
-            return FirebaseMessaging.getInstance().send(msg);
-        } catch (Exception e) {
-            System.err.println("❌ [FCM] sendToToken failed: " + e.getMessage());
-            return null;
-        }
     }
 
-    public String sendToTopic(
+    /**
+     * Queue a notification for every device subscribed to a topic.
+     *
+     * @return true if the notification was queued for delivery
+     */
+    public boolean sendToTopic(
             String topic,
             String title,
             String body,
@@ -101,7 +118,7 @@ public class FcmNotificationService {
             String androidChannelId,
             String androidTag) {
         if (topic == null || topic.isBlank()) {
-            return null;
+            return false;
         }
 
         Map<String, String> safeData = (data == null) ? Collections.emptyMap() : data;
@@ -131,12 +148,7 @@ public class FcmNotificationService {
                         .build())
                 .build();
 
-        try {
-            return FirebaseMessaging.getInstance().send(msg);
-        } catch (Exception e) {
-            System.err.println("❌ [FCM] sendToTopic failed: " + e.getMessage());
-            return null;
-        }
+        return fcmDispatcher.enqueue(FcmDispatcher.Delivery.toTopic(msg, topic));
     }
 
     /**
@@ -144,7 +156,7 @@ public class FcmNotificationService {
      * New code should use the version with User parameter for preference
      * enforcement.
      */
-    public String sendToToken(
+    public boolean sendToToken(
             String token,
             String title,
             String body,
@@ -4,9 +4,19 @@ import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.model.XPAction;
 import com.studencollabfin.server.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -14,6 +24,9 @@ import java.util.Map;
 public class GamificationService {
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MongoTemplate mongoTemplate;
+
+    static final int XP_PER_LEVEL = 100;
 
     public void addXp(String userId, int points) {
         if (points <= 0) {
@@ -73,16 +86,23 @@ public class GamificationService {
         System.out.println("💰 [GamificationService] Points to award: " + adjustedPoints + " (base: " + basePoints
                 + " * multiplier: " + user.getXpMultiplier() + ")");
 
-        user.setXp(user.getXp() + adjustedPoints);
-        user.setTotalXp(user.getTotalXp() + adjustedPoints);
-
-        while (user.getXp() >= 100) {
-            user.setXp(user.getXp() - 100);
-            user.setLevel(user.getLevel() + 1);
+        // Atomic $inc-style update; returns the document as it was just before it
+        User before = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                xpUpdate(adjustedPoints),
+                FindAndModifyOptions.options().returnNew(false),
+                User.class);
+        if (before == null) {
+            System.out.println("⚠️  [GamificationService] User vanished before XP update! userId: " + userId);
+            return;
+        }
+        user = before;
+        oldLevel = before.getLevel();
+        applyXpLocally(user, adjustedPoints);
+        if (user.getLevel() > oldLevel) {
             System.out.println("⬆️  [GamificationService] LEVEL UP! New level: " + user.getLevel());
         }
 
-        userRepository.save(user);
         System.out.println("✅ [GamificationService] User saved - New Level: " + user.getLevel() + ", New XP: "
                 + user.getXp() + ", Total XP: " + user.getTotalXp());
 
@@ -107,6 +127,44 @@ public class GamificationService {
         }
     }
 
+    /**
+     * Pipeline update adding XP and rolling every full XP_PER_LEVEL into a level,
+     * evaluated server-side so concurrent awards never lose points. It also bumps
+     * the @Version field so a concurrent whole-document save of the same user
+     * fails and retries instead of writing back stale XP.
+     */
+    static AggregationUpdate xpUpdate(int points) {
+        Document newXp = new Document("$add", List.of(new Document("$ifNull", List.of("$xp", 0)), points));
+        Document levelsGained = new Document("$cond", Arrays.asList(
+                new Document("$gte", List.of(newXp, XP_PER_LEVEL)),
+                new Document("$toInt", new Document("$floor",
+                        new Document("$divide", List.of(newXp, XP_PER_LEVEL)))),
+                0));
+        Document set = new Document()
+                .append("xp", new Document("$subtract", List.of(newXp,
+                        new Document("$multiply", List.of(levelsGained, XP_PER_LEVEL)))))
+                .append("level", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$level", 0)), levelsGained)))
+                .append("totalXp", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$totalXp", 0)), points)))
+                .append("version", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$version", 0L)), 1L)));
+        return AggregationUpdate.from(List.of(Aggregation.stage(new Document("$set", set))));
+    }
+
+    /**
+     * Mirror xpUpdate on an in-memory copy (used to build the broadcast payload
+     * from the pre-update document).
+     */
+    static void applyXpLocally(User user, int points) {
+        int newXp = user.getXp() + points;
+        int levelsGained = newXp >= XP_PER_LEVEL ? newXp / XP_PER_LEVEL : 0;
+        user.setXp(newXp - levelsGained * XP_PER_LEVEL);
+        user.setLevel(user.getLevel() + levelsGained);
+        user.setTotalXp(user.getTotalXp() + points);
+        user.setVersion(user.getVersion() != null ? user.getVersion() + 1 : 1L);
+    }
+
     /**
      * Get current XP status for a user
      *
@@ -126,13 +184,15 @@ public class GamificationService {
      */
     @SuppressWarnings("null")
     public void setXpMultiplier(String userId, double multiplier) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setXpMultiplier(multiplier);
-            userRepository.save(user);
-
+        User user = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().set("xpMultiplier", multiplier).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (user != null) {
             // Notify user of multiplier update
             messagingTemplate.convertAndSendToUser(
                     userId, "/topic/xp-updates", user);
-        });
+        }
     }
 }
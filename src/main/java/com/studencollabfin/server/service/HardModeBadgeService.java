@@ -7,6 +7,12 @@ import com.studencollabfin.server.repository.AchievementRepository;
 import com.studencollabfin.server.repository.HardModeBadgeRepository;
 import com.studencollabfin.server.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -16,6 +22,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Hard-Mode Badge System Service
@@ -27,12 +34,16 @@ import java.util.stream.Collectors;
 public class HardModeBadgeService {
 
     private static final ZoneId ZONE_IST = ZoneId.of("Asia/Kolkata");
+    private static final int MAINTENANCE_BATCH_SIZE = 500;
+    // Badges lost when the login streak breaks: Profile Perfectionist, Streak Seeker
+    private static final List<String> MAINTENANCE_BADGES = List.of("profile-perfectionist", "streak-seeker-lvl3");
 
     private final HardModeBadgeRepository hardModeBadgeRepository;
     private final UserRepository userRepository;
     private final AchievementRepository achievementRepository;
     private final GamificationService gamificationService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MongoTemplate mongoTemplate;
 
     // ==================== BADGE DEFINITIONS ====================
 
@@ -257,9 +268,16 @@ public class HardModeBadgeService {
             return;
         }
 
-        badge.setUnlocked(true);
-        badge.setUnlockedAt(LocalDateTime.now());
-        hardModeBadgeRepository.save(badge);
+        // Conditional, so a concurrent award of the same badge (or a progress
+        // $inc in between) neither fails nor grants the rewards twice
+        badge = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(badge.getId()).and("isUnlocked").is(false)),
+                new Update().set("isUnlocked", true).set("unlockedAt", LocalDateTime.now()).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                HardModeBadge.class);
+        if (badge == null) {
+            return;
+        }
 
         persistHardModeBadgeEarned(userId, badgeId);
         awardHardModeUnlockRewards(userId, badge);
@@ -285,11 +303,13 @@ public class HardModeBadgeService {
 
         LocalDate today = LocalDate.now(ZONE_IST);
 
-        // If lastUnlockDate is not today, reset count
+        // If lastUnlockDate is not today, reset count. Targeted and guarded on
+        // the date, so a concurrent reset or unlock from today is never undone
         if (user.getLastUnlockDate() == null || !user.getLastUnlockDate().isEqual(today)) {
-            user.setDailyUnlocksCount(0);
-            user.setLastUnlockDate(today);
-            userRepository.save(user);
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(userId).and("lastUnlockDate").ne(today)),
+                    new Update().set("dailyUnlocksCount", 0).set("lastUnlockDate", today).inc("version", 1),
+                    User.class);
             return true;
         }
 
@@ -348,37 +368,43 @@ public class HardModeBadgeService {
             return result;
         }
 
-        // Check daily limit
+        // Check daily limit (resets the daily counter on a new day)
         if (!canUnlockMoreToday(userId)) {
-            // Save to locked list for later
-            if (!user.getHardModeBadgesLocked().contains(badgeId)) {
-                user.getHardModeBadgesLocked().add(badgeId);
-                userRepository.save(user);
-            }
+            return pendingUnlock(userId, badgeId, result);
+        }
 
+        // Equip the badge; conditional, so two concurrent unlocks of the same
+        // badge cannot both equip it and spend two daily slots
+        HardModeBadge equipped = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(badge.getId()).and("isEquipped").is(false)),
+                new Update().set("isEquipped", true).set("equippedAt", LocalDateTime.now()).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                HardModeBadge.class);
+        if (equipped == null) {
             result.put("success", false);
-            result.put("status", "pending-unlock");
-            result.put("message", "Daily unlock limit reached. Badge waiting for tomorrow.");
-            result.put("remainingTime", getTimeUntilMidnight());
+            result.put("message", "Badge already equipped");
             return result;
         }
-
-        // Equip the badge
-        badge.setEquipped(true);
-        badge.setEquippedAt(LocalDateTime.now());
-        hardModeBadgeRepository.save(badge);
-
-        // Add to user's hard-mode badges and increment daily count
-        if (!user.getHardModeBadgesEarned().contains(badgeId)) {
-            user.getHardModeBadgesEarned().add(badgeId);
+        badge = equipped;
+
+        // Spend one of today's unlocks and record the badge on the user. The
+        // filter re-checks the limit, so concurrent unlocks cannot both take the
+        // last slot; the loser un-equips its badge and queues it for tomorrow
+        long claimed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(userId)
+                        .and("lastUnlockDate").is(LocalDate.now(ZONE_IST))
+                        .and("dailyUnlocksCount").lt(2)),
+                new Update().inc("dailyUnlocksCount", 1)
+                        .addToSet("hardModeBadgesEarned", badgeId)
+                        .pull("hardModeBadgesLocked", badgeId)
+                        .inc("version", 1),
+                User.class).getModifiedCount();
+        if (claimed == 0) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(badge.getId())),
+                    new Update().set("isEquipped", false).unset("equippedAt").inc("version", 1),
+                    HardModeBadge.class);
+            return pendingUnlock(userId, badgeId, result);
         }
-        if (user.getHardModeBadgesLocked().contains(badgeId)) {
-            user.getHardModeBadgesLocked().remove(badgeId);
-        }
-
-        user.setDailyUnlocksCount(user.getDailyUnlocksCount() + 1);
-        user.setLastUnlockDate(LocalDate.now(ZONE_IST));
-        userRepository.save(user);
 
         // Broadcast unlock via WebSocket
         broadcastBadgeUnlock(userId, badge);
@@ -392,6 +418,19 @@ public class HardModeBadgeService {
         return result;
     }
 
+    /**
+     * Queue a badge for the midnight retry once today's unlocks are used up.
+     */
+    private Map<String, Object> pendingUnlock(String userId, String badgeId, Map<String, Object> result) {
+        updateUser(userId, new Update().addToSet("hardModeBadgesLocked", badgeId));
+
+        result.put("success", false);
+        result.put("status", "pending-unlock");
+        result.put("message", "Daily unlock limit reached. Badge waiting for tomorrow.");
+        result.put("remainingTime", getTimeUntilMidnight());
+        return result;
+    }
+
     /**
      * Check individual badge unlock criteria and auto-unlock if met.
      */
@@ -464,19 +503,7 @@ public class HardModeBadgeService {
 
     private void persistHardModeBadgeEarned(String userId, String badgeId) {
         try {
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
-                return;
-            }
-
-            if (user.getHardModeBadgesEarned() == null) {
-                user.setHardModeBadgesEarned(new ArrayList<>());
-            }
-
-            if (!user.getHardModeBadgesEarned().contains(badgeId)) {
-                user.getHardModeBadgesEarned().add(badgeId);
-                userRepository.save(user);
-            }
+            updateUser(userId, new Update().addToSet("hardModeBadgesEarned", badgeId));
         } catch (Exception e) {
             System.err.println(
                     "[HardModeBadgeService] ⚠️ Failed to persist hard-mode badge in user doc: " + e.getMessage());
@@ -519,30 +546,21 @@ public class HardModeBadgeService {
     }
 
     private void incrementBadgeProgressAndCheck(String userId, String badgeId) {
-        HardModeBadge badge = hardModeBadgeRepository.findByUserIdAndBadgeId(userId, badgeId).orElse(null);
-        if (badge == null) {
+        long matched = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("userId").is(userId).and("badgeId").is(badgeId)),
+                new Update().inc("progressCurrent", 1).inc("version", 1),
+                HardModeBadge.class).getMatchedCount();
+        if (matched == 0) {
             return;
         }
-
-        badge.setProgressCurrent(badge.getProgressCurrent() + 1);
-        hardModeBadgeRepository.save(badge);
         checkAndUnlockBadgeCriteria(userId, badgeId);
     }
 
     private void incrementUserStatAndCheck(String userId, String statKey, String badgeId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
+        if (updateUser(userId, new Update().inc("statsMap." + statKey, 1)) == null) {
             return;
         }
 
-        if (user.getStatsMap() == null) {
-            user.setStatsMap(new HashMap<>());
-        }
-
-        int currentValue = user.getStatsMap().getOrDefault(statKey, 0);
-        user.getStatsMap().put(statKey, currentValue + 1);
-        userRepository.save(user);
-
         checkAndUnlockBadgeCriteria(userId, badgeId);
     }
 
@@ -645,14 +663,6 @@ public class HardModeBadgeService {
      * Track a reply/response action and update relevant badge progress.
      */
     public void trackReplyAction(String userId, String replyType, Map<String, Object> metadata) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null)
-            return;
-
-        // Update core metrics
-        user.setTotalReplies(user.getTotalReplies() + 1);
-        user.setWeeklyReplies(user.getWeeklyReplies() + 1);
-
         boolean isMidnight = readBooleanFlag(metadata, "midnight");
         boolean isFast = readBooleanFlag(metadata, "fast");
         boolean isHelp = readBooleanFlag(metadata, "help");
@@ -668,11 +678,13 @@ public class HardModeBadgeService {
             isHelp = true;
         }
 
-        // Update badge progress based on context and reply type
+        // Update core metrics and badge progress with one $inc, so concurrent
+        // replies by the same user are all counted
+        Update counters = new Update().inc("totalReplies", 1).inc("weeklyReplies", 1);
+        int helpIncrements = 0;
         switch (replyType) {
             case "help-needed-first-reply":
-                user.getStatsMap().put("helpNeededReplies",
-                        user.getStatsMap().getOrDefault("helpNeededReplies", 0) + 1);
+                helpIncrements++;
                 break;
 
             case "reply":
@@ -681,10 +693,16 @@ public class HardModeBadgeService {
         }
 
         if (isHelp) {
-            user.getStatsMap().put("helpNeededReplies",
-                    user.getStatsMap().getOrDefault("helpNeededReplies", 0) + 1);
+            helpIncrements++;
+        }
+        if (helpIncrements > 0) {
+            counters.inc("statsMap.helpNeededReplies", helpIncrements);
         }
 
+        User user = updateUser(userId, counters);
+        if (user == null)
+            return;
+
         if (isFast) {
             incrementBadgeProgressAndCheck(userId, "ultra-responder");
             incrementBadgeProgressAndCheck(userId, "first-responder");
@@ -700,8 +718,6 @@ public class HardModeBadgeService {
         checkAndUnlockBadgeCriteria(userId, "voice-of-hub-lvl3");
         checkAndUnlockBadgeCriteria(userId, "silent-sentinel");
 
-        userRepository.save(user);
-
         // ✅ BROADCAST STAT UPDATES: Send updated stats to user via WebSocket
         try {
             Map<String, Object> statUpdate = new HashMap<>();
@@ -743,67 +759,131 @@ public class HardModeBadgeService {
      * Track login and update streak.
      */
     public void trackLogin(String userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null)
-            return;
+        // null: nothing to do; otherwise whether the streak was broken
+        Boolean streakBroken = OptimisticRetry.run("trackLogin", () -> {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null)
+                return null;
 
-        LocalDate today = LocalDate.now(ZONE_IST);
-        LocalDate lastLogin = user.getLastLoginDate();
-
-        if (lastLogin == null) {
-            // First login
-            user.setLoginStreak(1);
-            user.setLastLoginDate(today);
-        } else if (lastLogin.isEqual(today)) {
-            // Already logged in today
+            LocalDate today = LocalDate.now(ZONE_IST);
+            LocalDate lastLogin = user.getLastLoginDate();
+            boolean broken = false;
+
+            if (lastLogin == null) {
+                // First login
+                user.setLoginStreak(1);
+                user.setLastLoginDate(today);
+            } else if (lastLogin.isEqual(today)) {
+                // Already logged in today
+                return null;
+            } else if (lastLogin.plusDays(1).isEqual(today)) {
+                // Consecutive day
+                user.setLoginStreak(user.getLoginStreak() + 1);
+                user.setLastLoginDate(today);
+            } else {
+                // Streak broken
+                user.setLoginStreak(1);
+                user.setLastLoginDate(today);
+                broken = true;
+            }
+
+            userRepository.save(user);
+            return broken;
+        });
+        if (streakBroken == null)
             return;
-        } else if (lastLogin.plusDays(1).isEqual(today)) {
-            // Consecutive day
-            user.setLoginStreak(user.getLoginStreak() + 1);
-            user.setLastLoginDate(today);
-        } else {
-            // Streak broken
-            user.setLoginStreak(1);
-            user.setLastLoginDate(today);
 
+        if (streakBroken) {
             // Remove maintenance badges
             removeBadgesRequiringMaintenance(userId);
         }
-
-        userRepository.save(user);
         checkAndUnlockBadgeCriteria(userId, "streak-seeker-lvl3");
     }
 
     /**
-     * Scheduled task to run at midnight - reset daily unlock count and check
+     * Scheduled task to run at midnight - retry pending unlocks and reset broken
      * streaks.
+     *
+     * Streams only the users with work to do (a locked badge, or a streak whose
+     * last login is before yesterday) with a projection, and resets streaks
+     * MAINTENANCE_BATCH_SIZE users at a time: one bulk user write and one
+     * multi-update of their maintenance badges per batch.
      */
     @Scheduled(cron = "0 0 0 * * *", zone = "Asia/Kolkata") // Every day at midnight IST
     public void midnightMaintenanceTask() {
         System.out.println("[HardModeBadgeService] 🌙 Running midnight maintenance...");
+        long startedAt = System.currentTimeMillis();
+        LocalDate yesterdayIst = LocalDate.now(ZONE_IST).minusDays(1);
+
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("hardModeBadgesLocked.0").exists(true),
+                Criteria.where("loginStreak").gt(0).and("lastLoginDate").lt(yesterdayIst)));
+        query.fields().include("hardModeBadgesLocked", "loginStreak", "lastLoginDate");
+
+        int scanned = 0;
+        int unlockAttempts = 0;
+        int streaksReset = 0;
+        int failures = 0;
+        List<String> brokenStreaks = new ArrayList<>(MAINTENANCE_BATCH_SIZE);
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                User user = it.next();
+                scanned++;
+
+                // Unlock any pending badges from yesterday; one user's failure
+                // must not end the run for everyone after them
+                if (!user.getHardModeBadgesLocked().isEmpty()) {
+                    unlockAttempts++;
+                    try {
+                        tryUnlockBadge(user.getId(), user.getHardModeBadgesLocked().get(0));
+                    } catch (Exception e) {
+                        failures++;
+                        System.err.println("[HardModeBadgeService] ⚠️ Pending unlock failed for user "
+                                + user.getId() + ": " + e.getMessage());
+                    }
+                }
 
-        // Unlock any pending badges from yesterday
-        List<User> allUsers = userRepository.findAll();
-        LocalDate todayIst = LocalDate.now(ZONE_IST);
-        for (User user : allUsers) {
-            if (!user.getHardModeBadgesLocked().isEmpty()) {
-                String firstLockedBadge = user.getHardModeBadgesLocked().get(0);
-                tryUnlockBadge(user.getId(), firstLockedBadge);
-            }
-
-            // Check streak
-            LocalDate lastLogin = user.getLastLoginDate();
-            if (lastLogin != null && !lastLogin.isEqual(todayIst)) {
-                if (user.getLoginStreak() > 0) {
-                    System.out.println("[HardModeBadgeService] ⚠️ Login streak broken for user: " + user.getId());
-                    user.setLoginStreak(0);
-                    removeBadgesRequiringMaintenance(user.getId());
-                    userRepository.save(user);
+                LocalDate lastLogin = user.getLastLoginDate();
+                if (user.getLoginStreak() > 0 && lastLogin != null && lastLogin.isBefore(yesterdayIst)) {
+                    brokenStreaks.add(user.getId());
+                    if (brokenStreaks.size() == MAINTENANCE_BATCH_SIZE) {
+                        int reset = resetBrokenStreaksSafely(brokenStreaks, yesterdayIst);
+                        streaksReset += Math.max(reset, 0);
+                        failures += reset < 0 ? brokenStreaks.size() : 0;
+                        brokenStreaks.clear();
+                    }
                 }
             }
+        } finally {
+            // Flush the last batch even if the cursor itself failed
+            if (!brokenStreaks.isEmpty()) {
+                int reset = resetBrokenStreaksSafely(brokenStreaks, yesterdayIst);
+                streaksReset += Math.max(reset, 0);
+                failures += reset < 0 ? brokenStreaks.size() : 0;
+            }
         }
 
-        System.out.println("[HardModeBadgeService] ✅ Midnight maintenance complete");
+        System.out.println("[HardModeBadgeService] ✅ Midnight maintenance complete: durationMs="
+                + (System.currentTimeMillis() - startedAt) + " scanned=" + scanned + " unlockAttempts="
+                + unlockAttempts + " streaksReset=" + streaksReset + " failures=" + failures);
+    }
+
+    /**
+     * {@link #resetBrokenStreaks} for the midnight run: a failed batch is
+     * logged and skipped (its users still match tomorrow) instead of ending
+     * the run.
+     *
+     * @return Number of users reset, or -1 if the batch failed
+     */
+    private int resetBrokenStreaksSafely(List<String> userIds, LocalDate yesterdayIst) {
+        try {
+            return resetBrokenStreaks(userIds, yesterdayIst);
+        } catch (Exception e) {
+            System.err.println("[HardModeBadgeService] ⚠️ Streak reset failed for a batch of " + userIds.size()
+                    + " users: " + e.getMessage());
+            return -1;
+        }
     }
 
     /**
@@ -812,36 +892,97 @@ public class HardModeBadgeService {
     @Scheduled(cron = "0 0 0 * * MON", zone = "Asia/Kolkata") // Every Monday at midnight IST
     public void weeklyResetTask() {
         System.out.println("[HardModeBadgeService] 📅 Resetting weekly reply counts...");
-        List<User> allUsers = userRepository.findAll();
+        long startedAt = System.currentTimeMillis();
 
-        for (User user : allUsers) {
-            user.setWeeklyReplies(0);
-            userRepository.save(user);
+        long modified = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("weeklyReplies").ne(0)),
+                new Update().set("weeklyReplies", 0).inc("version", 1),
+                User.class).getModifiedCount();
+
+        System.out.println("[HardModeBadgeService] ✅ Weekly reset complete: durationMs="
+                + (System.currentTimeMillis() - startedAt) + " usersReset=" + modified);
+    }
+
+    /**
+     * Reset the streaks of one batch of users and un-equip their maintenance
+     * badges. A user who logged in since being read no longer matches the
+     * filter and keeps their streak and their equipped badges.
+     *
+     * @return Number of users whose streak was reset
+     */
+    private int resetBrokenStreaks(List<String> userIds, LocalDate yesterdayIst) {
+        Map<String, List<String>> equippedByUser = new HashMap<>();
+        Map<String, List<String>> badgeDocIdsByUser = new HashMap<>();
+        Query equipped = Query.query(Criteria.where("userId").in(userIds)
+                .and("isEquipped").is(true)
+                .and("badgeId").in(MAINTENANCE_BADGES));
+        for (HardModeBadge badge : mongoTemplate.find(equipped, HardModeBadge.class)) {
+            equippedByUser.computeIfAbsent(badge.getUserId(), id -> new ArrayList<>()).add(badge.getBadgeId());
+            badgeDocIdsByUser.computeIfAbsent(badge.getUserId(), id -> new ArrayList<>()).add(badge.getId());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        for (String userId : userIds) {
+            Update update = new Update().set("loginStreak", 0).inc("version", 1);
+            List<String> badges = equippedByUser.get(userId);
+            if (badges != null) {
+                update.pullAll("hardModeBadgesEarned", badges.toArray());
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(userId)
+                    .and("loginStreak").gt(0)
+                    .and("lastLoginDate").lt(yesterdayIst)), update);
+        }
+        int reset = bulk.execute().getModifiedCount();
+        if (reset == 0 || badgeDocIdsByUser.isEmpty()) {
+            return reset;
         }
 
-        System.out.println("[HardModeBadgeService] ✅ Weekly reset complete");
+        // The bulk result does not say which users matched; those whose reset
+        // applied are the ones still showing a zero streak and a stale login
+        Query applied = Query.query(Criteria.where("_id").in(badgeDocIdsByUser.keySet())
+                .and("loginStreak").is(0)
+                .and("lastLoginDate").lt(yesterdayIst));
+        applied.fields().include("_id");
+        List<String> badgeDocIds = new ArrayList<>();
+        for (User user : mongoTemplate.find(applied, User.class)) {
+            badgeDocIds.addAll(badgeDocIdsByUser.get(user.getId()));
+        }
+        if (!badgeDocIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(badgeDocIds)),
+                    new Update().set("isEquipped", false).inc("version", 1), HardModeBadge.class);
+        }
+        return reset;
     }
 
     /**
      * Auto-remove badges that require active maintenance if criteria no longer met.
      */
     private void removeBadgesRequiringMaintenance(String userId) {
-        // Remove: Profile Perfectionist, Streak Seeker
         hardModeBadgeRepository.findByUserIdAndIsEquippedTrue(userId).forEach(badge -> {
-            if (badge.getBadgeId().equals("profile-perfectionist") ||
-                    badge.getBadgeId().equals("streak-seeker-lvl3")) {
-                badge.setEquipped(false);
-                hardModeBadgeRepository.save(badge);
-
-                User user = userRepository.findById(userId).orElse(null);
-                if (user != null) {
-                    user.getHardModeBadgesEarned().remove(badge.getBadgeId());
-                    userRepository.save(user);
-                }
+            if (MAINTENANCE_BADGES.contains(badge.getBadgeId())) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(badge.getId())),
+                        new Update().set("isEquipped", false).inc("version", 1), HardModeBadge.class);
+
+                updateUser(userId, new Update().pull("hardModeBadgesEarned", badge.getBadgeId()));
             }
         });
     }
 
+    /**
+     * Targeted update of a user's counters/lists. Bumps the version so a
+     * concurrent whole-document save of the same user conflicts instead of
+     * writing back stale values.
+     *
+     * @return the updated user, or null if it does not exist
+     */
+    private User updateUser(String userId, Update update) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                update.inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+
     /**
      * Check if profile is maintained (all fields filled + updated within 30 days).
      */
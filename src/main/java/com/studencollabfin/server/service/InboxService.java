@@ -0,0 +1,258 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.Inbox;
+import com.studencollabfin.server.model.InboxCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * InboxService: Paged inbox reads and the per-user unread counter.
+ *
+ * Pages are ordered by (timestamp, _id) descending and served by the
+ * {userId: 1, timestamp: -1, _id: -1} index; broadcast items visible to the
+ * user are merged into the same order. The unread count is the user's
+ * {@link InboxCounter} (incremented on create, decremented on read,
+ * recounted after deletes) plus their unread broadcasts.
+ *
+ * Bulk mutations are single multi-document operations filtered on userId, so
+ * a caller can only touch their own items and clearing a large inbox is one
+ * round-trip.
+ */
+@Service
+@RequiredArgsConstructor
+public class InboxService {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 30;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Comparator<Inbox> NEWEST_FIRST = Comparator
+            .comparing(Inbox::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Inbox::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+    private final BroadcastInboxService broadcastInboxService;
+
+    /**
+     * Keyset position of one inbox item: its timestamp and id.
+     */
+    public record InboxCursor(LocalDateTime timestamp, String id) {
+
+        public String toCursor() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws IllegalArgumentException if the cursor is malformed
+         */
+        public static InboxCursor fromCursor(String cursor) {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed inbox cursor");
+            }
+            try {
+                return new InboxCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+            } catch (java.time.format.DateTimeParseException e) {
+                throw new IllegalArgumentException("Malformed inbox cursor", e);
+            }
+        }
+    }
+
+    /**
+     * One page of inbox items, newest first.
+     *
+     * @param nextCursor Cursor to pass as {@code before} for the next (older)
+     *                   page; null when there are no more items
+     */
+    public record InboxPage(List<Inbox> items, String nextCursor) {
+    }
+
+    /**
+     * The newest items older than {@code before} (or the newest items overall).
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public InboxPage getPage(String userId, String before, Integer limit) {
+        int pageSize = limit == null || limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        InboxCursor cursor = before != null && !before.isBlank() ? InboxCursor.fromCursor(before) : null;
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (cursor != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("timestamp").lt(cursor.timestamp()),
+                    Criteria.where("timestamp").is(cursor.timestamp()).and("_id").lt(cursor.id()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "_id")))
+                .limit(pageSize + 1);
+        List<Inbox> items = new ArrayList<>(mongoTemplate.find(query, Inbox.class));
+
+        items.addAll(broadcastInboxService.pageVisibleTo(userId,
+                cursor != null ? cursor.timestamp() : null, cursor != null ? cursor.id() : null, pageSize + 1));
+        items.sort(NEWEST_FIRST);
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+        }
+        Inbox last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return new InboxPage(items,
+                hasMore && last.getTimestamp() != null ? new InboxCursor(last.getTimestamp(), last.getId()).toCursor()
+                        : null);
+    }
+
+    /**
+     * Render a page as a REST response with the cursor in X-Next-Cursor.
+     */
+    public static ResponseEntity<List<Inbox>> toResponse(InboxPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Unread personal items plus unread broadcasts.
+     */
+    public long getUnreadCount(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return 0;
+        }
+        InboxCounter counter = mongoTemplate.findById(userId, InboxCounter.class);
+        long personal = counter != null ? Math.max(0, counter.getUnread()) : recount(userId);
+        return personal + broadcastInboxService.countUnread(userId);
+    }
+
+    /**
+     * Delete the given items, skipping any that belong to someone else;
+     * broadcast ids are dismissed for this user instead.
+     *
+     * @return Number of items deleted or dismissed
+     */
+    public long deleteItems(String userId, Collection<String> ids) {
+        List<String> personalIds = new ArrayList<>(ids.size());
+        List<String> broadcastIds = new ArrayList<>();
+        for (String id : ids) {
+            (BroadcastInboxService.isBroadcastId(id) ? broadcastIds : personalIds).add(id);
+        }
+
+        long deleted = 0;
+        if (!personalIds.isEmpty()) {
+            deleted = mongoTemplate.remove(
+                    Query.query(Criteria.where("userId").is(userId).and("_id").in(personalIds)), Inbox.class)
+                    .getDeletedCount();
+            if (deleted > 0) {
+                recount(userId);
+            }
+        }
+        return deleted + broadcastInboxService.dismiss(broadcastIds, userId);
+    }
+
+    /**
+     * Delete all of a user's items, or only those of one type.
+     *
+     * Visible broadcasts of that type are dismissed as well.
+     *
+     * @param type Type to clear, or null for everything
+     * @return Number of items deleted or dismissed
+     */
+    public long clear(String userId, Inbox.NotificationType type) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (type != null) {
+            criteria = criteria.and("type").is(type);
+        }
+        long deleted = mongoTemplate.remove(Query.query(criteria), Inbox.class).getDeletedCount();
+        if (type == null || deleted > 0) {
+            recount(userId);
+        }
+        return deleted + broadcastInboxService.dismissAll(userId, type);
+    }
+
+    /**
+     * Mark every unread item read, including broadcasts.
+     *
+     * @return Number of items marked read
+     */
+    public long markAllRead(String userId) {
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("read").is(false)),
+                Update.update("read", true), Inbox.class)
+                .getModifiedCount();
+        recount(userId);
+        return updated + broadcastInboxService.markAllRead(userId);
+    }
+
+    /**
+     * Call after saving a new inbox item.
+     */
+    public void onCreated(Inbox item) {
+        if (item != null && !item.isRead() && item.getUserId() != null) {
+            adjust(item.getUserId(), 1);
+        }
+    }
+
+    /**
+     * Call after an item flipped from unread to read.
+     */
+    public void onRead(String userId) {
+        adjust(userId, -1);
+    }
+
+    /**
+     * Call after deleting an item.
+     */
+    public void onDeleted(Inbox item) {
+        if (item != null && !item.isRead()) {
+            adjust(item.getUserId(), -1);
+        }
+    }
+
+    /**
+     * Reset the counter from the inbox itself; used after bulk deletes and
+     * mark-all-read, where an item created concurrently would be lost by
+     * simply setting the counter to 0.
+     */
+    public long recount(String userId) {
+        long unread = mongoTemplate.count(
+                Query.query(Criteria.where("userId").is(userId).and("read").is(false)), Inbox.class);
+        setUnread(userId, unread);
+        return unread;
+    }
+
+    private void setUnread(String userId, long unread) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                Update.update("unread", unread), InboxCounter.class);
+    }
+
+    public void forget(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(userId)), InboxCounter.class);
+    }
+
+    private void adjust(String userId, long delta) {
+        if (userId == null) {
+            return;
+        }
+        // A missing counter is created by the first getUnreadCount via recount,
+        // so only adjust existing ones; upserting here would start from 0 and
+        // ignore items created before the counter existed
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("unread", delta), InboxCounter.class);
+    }
+}
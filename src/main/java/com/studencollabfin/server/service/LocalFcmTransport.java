@@ -0,0 +1,73 @@
+package com.studencollabfin.server.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for FCM, selected with fcm.transport=local.
+ *
+ * Nothing leaves the machine: every delivery is recorded and logged. Tests can
+ * script failures per token (or per topic) with {@link #failNext}; each
+ * scripted error is consumed by one send, after which the target succeeds.
+ */
+@Slf4j
+public class LocalFcmTransport implements FcmDispatcher.FcmTransport {
+
+    private final List<FcmDispatcher.Delivery> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Deque<MessagingErrorCode>> scriptedErrors = new ConcurrentHashMap<>();
+
+    /**
+     * Make the next sends to this token or topic fail with the given errors, in order.
+     */
+    public void failNext(String target, MessagingErrorCode... errors) {
+        Deque<MessagingErrorCode> queue = scriptedErrors.computeIfAbsent(target, t -> new ArrayDeque<>());
+        synchronized (queue) {
+            queue.addAll(List.of(errors));
+        }
+    }
+
+    /**
+     * Deliveries that were accepted, in send order.
+     */
+    public List<FcmDispatcher.Delivery> delivered() {
+        synchronized (delivered) {
+            return List.copyOf(delivered);
+        }
+    }
+
+    @Override
+    public List<FcmDispatcher.Outcome> sendBatch(List<FcmDispatcher.Delivery> batch) {
+        List<FcmDispatcher.Outcome> outcomes = new ArrayList<>(batch.size());
+        for (FcmDispatcher.Delivery delivery : batch) {
+            String target = delivery.token() != null ? delivery.token() : delivery.topic();
+            MessagingErrorCode error = nextScriptedError(target);
+            if (error != null) {
+                outcomes.add(FcmDispatcher.Outcome.failed(error));
+                continue;
+            }
+            delivered.add(delivery);
+            log.debug("[FCM-LOCAL] Delivered to {} (attempt {})", target, delivery.attempt());
+            outcomes.add(FcmDispatcher.Outcome.sent("local-" + UUID.randomUUID()));
+        }
+        return outcomes;
+    }
+
+    private MessagingErrorCode nextScriptedError(String target) {
+        Deque<MessagingErrorCode> queue = target != null ? scriptedErrors.get(target) : null;
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            return queue.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.Message;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * MessageHistoryService: Keyset pagination over a conversation's messages.
+ *
+ * Pages are ordered by (sentAt, _id) and served by the
+ * {conversationId: 1, sentAt: 1, _id: 1} index, so loading an older page
+ * costs the same however far back the client has scrolled. Pod chats use the
+ * podId as conversationId, so both DMs and pods page through this service.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageHistoryService {
+
+    public static final String PREV_CURSOR_HEADER = "X-Prev-Cursor";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 100;
+    public static final int MAX_SYNC_LIMIT = 500;
+
+    // How long a seq gap may be caused by a synchronous writer (DM send, REST or
+    // system pod message) between reserving its seq and inserting the message
+    static final long IN_FLIGHT_GRACE_MS = 5_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final PodMessageWriteBehind podMessageWriteBehind;
+
+    /**
+     * Keyset position of one message: its sentAt and id.
+     */
+    public record MessageCursor(Date sentAt, String messageId) {
+
+        public static MessageCursor of(Message message) {
+            return new MessageCursor(message.getSentAt(), message.getId());
+        }
+
+        /**
+         * Opaque cursor for "messages before/after this one".
+         */
+        public String toCursor() {
+            String raw = Long.toHexString(sentAt != null ? sentAt.getTime() : 0L) + ":" + messageId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decode a cursor produced by {@link #toCursor()}.
+         *
+         * @throws IllegalArgumentException if the cursor is malformed
+         */
+        public static MessageCursor fromCursor(String cursor) {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed message cursor");
+            }
+            long millis = Long.parseLong(raw.substring(0, sep), 16);
+            return new MessageCursor(new Date(millis), raw.substring(sep + 1));
+        }
+    }
+
+    /**
+     * One page of messages in chronological order.
+     *
+     * @param messages     Messages, oldest first
+     * @param olderCursor  Cursor to pass as {@code before} for the previous page;
+     *                     null when the start of the history has been reached
+     * @param newerCursor  Cursor to pass as {@code after} to fetch newer messages;
+     *                     null when the page is empty
+     */
+    public record MessagePage(List<Message> messages, String olderCursor, String newerCursor) {
+    }
+
+    /**
+     * Messages a client missed, in sequence order.
+     *
+     * @param messages Messages with seq greater than the requested one
+     * @param hasMore  True if more messages follow; ask again from the last seq
+     */
+    public record SyncBatch(List<Message> messages, boolean hasMore) {
+    }
+
+    /**
+     * Clamp a requested page size to [1, MAX_LIMIT], defaulting to DEFAULT_LIMIT.
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Fetch one page of a conversation's history.
+     *
+     * With {@code after}, returns the oldest messages newer than that cursor.
+     * Otherwise returns the newest messages older than {@code before}, or the
+     * latest messages when no cursor is given.
+     *
+     * @throws IllegalArgumentException if a cursor is malformed
+     */
+    public MessagePage getPage(String conversationId, String before, String after, Integer limit) {
+        int pageSize = clampLimit(limit);
+        boolean forward = after != null && !after.isBlank();
+        MessageCursor cursor = forward ? MessageCursor.fromCursor(after)
+                : (before != null && !before.isBlank() ? MessageCursor.fromCursor(before) : null);
+
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (cursor != null) {
+            criteria = criteria.orOperator(
+                    forward ? Criteria.where("sentAt").gt(cursor.sentAt())
+                            : Criteria.where("sentAt").lt(cursor.sentAt()),
+                    forward ? Criteria.where("sentAt").is(cursor.sentAt()).and("_id").gt(cursor.messageId())
+                            : Criteria.where("sentAt").is(cursor.sentAt()).and("_id").lt(cursor.messageId()));
+        }
+        Sort.Direction direction = forward ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = new Query(criteria)
+                .with(Sort.by(direction, "sentAt").and(Sort.by(direction, "_id")))
+                .limit(pageSize);
+
+        List<Message> messages = new ArrayList<>(mongoTemplate.find(query, Message.class));
+        if (!forward) {
+            Collections.reverse(messages);
+        }
+        if (messages.isEmpty()) {
+            return new MessagePage(messages, null, null);
+        }
+
+        // A short backward page means the start of the history was reached
+        boolean mayHaveOlder = forward || messages.size() == pageSize;
+        return new MessagePage(messages,
+                mayHaveOlder ? MessageCursor.of(messages.get(0)).toCursor() : null,
+                MessageCursor.of(messages.get(messages.size() - 1)).toCursor());
+    }
+
+    /**
+     * Delta sync for a reconnecting client: the messages of a conversation with
+     * seq greater than {@code since}, oldest first, served by the
+     * {conversationId: 1, seq: 1} index. Messages stored before sequence
+     * numbers existed have none and are only reachable through getPage.
+     */
+    public SyncBatch getSince(String conversationId, long since, Integer limit) {
+        int batchSize = limit == null || limit < 1 ? MAX_SYNC_LIMIT : Math.min(limit, MAX_SYNC_LIMIT);
+        Query query = new Query(Criteria.where("conversationId").is(conversationId).and("seq").gt(since))
+                .with(Sort.by(Sort.Direction.ASC, "seq"))
+                .limit(batchSize + 1);
+
+        List<Message> messages = new ArrayList<>(mongoTemplate.find(query, Message.class));
+        boolean hasMore = messages.size() > batchSize;
+        if (hasMore) {
+            messages.remove(messages.size() - 1);
+        }
+
+        // A seq can be visible before a lower one that is still being written.
+        // Stop before a gap that will fill: a batch PodMessageWriteBehind is
+        // still inserting (however long Mongo is down), or a synchronous writer
+        // within the grace period. The client's next sync from the last seq
+        // picks the missing message up. Other gaps are numbers that were
+        // reserved but never stored (e.g. a crash) and are skipped.
+        // isInFlight only knows this node's batches: with several nodes, a
+        // batch stuck on another node longer than the grace period is skipped.
+        long expected = since + 1;
+        long inFlightAfter = System.currentTimeMillis() - IN_FLIGHT_GRACE_MS;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getSeq() > expected
+                    && (podMessageWriteBehind.isInFlight(conversationId, expected, message.getSeq())
+                            || (message.getSentAt() != null && message.getSentAt().getTime() > inFlightAfter))) {
+                return new SyncBatch(new ArrayList<>(messages.subList(0, i)), true);
+            }
+            expected = message.getSeq() + 1;
+        }
+        return new SyncBatch(messages, hasMore);
+    }
+
+    /**
+     * Render a sync batch as a REST response with an X-Has-More header.
+     */
+    public static ResponseEntity<List<Message>> toResponse(SyncBatch batch) {
+        return ResponseEntity.ok()
+                .header(HAS_MORE_HEADER, String.valueOf(batch.hasMore()))
+                .body(batch.messages());
+    }
+
+    /**
+     * Render a page as a REST response: the messages as the body and the
+     * cursors as X-Prev-Cursor / X-Next-Cursor headers (omitted when null).
+     */
+    public static ResponseEntity<List<Message>> toResponse(MessagePage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.olderCursor() != null) {
+            response.header(PREV_CURSOR_HEADER, page.olderCursor());
+        }
+        if (page.newerCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.newerCursor());
+        }
+        return response.body(page.messages());
+    }
+}
@@ -0,0 +1,91 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.Message;
+import com.studencollabfin.server.model.MessageSequence;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MessageSequenceService: Per-conversation message sequence numbers for pod
+ * chat (DM conversations keep theirs in Conversation.lastSeq, advanced by the
+ * same write that updates the conversation on send).
+ *
+ * Every stored message gets the next value of its conversation's counter, so a
+ * reconnecting client only needs the highest seq it has seen to ask for what
+ * it missed (see MessageHistoryService#getSince). Counters live in
+ * messageSequences and are advanced with a single upserting $inc, which keeps
+ * them unique across server instances.
+ *
+ * WebSocket pod chat is numbered by PodMessageWriteBehind's flusher through
+ * {@link #assignAll}, one $inc per conversation per batch, so the broadcast
+ * path never waits on the counter.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageSequenceService {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Reserve the next sequence number for a conversation.
+     */
+    public long next(String conversationId) {
+        return reserve(conversationId, 1);
+    }
+
+    /**
+     * Reserve {@code count} consecutive sequence numbers for a conversation.
+     *
+     * @return The last number of the reserved range
+     */
+    public long reserve(String conversationId, int count) {
+        MessageSequence sequence = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(conversationId)),
+                new Update().inc("seq", count),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                MessageSequence.class);
+        return sequence.getSeq();
+    }
+
+    /**
+     * Stamp every message of a batch that has no seq yet, in batch order, with
+     * one counter update per conversation. Messages that already have one (a
+     * retried batch) keep it.
+     */
+    public void assignAll(List<Message> batch) {
+        Map<String, List<Message>> unnumbered = new LinkedHashMap<>();
+        for (Message message : batch) {
+            if (message.getSeq() == null && message.getConversationId() != null) {
+                unnumbered.computeIfAbsent(message.getConversationId(), id -> new ArrayList<>()).add(message);
+            }
+        }
+        for (Map.Entry<String, List<Message>> entry : unnumbered.entrySet()) {
+            List<Message> messages = entry.getValue();
+            long seq = reserve(entry.getKey(), messages.size()) - messages.size();
+            for (Message message : messages) {
+                message.setSeq(++seq);
+            }
+        }
+    }
+
+    /**
+     * Stamp a message with its conversation's next sequence number, unless it
+     * already has one (a retried save must keep its original position).
+     */
+    public Message assign(Message message) {
+        if (message.getSeq() == null && message.getConversationId() != null) {
+            message.setSeq(next(message.getConversationId()));
+        }
+        return message;
+    }
+}
@@ -8,6 +8,11 @@ import com.studencollabfin.server.repository.ConversationRepository;
 import com.studencollabfin.server.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import com.studencollabfin.server.repository.UserRepository;
@@ -39,91 +44,65 @@ public class MessagingService {
     @Autowired
     private ModerationTracker moderationTracker;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MessageHistoryService messageHistoryService;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     public List<Conversation> getUserConversations(String userId) {
         List<Conversation> conversations = conversationRepository.findByParticipantIdsContaining(userId);
 
-        // ✅ NEW: Calculate unread counts for each conversation
+        // Unread counts are maintained on write (sendMessage / markConversationAsRead),
+        // so listing is a pure read; only fill in a 0 for conversations never counted
         for (Conversation conv : conversations) {
-            calculateUnreadCount(conv, userId);
+            if (conv.getUnreadCounts() == null) {
+                conv.setUnreadCounts(new java.util.HashMap<>());
+            }
+            conv.getUnreadCounts().putIfAbsent(userId, 0);
         }
 
         return conversations;
     }
 
     /**
-     * ✅ NEW: Calculate unread message count for a user in a conversation
-     * Count = messages sent AFTER user's last read timestamp
+     * ✅ NEW: Mark messages in a conversation as read by a user
+     * Updates the last read timestamp and resets the unread counter
      */
-    private void calculateUnreadCount(Conversation conv, String userId) {
-        if (conv == null)
-            return;
-
+    public void markConversationAsRead(String conversationId, String userId) {
         try {
-            // Get the user's last read timestamp (default to conversation creation time)
-            Date lastReadTime = conv.getLastReadTimestamps() != null
-                    ? conv.getLastReadTimestamps().get(userId)
-                    : conv.getCreatedAt();
-
-            // Create effectively final variable for lambda expression
-            final Date effectiveLastReadTime = (lastReadTime != null) ? lastReadTime : conv.getCreatedAt();
-
-            // Count messages sent AFTER the last read time
-            List<Message> allMessages = messageRepository.findByConversationIdOrderBySentAtAsc(conv.getId());
-            long unreadCount = allMessages.stream()
-                    .filter(msg -> msg.getSentAt().after(effectiveLastReadTime))
-                    .filter(msg -> !msg.getSenderId().equals(userId)) // Don't count own messages
-                    .count();
-
-            // Initialize unreadCounts map if null
-            if (conv.getUnreadCounts() == null) {
-                conv.setUnreadCounts(new java.util.HashMap<>());
-            }
-
-            // Store unread count
-            conv.getUnreadCounts().put(userId, (int) unreadCount);
-
-            // ✅ FIXED: Persist the calculation back to database
-            conversationRepository.save(conv);
-
-            System.out
-                    .println("[UnreadCount] User: " + userId + ", Conv: " + conv.getId() + ", Unread: " + unreadCount);
+            Date now = new Date();
+            updateConversation(conversationId, new Update()
+                    .set("lastReadTimestamps." + userId, now)
+                    .set("unreadCounts." + userId, 0));
+            System.out.println("[MarkAsRead] User: " + userId + ", Conv: " + conversationId);
         } catch (Exception e) {
-            System.err.println("Error calculating unread count: " + e.getMessage());
-            // Fallback to 0 on error
-            if (conv.getUnreadCounts() == null) {
-                conv.setUnreadCounts(new java.util.HashMap<>());
-            }
-            conv.getUnreadCounts().put(userId, 0);
+            System.err.println("Error marking conversation as read: " + e.getMessage());
         }
     }
 
     /**
-     * ✅ NEW: Mark messages in a conversation as read by a user
-     * Updates the last read timestamp
+     * Targeted update of a few conversation fields. Bumps the version so a
+     * concurrent whole-document save of the same conversation conflicts instead
+     * of overwriting these fields.
      */
-    public void markConversationAsRead(String conversationId, String userId) {
-        try {
-            Conversation conv = conversationRepository.findById(conversationId).orElse(null);
-            if (conv == null)
-                return;
-
-            // Initialize maps if needed
-            if (conv.getLastReadTimestamps() == null) {
-                conv.setLastReadTimestamps(new java.util.HashMap<>());
-            }
-            if (conv.getUnreadCounts() == null) {
-                conv.setUnreadCounts(new java.util.HashMap<>());
-            }
-
-            // Update last read timestamp to now
-            conv.getLastReadTimestamps().put(userId, new Date());
-            conv.getUnreadCounts().put(userId, 0);
+    private void updateConversation(String conversationId, Update update) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(conversationId)),
+                update.inc("version", 1), Conversation.class);
+    }
 
-            conversationRepository.save(conv);
-            System.out.println("[MarkAsRead] User: " + userId + ", Conv: " + conversationId);
-        } catch (Exception e) {
-            System.err.println("Error marking conversation as read: " + e.getMessage());
+    /**
+     * Whether a user is one of a conversation's participants.
+     */
+    public boolean isParticipant(String conversationId, String userId) {
+        if (conversationId == null || userId == null) {
+            return false;
         }
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(conversationId)
+                .and("participantIds").is(userId)), Conversation.class);
     }
 
     public Optional<Conversation> getConversation(String id) {
@@ -167,9 +146,12 @@ public class MessagingService {
         String senderDomainForEvent = "";
         String receiverDomainForEvent = "";
         String receiverCollegeIdForEvent = "";
+        Conversation conv = null;
+        User sender = null;
+        User receiver = null;
 
         if (conversationId != null) {
-            Conversation conv = conversationRepository.findById(conversationId).orElseThrow();
+            conv = conversationRepository.findById(conversationId).orElseThrow();
 
             // ✅ CRITICAL: Only allow messaging if conversation is ACCEPTED
             if (!"ACCEPTED".equals(conv.getStatus())) {
@@ -177,9 +159,6 @@ public class MessagingService {
                         "Cannot send message in PENDING conversation. Invite must be accepted first.");
             }
 
-            conv.setUpdatedAt(new Date());
-            conversationRepository.save(conv);
-
             if (conv.getParticipantIds() != null) {
                 receiverIdForEvent = conv.getParticipantIds().stream()
                         .filter(participantId -> participantId != null && !participantId.equals(senderId))
@@ -189,18 +168,19 @@ public class MessagingService {
 
             enforceDirectMessageBan(senderId, receiverIdForEvent);
 
-            User senderUser = userRepository.findById(senderId).orElse(null);
-            if (senderUser != null && senderUser.getEmail() != null) {
-                senderDomainForEvent = extractDomain(senderUser.getEmail());
+            // Profiles only feed the event and the push below, so a cached copy is enough
+            sender = userProfileCache.get(senderId).orElse(null);
+            if (sender != null && sender.getEmail() != null) {
+                senderDomainForEvent = extractDomain(sender.getEmail());
             }
             if (receiverIdForEvent != null) {
-                User receiverUser = userRepository.findById(receiverIdForEvent).orElse(null);
-                if (receiverUser != null) {
-                    if (receiverUser.getEmail() != null && !receiverUser.getEmail().isBlank()) {
-                        receiverDomainForEvent = extractDomain(receiverUser.getEmail());
+                receiver = userProfileCache.get(receiverIdForEvent).orElse(null);
+                if (receiver != null) {
+                    if (receiver.getEmail() != null && !receiver.getEmail().isBlank()) {
+                        receiverDomainForEvent = extractDomain(receiver.getEmail());
                     }
-                    if (receiverUser.getCollegeName() != null && !receiverUser.getCollegeName().isBlank()) {
-                        receiverCollegeIdForEvent = receiverUser.getCollegeName().trim().toLowerCase();
+                    if (receiver.getCollegeName() != null && !receiver.getCollegeName().isBlank()) {
+                        receiverCollegeIdForEvent = receiver.getCollegeName().trim().toLowerCase();
                     }
                 }
             }
@@ -217,6 +197,29 @@ public class MessagingService {
 
         }
 
+        if (conv != null) {
+            // One conversation write takes the message's seq, bumps every other
+            // participant's unread counter and updatedAt, and re-checks ACCEPTED
+            Update update = new Update().inc("lastSeq", 1).set("updatedAt", msg.getSentAt()).inc("version", 1);
+            if (conv.getParticipantIds() != null) {
+                for (String participantId : conv.getParticipantIds()) {
+                    if (participantId != null && !participantId.equals(senderId)) {
+                        update.inc("unreadCounts." + participantId, 1);
+                    }
+                }
+            }
+            Conversation bumped = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(conversationId).and("status").is("ACCEPTED")),
+                    update,
+                    FindAndModifyOptions.options().returnNew(true),
+                    Conversation.class);
+            if (bumped == null) {
+                throw new RuntimeException(
+                        "Cannot send message in PENDING conversation. Invite must be accepted first.");
+            }
+            msg.setSeq(bumped.getLastSeq());
+        }
+
         Message saved = messageRepository.save(msg);
 
         if (receiverIdForEvent != null) {
@@ -230,10 +233,8 @@ public class MessagingService {
 
         // ✅ FCM: DM notifications (token-based) with Android tag stacking per sender
         try {
-            if (conversationId != null && senderId != null) {
-                Conversation conv = conversationRepository.findById(conversationId).orElse(null);
+            if (senderId != null) {
                 if (conv != null && conv.getParticipantIds() != null) {
-                    User sender = userRepository.findById(senderId).orElse(null);
                     String senderNameSafe = (sender != null && sender.getFullName() != null)
                             ? sender.getFullName()
                             : "New message";
@@ -243,7 +244,9 @@ public class MessagingService {
                             continue;
                         }
 
-                        User recipient = userRepository.findById(participantId).orElse(null);
+                        User recipient = participantId.equals(receiverIdForEvent)
+                                ? receiver
+                                : userProfileCache.get(participantId).orElse(null);
                         if (recipient == null || recipient.getFcmToken() == null || recipient.getFcmToken().isBlank()) {
                             continue;
                         }
@@ -318,6 +321,21 @@ public class MessagingService {
         return messageRepository.findByConversationIdOrderBySentAtAsc(conversationId);
     }
 
+    /**
+     * Messages a reconnecting client missed (see MessageHistoryService#getSince).
+     */
+    public MessageHistoryService.SyncBatch getMessagesSince(String conversationId, long since, Integer limit) {
+        return messageHistoryService.getSince(conversationId, since, limit);
+    }
+
+    /**
+     * One keyset page of a conversation's history (see MessageHistoryService).
+     */
+    public MessageHistoryService.MessagePage getMessagePage(String conversationId, String before, String after,
+            Integer limit) {
+        return messageHistoryService.getPage(conversationId, before, after, limit);
+    }
+
     /**
      * Send a collaboration invite to a user.
      * Creates a PENDING conversation and triggers a WebSocket notification.
@@ -399,7 +417,9 @@ public class MessagingService {
                 // Accept: change status to ACCEPTED
                 conv.setStatus("ACCEPTED");
                 conv.setUpdatedAt(new Date());
-                conversationRepository.save(conv);
+                updateConversation(conv.getId(), new Update()
+                        .set("status", conv.getStatus())
+                        .set("updatedAt", conv.getUpdatedAt()));
             } else {
                 // Decline: delete the conversation
                 @SuppressWarnings("null")
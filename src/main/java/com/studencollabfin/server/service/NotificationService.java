@@ -1,11 +1,15 @@
 package com.studencollabfin.server.service;
 
-import com.studencollabfin.server.dto.EventNotificationDTO;
 import com.studencollabfin.server.gamification.event.NotificationReadEvent;
 import com.studencollabfin.server.model.Inbox;
 import com.studencollabfin.server.repository.InboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -20,9 +24,15 @@ public class NotificationService {
     @Autowired
     private InboxRepository inboxRepository;
 
+    @Autowired
+    private InboxService inboxService;
+
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @SuppressWarnings("null")
     public void notifyPodMembers(String podId, String message) {
         if (podId != null) {
@@ -49,66 +59,30 @@ public class NotificationService {
     }
 
     /**
-     * ✅ NEW EVENT NOTIFICATION: Notify all users when a new event is published
-     * 
-     * @param eventNotification The event notification DTO with event details
-     * @param allUserIds        List of all user IDs to notify
+     * Mark one item read. The flip is a findAndModify on {_id, read: false},
+     * so of two concurrent calls (double tap, web and mobile) only one
+     * decrements the unread counter and publishes NotificationReadEvent.
      */
-    public void broadcastEventNotification(EventNotificationDTO eventNotification, java.util.List<String> allUserIds) {
-        if (eventNotification == null || allUserIds == null || allUserIds.isEmpty()) {
-            return;
-        }
-
-        // Send WebSocket notification to all users
-        for (String userId : allUserIds) {
-            messagingTemplate.convertAndSendToUser(userId, "/queue/notifications", eventNotification);
-
-            // Also save to Inbox for persistent storage
-            Inbox inboxItem = new Inbox();
-            inboxItem.setUserId(userId);
-            inboxItem.setType(Inbox.NotificationType.POD_EVENT); // Reusing POD_EVENT type for all events
-            inboxItem.setTitle("New Event: " + eventNotification.getEventTitle());
-            inboxItem.setMessage(eventNotification.getMessage());
-            inboxItem.setSeverity(Inbox.NotificationSeverity.LOW);
-            inboxItem.setPostId(eventNotification.getEventId());
-            inboxItem.setSenderId("system");
-            inboxItem.setCreatedAt(LocalDateTime.now());
-            inboxItem.setTimestamp(LocalDateTime.now());
-            inboxItem.setRead(false);
-
-            inboxRepository.save(inboxItem);
-        }
-    }
-
-    /**
-     * ✅ DOMAIN-SPECIFIC EVENT NOTIFICATION: Notify only users in a specific domain
-     * 
-     * @param eventNotification The event notification DTO
-     * @param domainUserIds     List of user IDs in the specific domain
-     */
-    public void broadcastEventNotificationToDomaIn(EventNotificationDTO eventNotification,
-            java.util.List<String> domainUserIds) {
-        broadcastEventNotification(eventNotification, domainUserIds);
-    }
-
     @SuppressWarnings("null")
     public Inbox markNotificationAsRead(String notificationId) {
-        Inbox inbox = inboxRepository.findById(notificationId)
-                .orElseThrow(() -> new RuntimeException("Inbox item not found: " + notificationId));
-
-        if (inbox.isRead()) {
-            return inbox;
+        Inbox updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(notificationId).and("read").is(false)),
+                Update.update("read", true),
+                FindAndModifyOptions.options().returnNew(true),
+                Inbox.class);
+        if (updated == null) {
+            // Already read (or missing)
+            return inboxRepository.findById(notificationId)
+                    .orElseThrow(() -> new RuntimeException("Inbox item not found: " + notificationId));
         }
+        inboxService.onRead(updated.getUserId());
 
         LocalDateTime readAt = LocalDateTime.now();
-        LocalDateTime createdAt = inbox.getCreatedAt() != null
-                ? inbox.getCreatedAt()
-                : (inbox.getTimestamp() != null ? inbox.getTimestamp() : readAt);
+        LocalDateTime createdAt = updated.getCreatedAt() != null
+                ? updated.getCreatedAt()
+                : (updated.getTimestamp() != null ? updated.getTimestamp() : readAt);
         long timeToReadInMinutes = Math.max(0, ChronoUnit.MINUTES.between(createdAt, readAt));
 
-        inbox.setRead(true);
-        Inbox updated = inboxRepository.save(inbox);
-
         String notificationType = "UNKNOWN";
         if (updated.getType() != null) {
             notificationType = updated.getType() == Inbox.NotificationType.POD_EVENT
@@ -0,0 +1,42 @@
+package com.studencollabfin.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.function.Supplier;
+
+/**
+ * OptimisticRetry: Re-run a read-modify-save on a @Version conflict.
+ *
+ * The attempt must re-read the document it saves, so each retry applies its
+ * change on top of whatever the concurrent writer stored. Hot counters should
+ * use a targeted $inc/$push update instead; this is for whole-document edits.
+ */
+@Slf4j
+public final class OptimisticRetry {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private OptimisticRetry() {
+    }
+
+    public static <T> T run(String label, Supplier<T> attempt) {
+        for (int i = 1;; i++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (i >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("[OptimisticRetry] {} conflicted (attempt {}), retrying", label, i);
+            }
+        }
+    }
+
+    public static void run(String label, Runnable attempt) {
+        run(label, () -> {
+            attempt.run();
+            return null;
+        });
+    }
+}
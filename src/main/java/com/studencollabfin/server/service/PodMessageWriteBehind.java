@@ -0,0 +1,443 @@
+package com.studencollabfin.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.studencollabfin.server.model.Message;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * PodMessageWriteBehind: Batched persistence for pod chat messages.
+ *
+ * The WebSocket handler hands a message over with {@link #submit(Message)} and
+ * broadcasts immediately; a single flusher thread writes accumulated messages
+ * with one unordered insertMany every {@code flushIntervalMs} or as soon as
+ * {@code batchSize} messages are waiting. The returned future completes once
+ * the message is in Mongo, which is what the sender's ack is based on.
+ *
+ * Durability between submit and insert comes from a local journal: every
+ * submitted message is appended (one JSON line) to the current segment file
+ * before it is queued. The flusher seals the segment together with the batch
+ * it takes and deletes it only after the insert succeeded. Segments left
+ * behind by a crash are read on startup and replayed by the flusher thread
+ * before anything else, with the same retry loop, so an unreachable Mongo
+ * delays the replay instead of failing startup; inserts are idempotent because
+ * message ids are assigned before submit. A duplicate key only counts as
+ * stored when the stored message has the same sender, conversation and text
+ * (a replayed batch or a client resending its clientMessageId); any other
+ * duplicate fails that message's future instead of acking it.
+ *
+ * Sequence numbers are assigned by the flusher (see
+ * MessageSequenceService#assignAll), one counter update per conversation per
+ * batch, so nothing on the submit/broadcast path waits on Mongo. A seq is
+ * "handed out but not yet stored" only while its batch is being inserted;
+ * {@link #isInFlight} exposes that to delta sync.
+ */
+@Slf4j
+@Service
+public class PodMessageWriteBehind {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+    private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Destination of flushed batches; a bulk insert into messages in production.
+     */
+    @FunctionalInterface
+    public interface MessageSink {
+        /**
+         * @throws ConflictingMessagesException if some messages clash with different
+         *         stored ones; the rest of the batch is stored and is not retried
+         */
+        void insertAll(List<Message> batch);
+    }
+
+    /**
+     * Messages whose id or clientMessageId already belongs to a different
+     * stored message.
+     */
+    public static class ConflictingMessagesException extends RuntimeException {
+        private final transient List<Message> conflicts;
+
+        public ConflictingMessagesException(List<Message> conflicts) {
+            super(conflicts.size() + " messages conflict with different stored messages");
+            this.conflicts = conflicts;
+        }
+
+        public List<Message> getConflicts() {
+            return conflicts;
+        }
+    }
+
+    private record Pending(Message message, CompletableFuture<Message> persisted) {
+    }
+
+    private final MessageSink sink;
+    private final ObjectMapper objectMapper;
+    private final Path journalDir;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final Object lock = new Object();
+    private final AtomicLong segmentSeq = new AtomicLong();
+    private List<Pending> pending = new ArrayList<>();
+    private Path segment;
+    private BufferedWriter segmentWriter;
+    private volatile boolean running;
+    private Thread flusher;
+
+    // Chunk currently being inserted; its messages hold seqs that are not stored yet
+    private volatile List<Message> inFlight = List.of();
+
+    @Autowired
+    public PodMessageWriteBehind(MongoTemplate mongoTemplate, MessageSequenceService messageSequenceService,
+            ObjectMapper objectMapper,
+            @Value("${chat.write-behind.journal-dir:${user.dir}/data/pod-chat-journal}") String journalDir,
+            @Value("${chat.write-behind.batch-size:200}") int batchSize,
+            @Value("${chat.write-behind.flush-interval-ms:20}") long flushIntervalMs) {
+        this(batch -> {
+            messageSequenceService.assignAll(batch);
+            insertIgnoringDuplicates(mongoTemplate, batch);
+        }, objectMapper, Path.of(journalDir), batchSize, flushIntervalMs);
+    }
+
+    public PodMessageWriteBehind(MessageSink sink, ObjectMapper objectMapper, Path journalDir, int batchSize,
+            long flushIntervalMs) {
+        this.sink = sink;
+        this.objectMapper = objectMapper;
+        this.journalDir = journalDir;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+    }
+
+    /**
+     * Pick up segments left by a previous process and start the flusher, which
+     * replays them before taking new batches.
+     */
+    @PostConstruct
+    public void start() {
+        List<Path> leftover;
+        List<Pending> recovered;
+        try {
+            Files.createDirectories(journalDir);
+            leftover = leftoverSegments();
+            recovered = readSegments(leftover);
+            synchronized (lock) {
+                openSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialise pod chat journal at " + journalDir, e);
+        }
+        running = true;
+        flusher = new Thread(() -> {
+            if (replay(recovered, leftover)) {
+                flushLoop();
+            } else {
+                synchronized (lock) {
+                    closeSegment(true);
+                }
+            }
+        }, "pod-chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * True if a message of this conversation with fromSeq <= seq < toSeq has
+     * been given its seq but is not stored yet, i.e. a gap there will fill.
+     * Only this instance's batches are known; with several nodes a gap left by
+     * another node's flusher is covered by the sentAt grace in delta sync.
+     */
+    public boolean isInFlight(String conversationId, long fromSeq, long toSeq) {
+        for (Message message : inFlight) {
+            Long seq = message.getSeq();
+            if (seq != null && seq >= fromSeq && seq < toSeq
+                    && conversationId.equals(message.getConversationId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flush whatever is queued and stop. Messages that still cannot be
+     * written stay in the journal for the next startup.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(MAX_RETRY_BACKOFF_MS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Journal a message and queue it for the next batch.
+     *
+     * @param message Fully prepared message with its id already assigned
+     * @return Future completed with the message once it is stored in Mongo
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        if (message.getId() == null || message.getId().isEmpty()) {
+            throw new IllegalArgumentException("Message id must be assigned before submit");
+        }
+        CompletableFuture<Message> persisted = new CompletableFuture<>();
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Pod chat write-behind is not running");
+            }
+            try {
+                segmentWriter.write(objectMapper.writeValueAsString(message));
+                segmentWriter.newLine();
+                segmentWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal pod message " + message.getId(), e);
+            }
+            pending.add(new Pending(message, persisted));
+            // Wake the flusher on the first message of a batch and when the batch is full
+            if (pending.size() == 1 || pending.size() >= batchSize) {
+                lock.notifyAll();
+            }
+        }
+        return persisted;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            Path sealed;
+            synchronized (lock) {
+                try {
+                    while (running && pending.isEmpty()) {
+                        lock.wait();
+                    }
+                    // Linger briefly so a burst lands in one insert
+                    if (running && pending.size() < batchSize) {
+                        lock.wait(flushIntervalMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    if (!running) {
+                        closeSegment(true);
+                        return;
+                    }
+                    continue;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                sealed = segment;
+                closeSegment(false);
+                if (running) {
+                    openSegmentQuietly();
+                }
+            }
+            if (!persist(batch)) {
+                return; // stopped while Mongo was unavailable; the sealed segment is replayed on restart
+            }
+            deleteQuietly(sealed);
+        }
+    }
+
+    // Insert in chunks of batchSize, retrying with backoff until it succeeds
+    private boolean persist(List<Pending> batch) {
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<Pending> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+            List<Message> messages = chunk.stream().map(Pending::message).toList();
+            inFlight = messages;
+            long backoff = flushIntervalMs;
+            ConflictingMessagesException conflict = null;
+            while (true) {
+                try {
+                    sink.insertAll(messages);
+                    break;
+                } catch (ConflictingMessagesException e) {
+                    log.warn("[PodChat] Rejected {} messages that clash with stored ones", e.getConflicts().size());
+                    conflict = e;
+                    break;
+                } catch (Exception e) {
+                    log.error("[PodChat] Batch insert of {} messages failed, retrying in {}ms: {}",
+                            messages.size(), backoff, e.getMessage());
+                    if (!running) {
+                        return false;
+                    }
+                    sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+                }
+            }
+            inFlight = List.of();
+            for (Pending p : chunk) {
+                if (conflict != null && conflict.getConflicts().stream().anyMatch(m -> m == p.message())) {
+                    p.persisted().completeExceptionally(conflict);
+                } else {
+                    p.persisted().complete(p.message());
+                }
+            }
+        }
+        return true;
+    }
+
+    // Store what a previous process journaled but never inserted, then drop its segments
+    private boolean replay(List<Pending> recovered, List<Path> segments) {
+        if (!recovered.isEmpty()) {
+            if (!persist(recovered)) {
+                return false; // stopped before Mongo came back; replayed again on next startup
+            }
+            log.info("[PodChat] Recovered {} journaled messages from {} segments", recovered.size(),
+                    segments.size());
+        }
+        for (Path file : segments) {
+            deleteQuietly(file);
+        }
+        return true;
+    }
+
+    private List<Path> leftoverSegments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private List<Pending> readSegments(List<Path> segments) throws IOException {
+        List<Pending> recovered = new ArrayList<>();
+        for (Path file : segments) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Message message = objectMapper.readValue(line, Message.class);
+                    recovered.add(new Pending(message, new CompletableFuture<>()));
+                } catch (IOException e) {
+                    // A torn last line from a crash mid-write; the sender never got a broadcast for it
+                    log.warn("[PodChat] Skipping unreadable journal line in {}", file.getFileName());
+                }
+            }
+        }
+        return recovered;
+    }
+
+    private void openSegment() throws IOException {
+        segment = journalDir.resolve(String.format("%s%020d-%06d%s", SEGMENT_PREFIX, System.currentTimeMillis(),
+                segmentSeq.incrementAndGet(), SEGMENT_SUFFIX));
+        segmentWriter = Files.newBufferedWriter(segment, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void openSegmentQuietly() {
+        try {
+            openSegment();
+        } catch (IOException e) {
+            // submit() will fail loudly until the journal directory is usable again
+            running = false;
+            log.error("[PodChat] Cannot open journal segment, rejecting new messages: {}", e.getMessage(), e);
+        }
+    }
+
+    private void closeSegment(boolean deleteIfEmpty) {
+        try {
+            if (segmentWriter != null) {
+                segmentWriter.close();
+            }
+            if (deleteIfEmpty && segment != null && Files.size(segment) == 0) {
+                Files.delete(segment);
+            }
+        } catch (IOException e) {
+            log.warn("[PodChat] Failed to close journal segment {}: {}", segment, e.getMessage());
+        }
+        segmentWriter = null;
+        segment = null;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("[PodChat] Failed to delete flushed journal segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Unordered insertMany. A duplicate key is success only if the stored message
+    // is this one; it then takes the stored id and seq so the ack reports those
+    private static void insertIgnoringDuplicates(MongoTemplate mongoTemplate, List<Message> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            if (!e.getErrors().stream().allMatch(err -> err.getCode() == DUPLICATE_KEY)) {
+                throw e;
+            }
+            List<Message> conflicts = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                Message message = batch.get(error.getIndex());
+                Message stored = mongoTemplate.findById(message.getId(), Message.class);
+                if (stored == null && message.getClientMessageId() != null) {
+                    stored = mongoTemplate.findOne(
+                            new Query(Criteria.where("clientMessageId").is(message.getClientMessageId())),
+                            Message.class);
+                }
+                if (stored != null && isSameMessage(stored, message)) {
+                    message.setId(stored.getId());
+                    message.setSeq(stored.getSeq());
+                } else {
+                    conflicts.add(message);
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new ConflictingMessagesException(conflicts);
+            }
+        }
+    }
+
+    /**
+     * True if both are the same chat message: same sender, conversation and text.
+     */
+    static boolean isSameMessage(Message stored, Message message) {
+        return Objects.equals(stored.getSenderId(), message.getSenderId())
+                && Objects.equals(stored.getConversationId(), message.getConversationId())
+                && Objects.equals(stored.getText(), message.getText());
+    }
+}
@@ -0,0 +1,122 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.CollabPod;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * PodRosterUpdates: Pipeline updates for CollabPod role lists.
+ *
+ * A pod keeps parallel id/name arrays (memberIds/memberNames,
+ * adminIds/adminNames). Removing a user must drop the name at the same index as
+ * the id, which plain $pull cannot express, so these updates are aggregation
+ * pipelines evaluated server-side in one atomic findAndModify.
+ */
+final class PodRosterUpdates {
+
+    static final String MEMBERS = "memberIds";
+    static final String MEMBER_NAMES = "memberNames";
+    static final String ADMINS = "adminIds";
+    static final String ADMIN_NAMES = "adminNames";
+
+    private PodRosterUpdates() {
+    }
+
+    /**
+     * Remove a user from members and admins (leave).
+     */
+    static AggregationUpdate removeFromRoster(String userId) {
+        Document set = new Document("lastActive", new Date()).append("version", nextVersion());
+        removeInto(set, MEMBERS, MEMBER_NAMES, userId);
+        removeInto(set, ADMINS, ADMIN_NAMES, userId);
+        return AggregationUpdate.from(List.of(
+                Aggregation.stage(new Document("$set", set)),
+                Aggregation.stage(new Document("$set", reopenIfBelowCapacity()))));
+    }
+
+    /**
+     * Remove a user from members and admins and add them to bannedIds (kick).
+     */
+    static AggregationUpdate banFromRoster(String userId) {
+        Document set = new Document("lastActive", new Date()).append("version", nextVersion());
+        removeInto(set, MEMBERS, MEMBER_NAMES, userId);
+        removeInto(set, ADMINS, ADMIN_NAMES, userId);
+        set.put("bannedIds", appendIfAbsent("bannedIds", userId));
+        return AggregationUpdate.from(List.of(
+                Aggregation.stage(new Document("$set", set)),
+                Aggregation.stage(new Document("$set", reopenIfBelowCapacity()))));
+    }
+
+    /**
+     * Move a user from one id/name list pair to another (promote / demote).
+     */
+    static AggregationUpdate moveBetween(String fromIds, String fromNames, String toIds, String toNames,
+            String userId, String userName) {
+        Document set = new Document("version", nextVersion());
+        removeInto(set, fromIds, fromNames, userId);
+        Object absent = new Document("$not",
+                List.of(new Document("$in", List.of(literal(userId), orEmpty(toIds)))));
+        set.put(toIds, new Document("$cond", Arrays.asList(absent,
+                new Document("$concatArrays", List.of(orEmpty(toIds), List.of(literal(userId)))),
+                orEmpty(toIds))));
+        set.put(toNames, new Document("$cond", Arrays.asList(absent,
+                new Document("$concatArrays", List.of(orEmpty(toNames), List.of(literal(userName)))),
+                orEmpty(toNames))));
+        return AggregationUpdate.from(List.of(Aggregation.stage(new Document("$set", set))));
+    }
+
+    // ids := ids without userId; names := names without the entry at userId's index
+    private static void removeInto(Document set, String idsField, String namesField, String userId) {
+        Object index = new Document("$indexOfArray", List.of(orEmpty(idsField), literal(userId)));
+        Object names = orEmpty(namesField);
+        Object tail = new Document("$slice", List.of(names,
+                new Document("$add", List.of("$$i", 1)),
+                new Document("$add", List.of(new Document("$size", names), 1))));
+
+        set.put(idsField, new Document("$filter", new Document("input", orEmpty(idsField))
+                .append("cond", new Document("$ne", List.of("$$this", literal(userId))))));
+        set.put(namesField, new Document("$let", new Document("vars", new Document("i", index))
+                .append("in", new Document("$cond", Arrays.asList(
+                        new Document("$lt", List.of("$$i", 0)),
+                        names,
+                        new Document("$concatArrays", List.of(
+                                new Document("$slice", List.of(names, "$$i")),
+                                tail)))))));
+    }
+
+    private static Object appendIfAbsent(String field, String value) {
+        return new Document("$cond", Arrays.asList(
+                new Document("$in", List.of(literal(value), orEmpty(field))),
+                orEmpty(field),
+                new Document("$concatArrays", List.of(orEmpty(field), List.of(literal(value))))));
+    }
+
+    // A FULL pod goes back to ACTIVE once its member list drops below capacity
+    private static Document reopenIfBelowCapacity() {
+        return new Document("status", new Document("$cond", Arrays.asList(
+                new Document("$and", List.of(
+                        new Document("$eq", List.of("$status", CollabPod.PodStatus.FULL.name())),
+                        new Document("$lt", List.of(new Document("$size", orEmpty(MEMBERS)), "$maxCapacity")))),
+                CollabPod.PodStatus.ACTIVE.name(),
+                "$status")));
+    }
+
+    // Bump @Version like a save would, so a stale whole-document save conflicts
+    private static Document nextVersion() {
+        return new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1));
+    }
+
+    // Values are wrapped so a leading '$' in a name is never read as a field path
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    private static Document orEmpty(String field) {
+        return new Document("$ifNull", List.of("$" + field, List.of()));
+    }
+}
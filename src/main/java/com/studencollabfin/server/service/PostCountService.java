@@ -0,0 +1,139 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.CollabPod;
+import com.studencollabfin.server.model.Post;
+import com.studencollabfin.server.model.PostType;
+import com.studencollabfin.server.model.SocialPost;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * PostCountService: Per-type post counters for the Campus and Inter hubs.
+ *
+ * Counts come from a single $match/$group aggregation over indexed fields
+ * (institutionDomain/category + type, with podSource denormalized onto
+ * LOOKING_FOR posts). Results are cached per domain for a short TTL and
+ * adjusted in place when posts are created or deleted.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostCountService {
+
+    static final long CACHE_TTL_MS = 30_000;
+
+    private static final String INTER_KEY = "inter";
+    private static final String CAMPUS_KEY_PREFIX = "campus:";
+
+    public static final List<PostType> CAMPUS_TYPES = List.of(
+            PostType.ASK_HELP, PostType.OFFER_HELP, PostType.LOOKING_FOR, PostType.POLL);
+    public static final List<PostType> INTER_TYPES = List.of(
+            PostType.DISCUSSION, PostType.COLLAB, PostType.POLL);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, CachedCounts> cache = new ConcurrentHashMap<>();
+
+    private record CachedCounts(Map<String, Long> counts, long expiresAt) {
+    }
+
+    /**
+     * Campus Hub counts for one institution domain.
+     */
+    public Map<String, Long> getCampusCounts(String institutionDomain) {
+        return cached(CAMPUS_KEY_PREFIX + institutionDomain, () -> aggregate(
+                Criteria.where("institutionDomain").is(institutionDomain)
+                        .and("category").in("CAMPUS", null)
+                        .orOperator(
+                                Criteria.where("type").in(names(List.of(
+                                        PostType.ASK_HELP, PostType.OFFER_HELP, PostType.POLL))),
+                                // LOOKING_FOR counts only COLLAB_POD sources (not TEAM_PODs)
+                                Criteria.where("type").is(PostType.LOOKING_FOR.name())
+                                        .and("podSource").is(CollabPod.PodSource.COLLAB_POD.name())),
+                CAMPUS_TYPES));
+    }
+
+    /**
+     * Inter Hub (global) counts.
+     */
+    public Map<String, Long> getInterCounts() {
+        return cached(INTER_KEY, () -> aggregate(
+                Criteria.where("category").is("INTER").and("type").in(names(INTER_TYPES)),
+                INTER_TYPES));
+    }
+
+    public void onPostCreated(Post post) {
+        adjust(post, 1);
+    }
+
+    public void onPostDeleted(Post post) {
+        adjust(post, -1);
+    }
+
+    // Apply a create/delete to the cached counters this post contributes to
+    private void adjust(Post post, long delta) {
+        if (!(post instanceof SocialPost social) || social.getType() == null) {
+            return;
+        }
+        String category = social.getCategory() != null ? social.getCategory() : "CAMPUS";
+        String key = null;
+        if ("INTER".equals(category) && INTER_TYPES.contains(social.getType())) {
+            key = INTER_KEY;
+        } else if ("CAMPUS".equals(category) && CAMPUS_TYPES.contains(social.getType())
+                && social.getInstitutionDomain() != null
+                && (social.getType() != PostType.LOOKING_FOR
+                        || social.getPodSource() == CollabPod.PodSource.COLLAB_POD)) {
+            key = CAMPUS_KEY_PREFIX + social.getInstitutionDomain();
+        }
+        if (key == null) {
+            return;
+        }
+
+        cache.computeIfPresent(key, (k, entry) -> {
+            Map<String, Long> counts = new HashMap<>(entry.counts());
+            counts.merge(social.getType().name(), delta, (a, b) -> Math.max(a + b, 0));
+            return new CachedCounts(Collections.unmodifiableMap(counts), entry.expiresAt());
+        });
+    }
+
+    private Map<String, Long> cached(String key, Supplier<Map<String, Long>> loader) {
+        long now = System.currentTimeMillis();
+        CachedCounts entry = cache.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.counts();
+        }
+        Map<String, Long> counts = loader.get();
+        cache.put(key, new CachedCounts(counts, now + CACHE_TTL_MS));
+        return counts;
+    }
+
+    private static List<String> names(List<PostType> types) {
+        return types.stream().map(PostType::name).toList();
+    }
+
+    private Map<String, Long> aggregate(Criteria match, List<PostType> types) {
+        Map<String, Long> counts = new HashMap<>();
+        for (PostType type : types) {
+            counts.put(type.name(), 0L);
+        }
+
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.match(match),
+                Aggregation.group("type").count().as("count"));
+        for (org.bson.Document doc : mongoTemplate.aggregate(agg, "posts", org.bson.Document.class)
+                .getMappedResults()) {
+            String type = doc.getString("_id");
+            Number count = doc.get("count", Number.class);
+            if (type != null && counts.containsKey(type)) {
+                counts.put(type, count != null ? count.longValue() : 0L);
+            }
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+}
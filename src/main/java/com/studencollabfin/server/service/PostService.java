@@ -13,6 +13,11 @@ import com.studencollabfin.server.repository.CommentRepository;
 import com.studencollabfin.server.service.FcmNotificationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -27,26 +32,43 @@ public class PostService {
     private final UserService userService;
     private final CommentService commentService;
     private final FcmNotificationService fcmNotificationService;
+    private final PostCountService postCountService;
+    private final CampusActivityService campusActivityService;
     private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
 
     public SocialPost toggleLike(String postId, String userId) {
         Post post = getPostById(postId);
         if (post instanceof SocialPost social) {
-            if (social.getLikes() == null) {
-                social.setLikes(new ArrayList<>());
-            }
-            if (social.getLikes().contains(userId)) {
-                social.getLikes().remove(userId);
-            } else {
-                social.getLikes().add(userId);
+            // Targeted $pull/$addToSet guarded on the current like state, so a burst
+            // of likes on a hot post never overwrites other users' likes
+            boolean liked = social.getLikes() != null && social.getLikes().contains(userId);
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Criteria likeState = liked ? Criteria.where("likes").is(userId) : Criteria.where("likes").ne(userId);
+                Update update = liked ? new Update().pull("likes", userId) : new Update().addToSet("likes", userId);
+                SocialPost updated = mongoTemplate.findAndModify(
+                        new Query(Criteria.where("_id").is(postId).andOperator(likeState)),
+                        update.inc("version", 1),
+                        FindAndModifyOptions.options().returnNew(true),
+                        SocialPost.class);
+                if (updated != null) {
+                    return updated;
+                }
+                // A concurrent toggle by the same user flipped the state first
+                liked = !liked;
             }
-            return postRepository.save(social);
+            return (SocialPost) getPostById(postId);
         }
         throw new RuntimeException("Likes only supported for SocialPosts");
     }
 
     // Poll voting logic
     public Post voteOnPollOption(String postId, String optionId, String userId) {
+        // Whole-document edit of pollOptions: re-read and re-apply on a version conflict
+        return OptimisticRetry.run("voteOnPollOption", () -> recordPollVote(postId, optionId, userId));
+    }
+
+    private Post recordPollVote(String postId, String optionId, String userId) {
         Post post = getPostById(postId);
         boolean voteRecorded = false;
         com.studencollabfin.server.model.PollOption selectedOption = null;
@@ -137,6 +159,7 @@ public class PostService {
 
         try {
             postRepository.deleteById(postId);
+            postCountService.onPostDeleted(post);
             System.out.println("✅ Post " + postId + " deleted");
         } catch (Exception ex) {
             System.err.println("⚠️ Failed to delete post " + postId + ": " + ex.getMessage());
@@ -159,6 +182,8 @@ public class PostService {
         // ✅ Campus Isolation: Fetch author and set college
         try {
             com.studencollabfin.server.model.User author = userService.getUserById(authorId);
+            // Feed read model: embed author details so feed reads need no user lookups
+            post.setAuthorSnippet(CampusFeedService.snippetOf(author));
             if (author != null && author.getCollegeName() != null) {
                 post.setCollege(author.getCollegeName());
                 System.out.println("✅ Post college set to: " + author.getCollegeName());
@@ -320,6 +345,7 @@ public class PostService {
                     System.out.println("📋 Pod verified - linkedPostId in DB: " + verifyPod.getLinkedPostId());
 
                     social.setLinkedPodId(createdPod.getId());
+                    social.setPodSource(createdPod.getPodSource());
                     savedPost = postRepository.save(social); // Save the updated post and return it
                     System.out.println("Post saved with linkedPodId: " + createdPod.getId());
                 } catch (Exception ex) {
@@ -350,6 +376,7 @@ public class PostService {
                     CollabPod createdPod = collabPodService.createPod(authorId, pod);
                     System.out.println("CollabPod successfully created with ID: " + createdPod.getId());
                     social.setLinkedPodId(createdPod.getId());
+                    social.setPodSource(createdPod.getPodSource());
                     savedPost = postRepository.save(social); // Save the updated post and return it
                     System.out.println("Post saved with linkedPodId: " + createdPod.getId());
                 } catch (Exception ex) {
@@ -377,6 +404,8 @@ public class PostService {
             }
         }
 
+        postCountService.onPostCreated(savedPost);
+        campusActivityService.recordPost(savedPost);
         return savedPost;
 
     }
@@ -410,43 +439,10 @@ public class PostService {
             return new java.util.ArrayList<>();
         }
 
-        // ✅ FIXED: First try to fetch posts by institutionDomain
+        // Single indexed query: legacy posts without institutionDomain are backfilled
+        // once by PostDomainBackfillTask instead of on every read
         List<Post> domainPosts = postRepository.findByInstitutionDomain(institutionDomain);
 
-        // ✅ FALLBACK: Also check posts by college (for backward compatibility with old
-        // posts)
-        // Get all posts and filter by author's domain to handle old posts without
-        // institutionDomain
-        List<Post> allPosts = postRepository.findAll();
-        for (Post post : allPosts) {
-            // Skip if already has correct domain
-            if (post.getInstitutionDomain() != null && post.getInstitutionDomain().equals(institutionDomain)) {
-                continue;
-            }
-
-            // For posts missing institutionDomain, fetch author and set it
-            if (post.getInstitutionDomain() == null || post.getInstitutionDomain().isEmpty()) {
-                try {
-                    com.studencollabfin.server.model.User author = userService.getUserById(post.getAuthorId());
-                    if (author != null && author.getEmail() != null) {
-                        String domain = extractDomainFromEmail(author.getEmail());
-                        if (domain != null && !domain.isEmpty() && domain.equals(institutionDomain)) {
-                            // This post belongs to this user's domain but wasn't marked
-                            if (!domainPosts.contains(post)) {
-                                domainPosts.add(post);
-                                // ✅ AUTO-UPDATE: Set the domain for future queries
-                                post.setInstitutionDomain(domain);
-                                postRepository.save(post);
-                                System.out.println("✅ Auto-populated institutionDomain for post: " + post.getId());
-                            }
-                        }
-                    }
-                } catch (Exception ex) {
-                    System.err.println("⚠️ Could not populate domain for post: " + post.getId());
-                }
-            }
-        }
-
         System.out.println("✅ Fetched " + domainPosts.size() + " posts for domain: " + institutionDomain);
         return domainPosts;
     }
@@ -532,7 +528,13 @@ public class PostService {
             // replyIds
         }
 
-        postRepository.save(social);
+        if (req.getParentId() == null || req.getParentId().isEmpty()) {
+            // $push instead of saving the post read above, which concurrent comments,
+            // likes and votes may have changed since
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(social.getId())),
+                    new Update().push("commentIds", savedComment.getId()).inc("version", 1),
+                    SocialPost.class);
+        }
         return savedComment;
     }
 
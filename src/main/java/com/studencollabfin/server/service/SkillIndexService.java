@@ -0,0 +1,249 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * SkillIndexService: In-memory inverted index (skill -> userIds) backing the
+ * global discovery mesh.
+ *
+ * - Skills are mapped to dense int IDs by SkillSimilarityService's dictionary
+ * and each user's skills are kept as a long[] bitset, so scoring a candidate is
+ * an allocation-free popcount.
+ * - Only users sharing at least one skill with the requester are scored; the
+ * rest of the mesh is filled in user-ID order with a score of 0.0, which is
+ * exactly how the old full sort ordered them.
+ * - Ranking keeps a bounded top-K heap per request instead of sorting everyone.
+ *
+ * The index is built lazily from the users collection on first use and kept
+ * up to date incrementally by UserService (registration / profile updates).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SkillIndexService {
+
+    private final UserRepository userRepository;
+    private final SkillSimilarityService similarityService;
+
+    // skillId -> userIds having that skill
+    private final Map<Integer, Set<String>> postings = new ConcurrentHashMap<>();
+
+    // userId -> that user's skill bitset (sorted by userId for the zero-score tail)
+    private final ConcurrentSkipListMap<String, long[]> userSkills = new ConcurrentSkipListMap<>();
+
+    private volatile boolean loaded = false;
+
+    /**
+     * A ranked candidate: the userId and its Jaccard score against the requester.
+     * Also serves as the keyset position for cursor pagination.
+     */
+    public record ScoredUser(String userId, double score) {
+
+        /**
+         * Opaque cursor for "everything after this entry" in mesh order.
+         */
+        public String toCursor() {
+            String raw = Long.toHexString(Double.doubleToLongBits(score)) + ":" + userId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decode a cursor produced by {@link #toCursor()}.
+         *
+         * @throws IllegalArgumentException if the cursor is malformed
+         */
+        public static ScoredUser fromCursor(String cursor) {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed mesh cursor");
+            }
+            double score = Double.longBitsToDouble(Long.parseUnsignedLong(raw.substring(0, sep), 16));
+            return new ScoredUser(raw.substring(sep + 1), score);
+        }
+    }
+
+    // Worst candidate first: lowest score, then highest userId
+    private static final Comparator<ScoredUser> WORST_FIRST = Comparator
+            .comparingDouble(ScoredUser::score)
+            .thenComparing(ScoredUser::userId, Comparator.reverseOrder());
+
+    // Mesh order: highest score first, ties broken by userId ascending
+    public static final Comparator<ScoredUser> MESH_ORDER = WORST_FIRST.reversed();
+
+    /**
+     * Add or refresh a user's skills in the index.
+     */
+    public void indexUser(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        ensureLoaded();
+        synchronized (this) {
+            put(user.getId(), user.getSkills());
+        }
+    }
+
+    /**
+     * Drop a user from the index (e.g. account deletion).
+     */
+    public void removeUser(String userId) {
+        if (userId == null) {
+            return;
+        }
+        ensureLoaded();
+        synchronized (this) {
+            unlink(userId);
+            userSkills.remove(userId);
+        }
+    }
+
+    /**
+     * Rank the first {@code k} mesh candidates for a requester.
+     *
+     * @param userId    Requesting user's ID (excluded from results)
+     * @param mySkills  Requesting user's skills
+     * @param k         Number of ranked entries needed (offset + limit)
+     * @return Up to k candidates in mesh order
+     */
+    public List<ScoredUser> topMatches(String userId, List<String> mySkills, int k) {
+        return topMatches(userId, mySkills, null, k);
+    }
+
+    /**
+     * Rank the next {@code k} mesh candidates strictly after a keyset position.
+     * Resuming from (score, userId) keeps the heap at k entries however deep the
+     * client has scrolled, and no entry is repeated while its score is unchanged.
+     *
+     * @param after Last entry the client has seen, or null for the first page
+     */
+    public List<ScoredUser> topMatches(String userId, List<String> mySkills, ScoredUser after, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        ensureLoaded();
+
+        // Query skills no profile has can't overlap anyone; they only widen the union
+        long[] mine = similarityService.lookup(mySkills);
+        int unknownSkills = similarityService.unknownSkills(mySkills).size();
+
+        // Only users that appear in at least one of my postings can score above 0
+        Set<String> overlap = new HashSet<>();
+        for (int skillId : SkillSimilarityService.skillIdsOf(mine)) {
+            Set<String> holders = postings.get(skillId);
+            if (holders == null) {
+                continue;
+            }
+            for (String candidateId : holders) {
+                if (!candidateId.equals(userId)) {
+                    overlap.add(candidateId);
+                }
+            }
+        }
+
+        // Bounded min-heap: the head is the worst of the current top-K
+        PriorityQueue<ScoredUser> heap = new PriorityQueue<>(Math.min(k, Math.max(overlap.size(), 1)) + 1,
+                WORST_FIRST);
+        for (String candidateId : overlap) {
+            long[] theirs = userSkills.get(candidateId);
+            if (theirs == null) {
+                continue;
+            }
+            double score = SkillSimilarityService.jaccard(mine, theirs, unknownSkills);
+            ScoredUser candidate = new ScoredUser(candidateId, score);
+            if (after != null && MESH_ORDER.compare(candidate, after) <= 0) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.offer(candidate);
+            } else if (WORST_FIRST.compare(candidate, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(candidate);
+            }
+        }
+
+        List<ScoredUser> ranked = new ArrayList<>(heap);
+        ranked.sort(MESH_ORDER);
+
+        // Fill the remainder with zero-overlap users in userId order
+        if (ranked.size() < k) {
+            Set<String> tail = (after == null || after.score() > 0.0)
+                    ? userSkills.keySet()
+                    : userSkills.tailMap(after.userId(), false).keySet();
+            for (String candidateId : tail) {
+                if (ranked.size() >= k) {
+                    break;
+                }
+                if (!candidateId.equals(userId) && !overlap.contains(candidateId)) {
+                    ranked.add(new ScoredUser(candidateId, 0.0));
+                }
+            }
+        }
+
+        return ranked;
+    }
+
+    /**
+     * Number of users currently tracked by the index.
+     */
+    public int size() {
+        ensureLoaded();
+        return userSkills.size();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            for (User user : userRepository.findAll()) {
+                if (user.getId() != null) {
+                    put(user.getId(), user.getSkills());
+                }
+            }
+            loaded = true;
+            log.info("[SkillIndex] Built index: {} users, {} distinct skills in {} ms",
+                    userSkills.size(), similarityService.dictionarySize(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // Callers hold the monitor
+    private void put(String userId, List<String> skills) {
+        unlink(userId);
+        long[] bits = similarityService.encode(skills);
+        for (int skillId : SkillSimilarityService.skillIdsOf(bits)) {
+            postings.computeIfAbsent(skillId, key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+        userSkills.put(userId, bits);
+    }
+
+    // Callers hold the monitor
+    private void unlink(String userId) {
+        long[] previous = userSkills.get(userId);
+        if (previous == null) {
+            return;
+        }
+        for (int skillId : SkillSimilarityService.skillIdsOf(previous)) {
+            Set<String> holders = postings.get(skillId);
+            if (holders != null) {
+                holders.remove(userId);
+                if (holders.isEmpty()) {
+                    postings.remove(skillId);
+                }
+            }
+        }
+    }
+}
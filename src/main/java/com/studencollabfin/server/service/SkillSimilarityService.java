@@ -2,23 +2,39 @@ package com.studencollabfin.server.service;
 
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SkillSimilarityService: Calculates Jaccard similarity between two users'
  * skill sets.
- * 
+ *
  * Jaccard Similarity = |Intersection| / |Union|
  * Range: 0.0 (no common skills) to 1.0 (identical skill sets)
- * 
- * Used by DiscoveryController to rank global mesh matches.
+ *
+ * Skills are mapped once to dense int IDs (case-insensitive) and a user's
+ * skill set is stored as a long[] bitset, trimmed to its highest set word.
+ * Jaccard is then a popcount of AND / OR with no allocation.
+ *
+ * Only indexing profiles ({@link #encode}) grows the dictionary. Read paths
+ * use {@link #lookup}, which ignores skills the dictionary has never seen, so
+ * free-text query skills cannot widen every bitset; such skills still count
+ * towards the union.
+ *
+ * Used by SkillIndexService to rank global mesh matches.
  */
 @Service
 public class SkillSimilarityService {
 
+    private static final long[] EMPTY = new long[0];
+
+    // Skill dictionary: lowercased skill -> dense int ID
+    private final Map<String, Integer> skillIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSkillId = new AtomicInteger();
+
     /**
      * Calculates Jaccard similarity between two skill lists.
-     * 
+     *
      * @param skills1 First user's skills (case-insensitive)
      * @param skills2 Second user's skills (case-insensitive)
      * @return Similarity score between 0.0 and 1.0
@@ -29,31 +45,156 @@ public class SkillSimilarityService {
             return 0.0;
         }
 
-        // Convert to lowercase sets for case-insensitive comparison
-        Set<String> set1 = skills1.stream()
-                .filter(Objects::nonNull)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
+        Set<String> unknown1 = unknownSkills(skills1);
+        Set<String> unknown2 = unknownSkills(skills2);
+        if (unknown1.isEmpty() && unknown2.isEmpty()) {
+            return jaccard(lookup(skills1), lookup(skills2));
+        }
 
-        Set<String> set2 = skills2.stream()
-                .filter(Objects::nonNull)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
+        // Skills outside the dictionary can only match each other
+        int shared = 0;
+        for (String skill : unknown1) {
+            if (unknown2.contains(skill)) {
+                shared++;
+            }
+        }
+        return jaccard(lookup(skills1), lookup(skills2), shared, unknown1.size() + unknown2.size() - shared);
+    }
 
-        // Both empty after filtering
-        if (set1.isEmpty() && set2.isEmpty()) {
-            return 0.0;
+    /**
+     * Jaccard similarity of two encoded skill sets (see {@link #encode}).
+     *
+     * @return Similarity score between 0.0 and 1.0 (0.0 when both are empty)
+     */
+    public static double jaccard(long[] skills1, long[] skills2) {
+        return jaccard(skills1, skills2, 0, 0);
+    }
+
+    /**
+     * Jaccard similarity when {@code skills1} also had {@code unknownSkills}
+     * skills that {@link #lookup} left out; they can only add to the union.
+     */
+    public static double jaccard(long[] skills1, long[] skills2, int unknownSkills) {
+        return jaccard(skills1, skills2, 0, unknownSkills);
+    }
+
+    private static double jaccard(long[] skills1, long[] skills2, int extraIntersection, int extraUnion) {
+        long[] shorter = skills1.length <= skills2.length ? skills1 : skills2;
+        long[] longer = shorter == skills1 ? skills2 : skills1;
+
+        int intersection = extraIntersection;
+        int union = extraUnion;
+        for (int i = 0; i < shorter.length; i++) {
+            intersection += Long.bitCount(shorter[i] & longer[i]);
+            union += Long.bitCount(shorter[i] | longer[i]);
+        }
+        for (int i = shorter.length; i < longer.length; i++) {
+            union += Long.bitCount(longer[i]);
         }
 
-        // Calculate intersection
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
+        return union == 0 ? 0.0 : (double) intersection / union;
+    }
 
-        // Calculate union
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
+    /**
+     * Encode a profile's skill list as a bitset over the skill dictionary.
+     * Unknown skills are added to the dictionary; nulls are ignored. Use only
+     * when indexing profiles; read paths use {@link #lookup}.
+     */
+    public long[] encode(List<String> skills) {
+        return toBits(skills, true);
+    }
 
-        // Jaccard Similarity = |Intersection| / |Union|
-        return (double) intersection.size() / union.size();
+    /**
+     * Encode a skill list without touching the dictionary: skills it has never
+     * seen are ignored (see {@link #unknownSkills}); nulls are ignored.
+     */
+    public long[] lookup(List<String> skills) {
+        return toBits(skills, false);
+    }
+
+    /**
+     * Distinct (lowercased) skills of a list that are not in the dictionary.
+     */
+    public Set<String> unknownSkills(List<String> skills) {
+        if (skills == null) {
+            return Collections.emptySet();
+        }
+        Set<String> unknown = null;
+        for (String skill : skills) {
+            if (skill != null) {
+                String key = skill.toLowerCase();
+                if (!skillIds.containsKey(key)) {
+                    if (unknown == null) {
+                        unknown = new HashSet<>();
+                    }
+                    unknown.add(key);
+                }
+            }
+        }
+        return unknown != null ? unknown : Collections.emptySet();
+    }
+
+    private long[] toBits(List<String> skills, boolean register) {
+        if (skills == null || skills.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[] ids = new int[skills.size()];
+        int count = 0;
+        int maxId = -1;
+        for (String skill : skills) {
+            if (skill != null) {
+                int id = register ? skillId(skill) : skillIds.getOrDefault(skill.toLowerCase(), -1);
+                if (id < 0) {
+                    continue;
+                }
+                ids[count++] = id;
+                maxId = Math.max(maxId, id);
+            }
+        }
+        if (maxId < 0) {
+            return EMPTY;
+        }
+
+        long[] bits = new long[(maxId >>> 6) + 1];
+        for (int i = 0; i < count; i++) {
+            bits[ids[i] >>> 6] |= 1L << ids[i];
+        }
+        return bits;
+    }
+
+    /**
+     * Dense int ID for a skill (case-insensitive), assigned on first sight.
+     */
+    public int skillId(String skill) {
+        return skillIds.computeIfAbsent(skill.toLowerCase(), key -> nextSkillId.getAndIncrement());
+    }
+
+    /**
+     * Number of distinct skills seen so far.
+     */
+    public int dictionarySize() {
+        return skillIds.size();
+    }
+
+    /**
+     * Iterate the skill IDs set in an encoded skill set.
+     */
+    public static int[] skillIdsOf(long[] bits) {
+        int cardinality = 0;
+        for (long word : bits) {
+            cardinality += Long.bitCount(word);
+        }
+
+        int[] ids = new int[cardinality];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                ids[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return ids;
     }
 }
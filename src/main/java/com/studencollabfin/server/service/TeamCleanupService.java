@@ -20,6 +20,7 @@ public class TeamCleanupService {
     private final PostRepository postRepository;
     private final CollabPodRepository podRepository;
     private final EventService eventService;
+    private final CampusActivityService campusActivityService;
 
     /**
      * ✅ NEW: Scheduled task that runs every minute to check for expired
@@ -191,6 +192,7 @@ public class TeamCleanupService {
 
         // Save pod FIRST
         CollabPod savedPod = podRepository.save(pod);
+        campusActivityService.recordPod(savedPod);
 
         // ✅ ATOMICITY: Immediately update post with linkedPodId
         post.setLinkedPodId(savedPod.getId());
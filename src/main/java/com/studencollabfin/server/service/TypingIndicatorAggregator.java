@@ -0,0 +1,163 @@
+package com.studencollabfin.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TypingIndicatorAggregator: Coalesces typing events per chat topic.
+ *
+ * Keystroke events only update in-memory state; a flush every FLUSH_INTERVAL_MS
+ * sends at most one frame per topic that changed, listing everyone currently
+ * typing. While the set is unchanged, a refresh frame goes out at most every
+ * KEEPALIVE_MS so client-side indicators don't time out. Typists not heard
+ * from for TYPIST_TTL_MS are dropped, and a final frame with isTyping=false
+ * is sent when nobody is typing any more.
+ *
+ * Frame shape (superset of the old per-event payloads): the topic's context
+ * fields (podId / conversationId), "typists": [{userId, userName}],
+ * "isTyping", "timestamp", plus "userId"/"userName" of the latest typist for
+ * clients that only show one name.
+ *
+ * State is per instance: with the STOMP relay and several nodes, each node
+ * only sees the typists whose sessions it holds, so its frames list a partial
+ * set and its isTyping=false frame only means "nobody on this node". Every
+ * frame carries "node", a random id per instance; clients that merge typists
+ * per node and clear only that node's entries on isTyping=false show the full
+ * set. Clients that replace the list on every frame will flicker between
+ * nodes, which is harmless for a typing indicator.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TypingIndicatorAggregator {
+
+    static final long FLUSH_INTERVAL_MS = 500;
+    static final long TYPIST_TTL_MS = 4_000;
+    static final long KEEPALIVE_MS = 2_000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Map<String, TopicState> topics = new ConcurrentHashMap<>();
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private static final class TopicState {
+        final Map<String, Object> context;
+        // key -> typist, in order of most recent activity (latest last)
+        final LinkedHashMap<String, Typist> typists = new LinkedHashMap<>();
+        boolean dirty;
+        long lastSentAt;
+        // Set by flush when it unmaps an idle topic; a writer that still holds
+        // this instance must re-resolve the topic instead of updating it
+        boolean retired;
+
+        TopicState(Map<String, Object> context) {
+            this.context = context;
+        }
+    }
+
+    private record Typist(String userId, String userName, long lastSeen) {
+    }
+
+    /**
+     * Record a typing (or stopped-typing) event for a topic.
+     *
+     * @param topic    Destination the coalesced frame is sent to
+     * @param context  Fields copied into every frame for this topic
+     * @param userId   Typist id (may be null for legacy clients; userName is then the key)
+     * @param userName Display name
+     * @param typing   false when the client reports the user stopped typing
+     */
+    public void onTyping(String topic, Map<String, Object> context, String userId, String userName,
+            boolean typing) {
+        String key = userId != null && !userId.isBlank() ? userId : userName;
+        if (topic == null || key == null || key.isBlank()) {
+            return;
+        }
+        while (true) {
+            TopicState state = topics.computeIfAbsent(topic, t -> new TopicState(Map.copyOf(context)));
+            synchronized (state) {
+                if (state.retired) {
+                    continue;
+                }
+                record(state, key, userId, userName, typing);
+                return;
+            }
+        }
+    }
+
+    private static void record(TopicState state, String key, String userId, String userName, boolean typing) {
+        long now = System.currentTimeMillis();
+        Typist previous = state.typists.remove(key);
+        if (typing) {
+            state.typists.put(key, new Typist(userId, userName, now));
+            // A known typist only needs a frame once the last one is getting stale
+            state.dirty |= previous == null || now - state.lastSentAt >= KEEPALIVE_MS;
+        } else {
+            state.dirty |= previous != null;
+        }
+    }
+
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TopicState> entry : topics.entrySet()) {
+            TopicState state = entry.getValue();
+            Map<String, Object> frame = null;
+            synchronized (state) {
+                state.dirty |= state.typists.values().removeIf(t -> now - t.lastSeen() > TYPIST_TTL_MS);
+                if (state.dirty) {
+                    state.dirty = false;
+                    state.lastSentAt = now;
+                    frame = buildFrame(state, now);
+                }
+                if (state.typists.isEmpty()) {
+                    // Idle topic: drop its state; writers holding it see retired
+                    // and re-create it, so no event lands on an unmapped state
+                    state.retired = true;
+                    topics.remove(entry.getKey(), state);
+                }
+            }
+            if (frame == null) {
+                continue;
+            }
+            try {
+                messagingTemplate.convertAndSend(entry.getKey(), frame);
+            } catch (Exception e) {
+                log.warn("[Typing] Broadcast to {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Object> buildFrame(TopicState state, long now) {
+        Map<String, Object> frame = new LinkedHashMap<>(state.context);
+        List<Map<String, String>> typists = new ArrayList<>(state.typists.size());
+        Typist latest = null;
+        for (Typist typist : state.typists.values()) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("userId", typist.userId());
+            entry.put("userName", typist.userName());
+            typists.add(entry);
+            latest = typist;
+        }
+        frame.put("typists", typists);
+        frame.put("isTyping", latest != null);
+        if (latest != null) {
+            frame.put("userId", latest.userId());
+            frame.put("userName", latest.userName());
+        }
+        frame.put("node", nodeId);
+        frame.put("timestamp", now);
+        return frame;
+    }
+}
@@ -0,0 +1,84 @@
+package com.studencollabfin.server.service;
+
+import com.studencollabfin.server.gamification.event.ProfileUpdatedEvent;
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * UserProfileCache: Short-lived, bounded LRU of user documents for hot paths
+ * that only need profile fields (name, email domain, college, FCM token,
+ * notification preferences), such as sending a direct message.
+ *
+ * Entries expire after TTL_MS, so a change made on another instance is seen
+ * within that window. Changes made here (profile, FCM token, notification
+ * settings) invalidate the entry right away. Callers must treat the returned
+ * user as read-only and never save it.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserProfileCache {
+
+    static final long TTL_MS = 30_000;
+    static final int MAX_ENTRIES = 10_000;
+
+    private final UserRepository userRepository;
+
+    private record Entry(User user, long expiresAt) {
+    }
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The user with this id, from cache when fresh, otherwise loaded and cached.
+     */
+    public Optional<User> get(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAt() > now) {
+                return Optional.of(entry.user());
+            }
+        }
+
+        // Load outside the lock; a concurrent miss for the same id just loads twice
+        Optional<User> loaded = userRepository.findById(userId);
+        loaded.ifPresent(user -> {
+            synchronized (entries) {
+                entries.put(userId, new Entry(user, now + TTL_MS));
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    @EventListener
+    public void onProfileUpdated(ProfileUpdatedEvent event) {
+        if (event != null) {
+            invalidate(event.userId());
+        }
+    }
+}
@@ -5,6 +5,11 @@ import com.studencollabfin.server.model.Achievement;
 import com.studencollabfin.server.repository.UserRepository;
 import com.studencollabfin.server.repository.AchievementRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,6 +32,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private SkillIndexService skillIndexService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired(required = false)
     private FirebaseStorageService firebaseStorageService;
 
@@ -83,23 +94,18 @@ public class UserService implements UserDetailsService {
 
     @SuppressWarnings("null")
     public void awardXP(String userId, int xpAmount) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        int oldLevel = user.getLevel();
-        int newXP = user.getXp() + xpAmount;
-        int currentLevel = user.getLevel();
-
-        // Check if user should level up (100 XP per level)
-        while (newXP >= 100) {
-            currentLevel++;
-            newXP -= 100;
+        // Atomic XP/level update (100 XP per level); returns the pre-update document
+        User user = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                GamificationService.xpUpdate(xpAmount),
+                FindAndModifyOptions.options().returnNew(false),
+                User.class);
+        if (user == null) {
+            throw new RuntimeException("User not found");
         }
 
-        user.setXp(newXP);
-        user.setLevel(currentLevel);
-        user.setTotalXp(user.getTotalXp() + xpAmount);
-        userRepository.save(user);
+        int oldLevel = user.getLevel();
+        GamificationService.applyXpLocally(user, xpAmount);
 
         if (messagingTemplate != null && user.getLevel() > oldLevel) {
             try {
@@ -119,8 +125,41 @@ public class UserService implements UserDetailsService {
         checkAndAwardAchievements(user);
     }
 
-    @SuppressWarnings("null")
+    /**
+     * Atomically increment a user's endorsement count.
+     *
+     * @return the updated user, or null if it does not exist
+     */
+    public User incrementEndorsements(String userId) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("endorsementsCount", 1).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+
+    /**
+     * Targeted update of one user's fields. Bumps the version so a concurrent
+     * whole-document save of the same user conflicts instead of writing back
+     * stale values.
+     *
+     * @return the updated user, or null if it does not exist
+     */
+    public User updateUser(String userId, Update update) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                update.inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+
     public User updateUserProfile(String userId, User profileData) {
+        // Whole-document edit: on a @Version conflict re-read and re-apply
+        return OptimisticRetry.run("updateUserProfile", () -> applyProfileUpdate(userId, profileData));
+    }
+
+    @SuppressWarnings("null")
+    private User applyProfileUpdate(String userId, User profileData) {
         User existingUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -179,6 +218,7 @@ public class UserService implements UserDetailsService {
                         String firebaseUrl = firebaseStorageService.uploadBase64(profilePicUrl);
                         System.out.println("✅ [PROFILE_PIC] Base64 uploaded to Firebase: " + firebaseUrl);
                         existingUser.setProfilePicUrl(firebaseUrl);
+                        profileData.setProfilePicUrl(firebaseUrl); // A retry must not upload again
                     } else {
                         System.err
                                 .println("❌ [PROFILE_PIC] FirebaseStorageService not available - saving Base64 as is");
@@ -209,7 +249,11 @@ public class UserService implements UserDetailsService {
 
         existingUser.setProfileCompleted(true);
 
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        if (profileData.getSkills() != null) {
+            skillIndexService.indexUser(savedUser);
+        }
+        return savedUser;
     }
 
     public List<Achievement> getUserAchievements(String userId) {
@@ -306,6 +350,7 @@ public class UserService implements UserDetailsService {
                         newUser.setJoinedDate(now);
 
                         User savedUser = userRepository.save(newUser);
+                        skillIndexService.indexUser(savedUser);
 
                         return savedUser;
                     }
@@ -344,6 +389,7 @@ public class UserService implements UserDetailsService {
         newUser.setJoinedDate(now);
 
         User savedUser = userRepository.save(newUser);
+        skillIndexService.indexUser(savedUser);
 
         return savedUser;
     }
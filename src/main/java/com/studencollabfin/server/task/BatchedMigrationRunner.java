@@ -0,0 +1,116 @@
+package com.studencollabfin.server.task;
+
+import com.studencollabfin.server.model.MigrationProgress;
+import com.studencollabfin.server.repository.MigrationProgressRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Shared driver for resumable one-shot backfills.
+ *
+ * Walks the documents of a collection matching a filter in _id order,
+ * BATCH_SIZE at a time, reading only the given fields. Each batch is handed to
+ * a {@link BatchHandler} that queues its writes on one unordered bulk
+ * operation; the batch's last _id is then checkpointed in the migrations
+ * collection, so a restart resumes where it stopped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BatchedMigrationRunner {
+
+    static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationProgressRepository migrationProgressRepository;
+
+    /**
+     * Queues the writes for one batch.
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+
+        /**
+         * @return Number of writes added to {@code bulk}
+         */
+        int apply(List<Document> batch, BulkOperations bulk);
+    }
+
+    /**
+     * Process every remaining batch; a no-op once the migration has completed.
+     *
+     * @param filter Documents still needing the migration
+     * @param fields Fields the handler reads (_id is always included)
+     */
+    public MigrationProgress run(String migrationId, String collection, Criteria filter, List<String> fields,
+            BatchHandler handler) {
+        MigrationProgress progress = migrationProgressRepository.findById(migrationId)
+                .orElseGet(() -> new MigrationProgress(migrationId));
+        if (progress.isCompleted()) {
+            return progress;
+        }
+        if (progress.getStartedAt() == null) {
+            progress.setStartedAt(LocalDateTime.now());
+        }
+        log.info("[Migration:{}] Starting from _id > {}", migrationId, progress.getLastProcessedId());
+
+        while (true) {
+            List<Document> batch = nextBatch(collection, filter, fields, progress.getLastProcessedId());
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            int writes = handler.apply(batch, bulk);
+            if (writes > 0) {
+                bulk.execute();
+            }
+
+            progress.setLastProcessedId(batch.get(batch.size() - 1).get("_id").toString());
+            progress.setScanned(progress.getScanned() + batch.size());
+            progress.setUpdated(progress.getUpdated() + writes);
+            progress.setUpdatedAt(LocalDateTime.now());
+            migrationProgressRepository.save(progress);
+        }
+
+        progress.setCompleted(true);
+        progress.setUpdatedAt(LocalDateTime.now());
+        migrationProgressRepository.save(progress);
+        log.info("[Migration:{}] Completed: scanned={}, updated={}", migrationId, progress.getScanned(),
+                progress.getUpdated());
+        return progress;
+    }
+
+    /**
+     * An id as stored: ObjectId when it looks like one, the raw string otherwise.
+     */
+    static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private List<Document> nextBatch(String collection, Criteria filter, List<String> fields,
+            String lastProcessedId) {
+        Query query = new Query(filter)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(BATCH_SIZE);
+        if (lastProcessedId != null) {
+            query.addCriteria(Criteria.where("_id").gt(toId(lastProcessedId)));
+        }
+        query.fields().include("_id");
+        for (String field : fields) {
+            query.fields().include(field);
+        }
+        return mongoTemplate.find(query, Document.class, collection);
+    }
+}
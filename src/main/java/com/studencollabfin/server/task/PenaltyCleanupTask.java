@@ -3,6 +3,10 @@ package com.studencollabfin.server.task;
 import com.studencollabfin.server.model.User;
 import com.studencollabfin.server.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -16,36 +20,30 @@ public class PenaltyCleanupTask {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     /**
      * ✅ SCHEDULED CLEANUP: Runs every minute to check for expired penalties
      * Automatically removes "Spam Alert" badge after 24 hours
+     *
+     * One targeted multi-update over the users whose penalty has expired, so
+     * it neither loads every user nor conflicts with concurrent counter
+     * updates on them.
      */
     @Scheduled(fixedRate = 60000) // 60 seconds = 1 minute
     public void cleanupExpiredPenalties() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-
-            // Find all users with active penalty that has expired
-            List<User> allUsers = userRepository.findAll();
-
-            for (User user : allUsers) {
-                // Check if user has penalty expiry and it has passed
-                if (user.getPenaltyExpiry() != null && now.isAfter(user.getPenaltyExpiry())) {
-                    System.out.println("⏰ PENALTY CLEANUP: Processing expired penalty for user " + user.getId());
+            long cleared = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("penaltyExpiry").lt(LocalDateTime.now())),
+                    new Update()
+                            .pull("displayedBadges", "Spam Alert")
+                            .unset("penaltyExpiry")
+                            .inc("version", 1),
+                    User.class).getModifiedCount();
 
-                    // Remove Spam Alert badge from displayed badges
-                    if (user.getDisplayedBadges() != null) {
-                        user.getDisplayedBadges().remove("Spam Alert");
-                    }
-
-                    // Clear penalty expiry
-                    user.setPenaltyExpiry(null);
-
-                    // Save updated user
-                    userRepository.save(user);
-
-                    System.out.println("✅ PENALTY EXPIRED: 'Spam Alert' badge removed for " + user.getId());
-                }
+            if (cleared > 0) {
+                System.out.println("✅ PENALTY EXPIRED: 'Spam Alert' badge removed for " + cleared + " users");
             }
         } catch (Exception e) {
             System.err.println("❌ PENALTY CLEANUP ERROR: " + e.getMessage());
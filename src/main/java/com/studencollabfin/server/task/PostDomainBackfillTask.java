@@ -0,0 +1,97 @@
+package com.studencollabfin.server.task;
+
+import com.studencollabfin.server.model.MigrationProgress;
+import com.studencollabfin.server.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * One-shot migration: backfill Post.institutionDomain from the author's email
+ * domain for legacy posts created before domain isolation.
+ *
+ * Runs once in the background after startup through BatchedMigrationRunner,
+ * walking posts missing a domain in _id order. Each batch resolves its authors
+ * with one query and writes with one unordered bulk operation.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostDomainBackfillTask {
+
+    static final String MIGRATION_ID = "post-institution-domain-backfill";
+    private static final String POSTS = "posts";
+
+    private final MongoTemplate mongoTemplate;
+    private final BatchedMigrationRunner migrationRunner;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("[Migration:{}] Aborted, will resume on next startup: {}", MIGRATION_ID, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process every remaining batch; a no-op once the migration has completed.
+     */
+    public synchronized MigrationProgress run() {
+        return migrationRunner.run(MIGRATION_ID, POSTS,
+                Criteria.where("institutionDomain").in(null, ""), List.of("authorId"),
+                (batch, bulk) -> {
+                    Map<String, String> domainByAuthor = resolveAuthorDomains(batch);
+                    int writes = 0;
+                    for (Document post : batch) {
+                        String domain = domainByAuthor.get(post.getString("authorId"));
+                        if (domain != null && !domain.isEmpty()) {
+                            bulk.updateOne(Query.query(Criteria.where("_id").is(post.get("_id"))),
+                                    Update.update("institutionDomain", domain).inc("version", 1));
+                            writes++;
+                        }
+                    }
+                    return writes;
+                });
+    }
+
+    private Map<String, String> resolveAuthorDomains(List<Document> batch) {
+        Set<String> authorIds = new HashSet<>();
+        for (Document post : batch) {
+            String authorId = post.getString("authorId");
+            if (authorId != null) {
+                authorIds.add(authorId);
+            }
+        }
+
+        Map<String, String> domains = new HashMap<>();
+        if (authorIds.isEmpty()) {
+            return domains;
+        }
+        Query query = Query.query(Criteria.where("_id").in(authorIds));
+        query.fields().include("email");
+        for (User author : mongoTemplate.find(query, User.class)) {
+            domains.put(author.getId(), extractDomainFromEmail(author.getEmail()));
+        }
+        return domains;
+    }
+
+    // Same rule as PostService: "sara@sinhgad.edu" -> "sinhgad.edu"
+    private static String extractDomainFromEmail(String email) {
+        if (email == null || !email.contains("@")) {
+            return "";
+        }
+        return email.substring(email.indexOf("@") + 1).toLowerCase().trim();
+    }
+}
@@ -0,0 +1,88 @@
+package com.studencollabfin.server.task;
+
+import com.studencollabfin.server.model.MigrationProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * One-shot migration: copy CollabPod.podSource onto SocialPost.podSource for
+ * posts linked to a pod before the field was denormalized, so the campus
+ * counters can filter LOOKING_FOR posts without a pod lookup per post.
+ *
+ * Runs through BatchedMigrationRunner like PostDomainBackfillTask: one pods
+ * query and one unordered bulk write per batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostPodSourceBackfillTask {
+
+    static final String MIGRATION_ID = "post-pod-source-backfill";
+    private static final String POSTS = "posts";
+
+    private final MongoTemplate mongoTemplate;
+    private final BatchedMigrationRunner migrationRunner;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("[Migration:{}] Aborted, will resume on next startup: {}", MIGRATION_ID, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process every remaining batch; a no-op once the migration has completed.
+     */
+    public synchronized MigrationProgress run() {
+        return migrationRunner.run(MIGRATION_ID, POSTS,
+                Criteria.where("podSource").is(null).and("linkedPodId").nin(null, ""), List.of("linkedPodId"),
+                (batch, bulk) -> {
+                    Map<String, String> sourceByPod = resolvePodSources(batch);
+                    int writes = 0;
+                    for (Document post : batch) {
+                        String podSource = sourceByPod.get(post.getString("linkedPodId"));
+                        if (podSource != null) {
+                            bulk.updateOne(Query.query(Criteria.where("_id").is(post.get("_id"))),
+                                    Update.update("podSource", podSource).inc("version", 1));
+                            writes++;
+                        }
+                    }
+                    return writes;
+                });
+    }
+
+    private Map<String, String> resolvePodSources(List<Document> batch) {
+        List<Object> podIds = new ArrayList<>();
+        for (Document post : batch) {
+            String podId = post.getString("linkedPodId");
+            if (podId != null) {
+                podIds.add(BatchedMigrationRunner.toId(podId));
+            }
+        }
+
+        Map<String, String> sources = new HashMap<>();
+        Query query = Query.query(Criteria.where("_id").in(podIds));
+        query.fields().include("podSource");
+        for (Document pod : mongoTemplate.find(query, Document.class, "collabPods")) {
+            String podSource = pod.getString("podSource");
+            if (podSource != null) {
+                sources.put(pod.get("_id").toString(), podSource);
+            }
+        }
+        return sources;
+    }
+}
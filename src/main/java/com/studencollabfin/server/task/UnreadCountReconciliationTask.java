@@ -0,0 +1,123 @@
+package com.studencollabfin.server.task;
+
+import com.studencollabfin.server.model.Conversation;
+import com.studencollabfin.server.model.Message;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Repairs drift in Conversation.unreadCounts.
+ *
+ * Counters are maintained with $inc on send and reset on read, so a message
+ * sent while the recipient is marking the conversation read can leave a count
+ * off by one. This job recounts from messages (served by the
+ * conversationId_sentAt_id index) and rewrites only the entries that differ.
+ *
+ * The first run after startup covers every conversation, which also seeds
+ * counters for conversations created before they were maintained; later runs
+ * only revisit conversations touched since the previous run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadCountReconciliationTask {
+
+    // Overlap between runs so a conversation written during a pass is revisited
+    private static final long OVERLAP_MS = 60_000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private Date lastRunStartedAt;
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 15 * 60_000)
+    public void reconcileUnreadCounts() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("[UnreadReconcile] Failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One reconciliation pass.
+     *
+     * @return number of conversations whose counters were corrected
+     */
+    public synchronized int reconcile() {
+        Date startedAt = new Date();
+        Query query = new Query();
+        if (lastRunStartedAt != null) {
+            query.addCriteria(Criteria.where("updatedAt")
+                    .gte(new Date(lastRunStartedAt.getTime() - OVERLAP_MS)));
+        }
+
+        int scanned = 0;
+        int corrected = 0;
+        try (Stream<Conversation> conversations = mongoTemplate.stream(query, Conversation.class)) {
+            for (Conversation conv : (Iterable<Conversation>) conversations::iterator) {
+                scanned++;
+                if (reconcile(conv)) {
+                    corrected++;
+                }
+            }
+        }
+
+        lastRunStartedAt = startedAt;
+        if (corrected > 0) {
+            log.info("[UnreadReconcile] Corrected {} of {} conversations", corrected, scanned);
+        }
+        return corrected;
+    }
+
+    private boolean reconcile(Conversation conv) {
+        if (conv.getParticipantIds() == null) {
+            return false;
+        }
+
+        Map<String, Integer> stored = conv.getUnreadCounts();
+        Map<String, Date> lastRead = conv.getLastReadTimestamps();
+        Update update = new Update();
+        boolean drifted = false;
+        for (String participantId : conv.getParticipantIds()) {
+            if (participantId == null) {
+                continue;
+            }
+            Date since = lastRead != null && lastRead.get(participantId) != null
+                    ? lastRead.get(participantId)
+                    : conv.getCreatedAt();
+
+            Criteria unread = Criteria.where("conversationId").is(conv.getId())
+                    .and("senderId").ne(participantId);
+            if (since != null) {
+                unread = unread.and("sentAt").gt(since);
+            }
+            int actual = (int) mongoTemplate.count(new Query(unread), Message.class);
+            Integer current = stored != null ? stored.get(participantId) : null;
+            if (current == null || current != actual) {
+                update.set("unreadCounts." + participantId, actual);
+                drifted = true;
+            }
+        }
+        if (!drifted) {
+            return false;
+        }
+
+        // Only write if nothing changed the conversation since it was read; a
+        // concurrent send or read already moved the counter and the next pass
+        // will recheck it
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(conv.getId()).and("version").is(conv.getVersion())),
+                update.inc("version", 1),
+                Conversation.class).getModifiedCount() > 0;
+    }
+}
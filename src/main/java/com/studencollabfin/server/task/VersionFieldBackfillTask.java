@@ -0,0 +1,77 @@
+package com.studencollabfin.server.task;
+
+import com.studencollabfin.server.model.CollabPod;
+import com.studencollabfin.server.model.Conversation;
+import com.studencollabfin.server.model.HardModeBadge;
+import com.studencollabfin.server.model.MigrationProgress;
+import com.studencollabfin.server.model.SocialPost;
+import com.studencollabfin.server.model.User;
+import com.studencollabfin.server.repository.MigrationProgressRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One-shot migration: initialize the @Version field on documents written
+ * before optimistic locking was introduced.
+ *
+ * A versioned entity loaded with a null version is treated as new, so saving
+ * it would be an insert and fail with a duplicate key. Each collection gets a
+ * single updateMany setting version = 0 where it is missing. Unlike the
+ * background backfills this runs synchronously once all singletons exist,
+ * before the web server starts taking requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionFieldBackfillTask implements SmartInitializingSingleton {
+
+    static final String MIGRATION_ID = "version-field-backfill";
+
+    private static final List<Class<?>> VERSIONED = List.of(
+            User.class, CollabPod.class, SocialPost.class, Conversation.class, HardModeBadge.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationProgressRepository migrationProgressRepository;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("[Migration:{}] Aborted, will retry on next startup: {}", MIGRATION_ID, e.getMessage(), e);
+        }
+    }
+
+    public synchronized MigrationProgress run() {
+        MigrationProgress progress = migrationProgressRepository.findById(MIGRATION_ID)
+                .orElseGet(() -> new MigrationProgress(MIGRATION_ID));
+        if (progress.isCompleted()) {
+            return progress;
+        }
+        progress.setStartedAt(LocalDateTime.now());
+
+        for (Class<?> type : VERSIONED) {
+            // posts also holds unversioned TeamFindingPosts; an extra field is harmless there
+            long updated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    Update.update("version", 0L),
+                    mongoTemplate.getCollectionName(type)).getModifiedCount();
+            progress.setUpdated(progress.getUpdated() + updated);
+        }
+
+        progress.setCompleted(true);
+        progress.setUpdatedAt(LocalDateTime.now());
+        migrationProgressRepository.save(progress);
+        log.info("[Migration:{}] Completed: updated={}", MIGRATION_ID, progress.getUpdated());
+        return progress;
+    }
+}
@@ -0,0 +1,110 @@
+package com.studencollabfin.server.service;
+
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FcmDispatcherTest {
+
+    private final LocalFcmTransport transport = new LocalFcmTransport();
+    private final List<String> removedTokens = Collections.synchronizedList(new ArrayList<>());
+    private final FcmDispatcher dispatcher = new FcmDispatcher(transport, removedTokens::add, 1, 100, 3, 5);
+
+    @AfterEach
+    void stopDispatcher() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void retriesTransientErrorsAndRemovesInvalidTokens() throws Exception {
+        transport.failNext("flaky", MessagingErrorCode.UNAVAILABLE, MessagingErrorCode.INTERNAL);
+        transport.failNext("gone", MessagingErrorCode.UNREGISTERED);
+        dispatcher.start();
+
+        assertTrue(dispatcher.enqueue(FcmDispatcher.Delivery.toToken(message("flaky"), "flaky")));
+        assertTrue(dispatcher.enqueue(FcmDispatcher.Delivery.toToken(message("gone"), "gone")));
+        assertTrue(dispatcher.enqueue(FcmDispatcher.Delivery.toTopic(message(null), "campus_polls_x")));
+
+        awaitTrue(() -> transport.delivered().size() == 2 && removedTokens.size() == 1);
+
+        List<FcmDispatcher.Delivery> delivered = transport.delivered();
+        FcmDispatcher.Delivery flaky = delivered.stream().filter(d -> "flaky".equals(d.token())).findFirst()
+                .orElseThrow();
+        assertEquals(3, flaky.attempt());
+        assertEquals(List.of("gone"), removedTokens);
+
+        Map<String, Object> stats = dispatcher.snapshot();
+        assertEquals(2L, stats.get("sent"));
+        assertEquals(2L, stats.get("retried"));
+        assertEquals(1L, stats.get("invalidTokensRemoved"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        transport.failNext("down", MessagingErrorCode.UNAVAILABLE, MessagingErrorCode.UNAVAILABLE,
+                MessagingErrorCode.UNAVAILABLE, MessagingErrorCode.UNAVAILABLE);
+        dispatcher.start();
+
+        dispatcher.enqueue(FcmDispatcher.Delivery.toToken(message("down"), "down"));
+
+        awaitTrue(() -> (Long) dispatcher.snapshot().get("failed") == 1L);
+        assertTrue(transport.delivered().isEmpty());
+        assertEquals(2L, dispatcher.snapshot().get("retried"));
+    }
+
+    @Test
+    void dropsWhenQueueIsFull() {
+        FcmDispatcher tiny = new FcmDispatcher(transport, removedTokens::add, 1, 1, 3, 5);
+        // Not started, so nothing drains the queue
+        assertTrue(tiny.enqueue(FcmDispatcher.Delivery.toToken(message("a"), "a")));
+        assertEquals(false, tiny.enqueue(FcmDispatcher.Delivery.toToken(message("b"), "b")));
+        assertEquals(1L, tiny.snapshot().get("dropped"));
+    }
+
+    @Test
+    void resolvesBadgeCountOnTheWorker() throws Exception {
+        List<String> countedOn = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> badges = Collections.synchronizedList(new ArrayList<>());
+        FcmDispatcher badged = new FcmDispatcher(transport, removedTokens::add, userId -> {
+            countedOn.add(Thread.currentThread().getName());
+            return 7;
+        }, 1, 100, 3, 5);
+        try {
+            assertTrue(badged.enqueue(FcmDispatcher.Delivery.toUser(message("dm"), "dm", "u1", badge -> {
+                badges.add(badge);
+                return message("dm");
+            })));
+            assertTrue(countedOn.isEmpty());
+
+            badged.start();
+            awaitTrue(() -> transport.delivered().size() == 1);
+            assertEquals(List.of(7), badges);
+            assertTrue(countedOn.get(0).startsWith("fcm-dispatch-"));
+        } finally {
+            badged.stop();
+        }
+    }
+
+    private static Message message(String token) {
+        Message.Builder builder = Message.builder().putData("type", FcmNotificationService.TYPE_DM);
+        return token != null ? builder.setToken(token).build() : builder.setTopic("campus_polls_x").build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.studencollabfin.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studencollabfin.server.model.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PodMessageWriteBehindTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void batchesAndAcknowledgesSubmittedMessages() throws Exception {
+        List<List<Message>> batches = Collections.synchronizedList(new ArrayList<>());
+        PodMessageWriteBehind writeBehind = new PodMessageWriteBehind(
+                batch -> batches.add(List.copyOf(batch)), objectMapper, journalDir, 2, 5);
+        writeBehind.start();
+
+        List<CompletableFuture<Message>> acks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            acks.add(writeBehind.submit(message("m" + i)));
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        writeBehind.stop();
+
+        List<String> stored = batches.stream().flatMap(List::stream).map(Message::getId).toList();
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), stored);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(0, journalFiles());
+    }
+
+    @Test
+    void replaysJournalAfterCrashBeforeInsert() throws Exception {
+        // First process: the insert never completes before the process "dies"
+        CountDownLatch mongoHangs = new CountDownLatch(1);
+        PodMessageWriteBehind crashed = new PodMessageWriteBehind(batch -> {
+            try {
+                mongoHangs.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("connection reset");
+        }, objectMapper, journalDir, 100, 5);
+        crashed.start();
+        List<CompletableFuture<Message>> acks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            acks.add(crashed.submit(message("lost-" + i)));
+        }
+        assertTrue(acks.stream().noneMatch(CompletableFuture::isDone));
+
+        // Second process starts on the same journal and replays it
+        List<Message> recovered = Collections.synchronizedList(new ArrayList<>());
+        PodMessageWriteBehind restarted = new PodMessageWriteBehind(
+                recovered::addAll, objectMapper, journalDir, 100, 5);
+        restarted.start();
+
+        awaitTrue(() -> recovered.size() == 3);
+        assertEquals(List.of("lost-0", "lost-1", "lost-2"), recovered.stream().map(Message::getId).toList());
+        assertEquals("text lost-1", recovered.get(1).getText());
+        assertEquals("pod-1", recovered.get(1).getConversationId());
+
+        restarted.stop();
+        mongoHangs.countDown();
+        crashed.stop();
+    }
+
+    @Test
+    void startsWhileMongoIsDownAndReplaysOnceItIsBack() throws Exception {
+        Files.writeString(journalDir.resolve("segment-00000000000000000001-000001.jsonl"),
+                objectMapper.writeValueAsString(message("pending")) + "\n");
+
+        AtomicInteger attempts = new AtomicInteger();
+        List<Message> stored = Collections.synchronizedList(new ArrayList<>());
+        PodMessageWriteBehind writeBehind = new PodMessageWriteBehind(batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("connection refused");
+            }
+            stored.addAll(batch);
+        }, objectMapper, journalDir, 100, 5);
+
+        // Startup must not wait for (or fail on) the replay
+        writeBehind.start();
+        CompletableFuture<Message> live = writeBehind.submit(message("live"));
+
+        live.get(5, TimeUnit.SECONDS);
+        writeBehind.stop();
+
+        assertEquals(List.of("pending", "live"), stored.stream().map(Message::getId).toList());
+        assertEquals(0, journalFiles());
+    }
+
+    @Test
+    void reportsSeqsInFlightUntilTheirInsertSucceeds() throws Exception {
+        AtomicBoolean mongoDown = new AtomicBoolean(true);
+        AtomicLong counter = new AtomicLong(10);
+        PodMessageWriteBehind writeBehind = new PodMessageWriteBehind(batch -> {
+            batch.stream().filter(m -> m.getSeq() == null).forEach(m -> m.setSeq(counter.incrementAndGet()));
+            if (mongoDown.get()) {
+                throw new IllegalStateException("connection refused");
+            }
+        }, objectMapper, journalDir, 100, 5);
+        writeBehind.start();
+
+        CompletableFuture<Message> ack = writeBehind.submit(message("m0"));
+        awaitTrue(() -> writeBehind.isInFlight("pod-1", 11, 12));
+        assertFalse(writeBehind.isInFlight("pod-1", 12, 20));
+        assertFalse(writeBehind.isInFlight("pod-2", 11, 12));
+
+        mongoDown.set(false);
+        assertEquals(11L, ack.get(5, TimeUnit.SECONDS).getSeq());
+        assertFalse(writeBehind.isInFlight("pod-1", 11, 12));
+        writeBehind.stop();
+    }
+
+    @Test
+    void failsOnlyMessagesThatConflictWithStoredOnes() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        PodMessageWriteBehind writeBehind = new PodMessageWriteBehind(batch -> {
+            attempts.incrementAndGet();
+            List<Message> conflicts = batch.stream().filter(m -> m.getId().equals("taken")).toList();
+            if (!conflicts.isEmpty()) {
+                throw new PodMessageWriteBehind.ConflictingMessagesException(conflicts);
+            }
+        }, objectMapper, journalDir, 100, 50);
+        writeBehind.start();
+
+        CompletableFuture<Message> stored = writeBehind.submit(message("fresh"));
+        CompletableFuture<Message> rejected = writeBehind.submit(message("taken"));
+        assertEquals("fresh", stored.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PodMessageWriteBehind.ConflictingMessagesException.class, failure.getCause());
+        writeBehind.stop();
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, journalFiles());
+    }
+
+    @Test
+    void skipsTornJournalLine() throws Exception {
+        Files.writeString(journalDir.resolve("segment-00000000000000000001-000001.jsonl"),
+                objectMapper.writeValueAsString(message("kept")) + "\n{\"id\":\"torn\",\"te");
+
+        List<Message> recovered = new ArrayList<>();
+        PodMessageWriteBehind writeBehind = new PodMessageWriteBehind(
+                recovered::addAll, objectMapper, journalDir, 100, 5);
+        writeBehind.start();
+        writeBehind.stop();
+
+        assertEquals(List.of("kept"), recovered.stream().map(Message::getId).toList());
+        assertEquals(0, journalFiles());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private long journalFiles() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+
+    private static Message message(String id) {
+        Message message = new Message();
+        message.setId(id);
+        message.setConversationId("pod-1");
+        message.setPodId("pod-1");
+        message.setSenderId("user-1");
+        message.setText("text " + id);
+        message.setSentAt(new Date());
+        message.setMessageType(Message.MessageType.CHAT);
+        return message;
+    }
+}
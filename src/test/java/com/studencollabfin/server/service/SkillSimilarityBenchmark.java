@@ -0,0 +1,122 @@
+package com.studencollabfin.server.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH benchmark: scoring one requester against the whole user population with
+ * the legacy HashSet-based Jaccard versus the bitset engine in
+ * SkillSimilarityService.
+ *
+ * Run from the IDE, or after `mvn test-compile` with this class's main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class SkillSimilarityBenchmark {
+
+    private static final int VOCABULARY = 300;
+    private static final int MIN_SKILLS = 3;
+    private static final int MAX_SKILLS = 8;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int users;
+
+    private List<String> mySkills;
+    private List<List<String>> allSkills;
+
+    private long[] myBits;
+    private long[][] allBits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            // Mixed case, as stored on real profiles
+            vocabulary.add(i % 2 == 0 ? "Skill-" + i : "SKILL-" + i);
+        }
+
+        SkillSimilarityService service = new SkillSimilarityService();
+        mySkills = randomSkills(random, vocabulary);
+        myBits = service.encode(mySkills);
+
+        allSkills = new ArrayList<>(users);
+        allBits = new long[users][];
+        for (int i = 0; i < users; i++) {
+            List<String> skills = randomSkills(random, vocabulary);
+            allSkills.add(skills);
+            allBits[i] = service.encode(skills);
+        }
+    }
+
+    @Benchmark
+    public void legacyHashSetJaccard(Blackhole blackhole) {
+        for (List<String> skills : allSkills) {
+            blackhole.consume(legacySimilarity(mySkills, skills));
+        }
+    }
+
+    @Benchmark
+    public void bitsetJaccard(Blackhole blackhole) {
+        for (long[] bits : allBits) {
+            blackhole.consume(SkillSimilarityService.jaccard(myBits, bits));
+        }
+    }
+
+    private static List<String> randomSkills(Random random, List<String> vocabulary) {
+        int count = MIN_SKILLS + random.nextInt(MAX_SKILLS - MIN_SKILLS + 1);
+        List<String> skills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            skills.add(vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return skills;
+    }
+
+    // The pre-bitset implementation, kept verbatim as the baseline
+    private static double legacySimilarity(List<String> skills1, List<String> skills2) {
+        if (skills1 == null || skills2 == null || (skills1.isEmpty() && skills2.isEmpty())) {
+            return 0.0;
+        }
+
+        Set<String> set1 = skills1.stream()
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+
+        Set<String> set2 = skills2.stream()
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+
+        if (set1.isEmpty() && set2.isEmpty()) {
+            return 0.0;
+        }
+
+        Set<String> intersection = new HashSet<>(set1);
+        intersection.retainAll(set2);
+
+        Set<String> union = new HashSet<>(set1);
+        union.addAll(set2);
+
+        return (double) intersection.size() / union.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SkillSimilarityBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}